@@ -5,11 +5,15 @@ import com.squareup.javapoet.*;
 
 import javax.lang.model.element.Modifier;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
 import static com.j2html.codegen.Model.Metadata.ON_OFF;
 import static com.j2html.codegen.Model.Metadata.SELF_CLOSING;
@@ -20,6 +24,10 @@ public class Generator {
     public static final ClassName TAG = ClassName.get("j2html.tags", "Tag");
     public static final ClassName EMPTY_TAG = ClassName.get("j2html.tags", "EmptyTag");
     public static final ClassName CONTAINER_TAG = ClassName.get("j2html.tags", "ContainerTag");
+    public static final ClassName DOM_CONTENT = ClassName.get("j2html.tags", "DomContent");
+    public static final ClassName SHORT_FORM = ClassName.get("j2html.attributes", "Attr", "ShortForm");
+    public static final ClassName HTML_BUILDER = ClassName.get("j2html.rendering", "HtmlBuilder");
+    public static final ClassName HTML_STREAM_BASE = ClassName.get("j2html.rendering", "HtmlStreamBase");
 
     public static void main(String... args) throws IOException {
         Path path = Paths.get("j2html-codegen", "src", "test", "resources", "html.model");
@@ -33,6 +41,10 @@ public class Generator {
     }
 
     public static void generate(Path root, String attributePkg, String elementPkg, Model model) throws IOException {
+        generate(root, attributePkg, elementPkg, null, null, model);
+    }
+
+    public static void generate(Path root, String attributePkg, String elementPkg, String streamingClass, String namesClass, Model model) throws IOException {
         Map<String, JavaFile> attributes = generateAttributePackage(attributePkg, model);
         for (JavaFile file : attributes.values()) {
             file.writeTo(root);
@@ -42,6 +54,156 @@ public class Generator {
         for (JavaFile file : elements.values()) {
             file.writeTo(root);
         }
+
+        if (streamingClass != null && !streamingClass.isEmpty()) {
+            generateStreamingClass(ClassName.bestGuess(streamingClass), model).writeTo(root);
+        }
+
+        if (namesClass != null && !namesClass.isEmpty()) {
+            generateNamesClass(ClassName.bestGuess(namesClass), model).writeTo(root);
+        }
+    }
+
+    private static JavaFile generateNamesClass(ClassName className, Model model) {
+        TypeSpec type = TypeSpec.classBuilder(className)
+            .addJavadoc("The element and attribute names of the model, in model order.\n")
+            .addJavadoc("The index of a name is stable for as long as the model does not change.\n")
+            .addModifiers(Modifier.FINAL)
+            .addField(namesField("ELEMENTS", model.elements()))
+            .addField(namesField("ATTRIBUTES", model.attributes()))
+            .addField(FieldSpec.builder(int.class, "FINGERPRINT", Modifier.STATIC, Modifier.FINAL)
+                .addJavadoc("CRC32 of the names, which changes whenever a name is added, removed, renamed or moved.\n")
+                .initializer("0x$L", Integer.toHexString(fingerprint(model)))
+                .build())
+            .addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PRIVATE)
+                .build())
+            .build();
+
+        return JavaFile.builder(className.packageName(), type)
+            .skipJavaLangImports(true)
+            .build();
+    }
+
+    private static int fingerprint(Model model) {
+        CRC32 crc = new CRC32();
+        for (Iterable<Node> nodes : Arrays.asList(model.elements(), model.attributes())) {
+            for (Node node : nodes) {
+                crc.update(node.name.getBytes(StandardCharsets.UTF_8));
+                crc.update(0);
+            }
+            // separates the tables, so moving a name from one to the other changes the fingerprint
+            crc.update(1);
+        }
+        return (int) crc.getValue();
+    }
+
+    private static FieldSpec namesField(String name, Iterable<Node> nodes) {
+        CodeBlock.Builder names = CodeBlock.builder().add("{\n").indent();
+        for (Node node : nodes) {
+            names.add("$S,\n", node.name);
+        }
+        names.unindent().add("}");
+        return FieldSpec.builder(String[].class, name, Modifier.STATIC, Modifier.FINAL)
+            .initializer(names.build())
+            .build();
+    }
+
+    private static JavaFile generateStreamingClass(ClassName className, Model model) {
+        TypeName body = ParameterizedTypeName.get(ClassName.get(Consumer.class), className);
+        TypeName children = ArrayTypeName.of(DOM_CONTENT);
+
+        TypeSpec.Builder type = TypeSpec.classBuilder(className)
+            .addJavadoc("Writes HTML directly to an HtmlBuilder, without building a tree of tags.\n")
+            .addJavadoc("Intended usage: {@literal $T.into(builder).div(attrs(\".row\"), d -> d.span(\"x\"))}\n", className)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .superclass(ParameterizedTypeName.get(HTML_STREAM_BASE, className))
+            .addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(ParameterizedTypeName.get(HTML_BUILDER, WildcardTypeName.subtypeOf(Object.class)), "builder")
+                .addStatement("super(builder)")
+                .build())
+            .addMethod(MethodSpec.methodBuilder("into")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(ParameterizedTypeName.get(HTML_BUILDER, WildcardTypeName.subtypeOf(Object.class)), "builder")
+                .addStatement("return new $T(builder)", className)
+                .returns(className)
+                .build());
+
+        for (Node element : model.elements()) {
+            String name = element.name;
+            if (element.is(SELF_CLOSING)) {
+                type.addMethod(streamingMethod(className, name)
+                    .addStatement("return emptyTag($S, null)", name)
+                    .build());
+                type.addMethod(streamingMethod(className, name)
+                    .addParameter(SHORT_FORM, "shortAttr")
+                    .addStatement("return emptyTag($S, shortAttr)", name)
+                    .build());
+                continue;
+            }
+            type.addMethod(streamingMethod(className, name)
+                .addStatement("return element($S, null)", name)
+                .build());
+            type.addMethod(streamingMethod(className, name)
+                .addParameter(String.class, "text")
+                .addStatement("return element($S, null, text)", name)
+                .build());
+            type.addMethod(streamingMethod(className, name)
+                .addParameter(body, "body")
+                .addStatement("return tag($S, null, body)", name)
+                .build());
+            type.addMethod(streamingMethod(className, name)
+                .addParameter(children, "dc")
+                .varargs()
+                .addStatement("return element($S, null, dc)", name)
+                .build());
+            type.addMethod(streamingMethod(className, name)
+                .addParameter(SHORT_FORM, "shortAttr")
+                .addStatement("return element($S, shortAttr)", name)
+                .build());
+            type.addMethod(streamingMethod(className, name)
+                .addParameter(SHORT_FORM, "shortAttr")
+                .addParameter(String.class, "text")
+                .addStatement("return element($S, shortAttr, text)", name)
+                .build());
+            type.addMethod(streamingMethod(className, name)
+                .addParameter(SHORT_FORM, "shortAttr")
+                .addParameter(body, "body")
+                .addStatement("return tag($S, shortAttr, body)", name)
+                .build());
+            type.addMethod(streamingMethod(className, name)
+                .addParameter(SHORT_FORM, "shortAttr")
+                .addParameter(children, "dc")
+                .varargs()
+                .addStatement("return element($S, shortAttr, dc)", name)
+                .build());
+        }
+
+        // Attributes of the start tag which has just been written.
+        for (Node attribute : model.attributes()) {
+            String name = attribute.name;
+            if (attribute.type.equals(Node.Type.STRING)) {
+                type.addMethod(streamingMethod(className, methodName("with", name))
+                    .addParameter(String.class, parameter(attribute))
+                    .addStatement("return attr($S, $N)", name, parameter(attribute))
+                    .build());
+            } else if (attribute.type.equals(Node.Type.BOOLEAN)) {
+                type.addMethod(streamingMethod(className, methodName("is", name))
+                    .addStatement(attribute.is(ON_OFF) ? "return attr($S, \"on\")" : "return attr($S)", name)
+                    .build());
+            }
+        }
+
+        return JavaFile.builder(className.packageName(), type.build())
+            .skipJavaLangImports(true)
+            .build();
+    }
+
+    private static MethodSpec.Builder streamingMethod(ClassName className, String name) {
+        return MethodSpec.methodBuilder(name)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(className);
     }
 
     private static Map<String, JavaFile> generateElementPackage(String pkg, Model model, Map<String, JavaFile> attributes) {
@@ -27,11 +27,27 @@ public class J2htmlCodeGeneratorMojo extends AbstractMojo {
     @Parameter(property = "tagPackage", required = true)
     String tagPackage;
 
+    /**
+     * Fully qualified name of the streaming DSL class to generate, if any.
+     * The class extends j2html.rendering.HtmlStreamBase.
+     */
+    @Parameter(property = "streamingClass")
+    String streamingClass;
+
+    /**
+     * Fully qualified name of the package-private class holding the element and
+     * attribute names of the model, if any.
+     */
+    @Parameter(property = "namesClass")
+    String namesClass;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         getLog().debug("Model File: " + modelFile);
         getLog().debug("Attribute Package: " + attributePackage);
         getLog().debug("Tag Package: " + tagPackage);
+        getLog().debug("Streaming Class: " + streamingClass);
+        getLog().debug("Names Class: " + namesClass);
 
         String outputDirectory = project.getBuild().getDirectory() + "/generated-sources/j2html-codegen";
         project.addCompileSourceRoot(outputDirectory);
@@ -56,6 +72,8 @@ public class J2htmlCodeGeneratorMojo extends AbstractMojo {
                 Paths.get(outputDirectory).toAbsolutePath(),
                 attributePackage,
                 tagPackage,
+                streamingClass,
+                namesClass,
                 model
             );
         } catch (IOException e) {
@@ -0,0 +1,52 @@
+package j2html.web;
+
+import j2html.Config;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+import j2html.rendering.Utf8Length;
+import j2html.tags.ContentLength;
+import j2html.tags.DomContent;
+
+import java.io.IOException;
+
+/**
+ * Something which renders HTML into a builder, e.g. {@code page::render} for a
+ * DomContent or {@code layout.fill().slot(...)::render} for a Layout.
+ */
+@FunctionalInterface
+public interface HtmlSource {
+
+    void render(HtmlBuilder<?> builder) throws IOException;
+
+    /**
+     * Computes the number of bytes this source renders to as UTF-8, by rendering it without output
+     *
+     * @param config the Config to render with
+     * @return the exact Content-Length, or -1 if the source cannot be measured
+     * @throws IOException if rendering fails
+     */
+    default long contentLength(Config config) throws IOException {
+        Utf8Length length = new Utf8Length();
+        render(FlatHtml.into(length, config));
+        return length.length();
+    }
+
+    /**
+     * @param content the content to render
+     * @return a source which uses the cached lengths of static subtrees to compute its Content-Length,
+     * and reports no length for content which can only be rendered once, like a streamed Stream
+     */
+    static HtmlSource of(DomContent content) {
+        return new HtmlSource() {
+            @Override
+            public void render(HtmlBuilder<?> builder) throws IOException {
+                content.render(builder);
+            }
+
+            @Override
+            public long contentLength(Config config) {
+                return ContentLength.isMeasurable(content) ? ContentLength.of(content, config) : -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package j2html.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import j2html.Config;
+import j2html.rendering.Utf8Output;
+import j2html.tags.DomContent;
+
+import java.io.IOException;
+
+/**
+ * Streams pages into an {@link HttpExchange} of the JDK's built-in HTTP server.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * server.createContext("/", exchange -> HttpServerHtml.render(exchange, 200, IndexView.page()));
+ * }</pre>
+ * The response headers are sent together with the first bytes of the page: with a
+ * Content-Length if the whole page fit into the buffer, and with chunked transfer
+ * encoding otherwise. If rendering fails before that, no headers have been sent and
+ * the handler can still respond with an error.
+ */
+public final class HttpServerHtml {
+
+    private HttpServerHtml() {
+    }
+
+    public static void render(HttpExchange exchange, int status, DomContent content) throws IOException {
+        render(exchange, status, HtmlSource.of(content), StreamingOptions.DEFAULTS);
+    }
+
+    public static void render(HttpExchange exchange, int status, DomContent content, StreamingOptions options) throws IOException {
+        render(exchange, status, HtmlSource.of(content), options);
+    }
+
+    public static void render(HttpExchange exchange, int status, HtmlSource source) throws IOException {
+        render(exchange, status, source, StreamingOptions.DEFAULTS);
+    }
+
+    /**
+     * Renders the source into the exchange's response body, and closes it
+     *
+     * @param exchange the exchange
+     * @param status   the response status
+     * @param source   what to render
+     * @param options  how to stream the page
+     * @throws IOException if writing to the response fails
+     */
+    public static void render(HttpExchange exchange, int status, HtmlSource source, StreamingOptions options) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/html;charset=UTF-8");
+        Config config = options.config();
+        long contentLength = options.contentLength(source, config);
+        Utf8Output out = new Utf8Output(exchange.getResponseBody(), options.bufferSize()) {
+            @Override
+            protected void commit(int bufferedBytes, boolean complete) throws IOException {
+                // the server uses chunked encoding for a length of 0, and -1 for an empty body
+                if (contentLength < 0 && !complete) {
+                    exchange.sendResponseHeaders(status, 0);
+                } else {
+                    long length = contentLength >= 0 ? contentLength : bufferedBytes;
+                    exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+                }
+            }
+        };
+        options.render(source, out, config);
+        out.close();
+    }
+}
@@ -0,0 +1,39 @@
+package j2html.web;
+
+import io.javalin.http.Context;
+import j2html.tags.DomContent;
+
+import java.io.IOException;
+
+/**
+ * Streams pages into the response of a Javalin {@link Context}, instead of
+ * passing a rendered String to {@code ctx.html(...)}.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * app.get("/", ctx -> JavalinHtml.render(ctx, IndexView.page()));
+ * }</pre>
+ * The page is written during the handler, so it bypasses Javalin's result handling,
+ * e.g. its response compression. The status set with {@code ctx.status(...)} is kept.
+ */
+public final class JavalinHtml {
+
+    private JavalinHtml() {
+    }
+
+    public static void render(Context ctx, DomContent content) throws IOException {
+        ServletHtml.render(ctx.res, content);
+    }
+
+    public static void render(Context ctx, DomContent content, StreamingOptions options) throws IOException {
+        ServletHtml.render(ctx.res, content, options);
+    }
+
+    public static void render(Context ctx, HtmlSource source) throws IOException {
+        ServletHtml.render(ctx.res, source);
+    }
+
+    public static void render(Context ctx, HtmlSource source, StreamingOptions options) throws IOException {
+        ServletHtml.render(ctx.res, source, options);
+    }
+}
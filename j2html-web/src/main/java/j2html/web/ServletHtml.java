@@ -0,0 +1,67 @@
+package j2html.web;
+
+import j2html.Config;
+import j2html.rendering.Utf8Output;
+import j2html.tags.DomContent;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Streams pages into an {@link HttpServletResponse}. The page is encoded straight
+ * into the response's output stream, instead of being rendered into a String first.
+ * <p>
+ * Intended usage, in a servlet:
+ * <pre>{@code
+ * protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+ *     ServletHtml.render(response, IndexView.page());
+ * }
+ * }</pre>
+ * If rendering fails before anything has been written, the response is left
+ * uncommitted, so the container can still send an error page.
+ */
+public final class ServletHtml {
+
+    private ServletHtml() {
+    }
+
+    public static void render(HttpServletResponse response, DomContent content) throws IOException {
+        render(response, HtmlSource.of(content), StreamingOptions.DEFAULTS);
+    }
+
+    public static void render(HttpServletResponse response, DomContent content, StreamingOptions options) throws IOException {
+        render(response, HtmlSource.of(content), options);
+    }
+
+    public static void render(HttpServletResponse response, HtmlSource source) throws IOException {
+        render(response, source, StreamingOptions.DEFAULTS);
+    }
+
+    /**
+     * Renders the source into the response, and closes the response's output stream.
+     * The status of the response is not changed.
+     *
+     * @param response the response
+     * @param source   what to render
+     * @param options  how to stream the page
+     * @throws IOException if writing to the response fails
+     */
+    public static void render(HttpServletResponse response, HtmlSource source, StreamingOptions options) throws IOException {
+        response.setContentType("text/html;charset=UTF-8");
+        Config config = options.config();
+        long contentLength = options.contentLength(source, config);
+        if (contentLength >= 0) {
+            response.setContentLengthLong(contentLength);
+        }
+        Utf8Output out = new Utf8Output(response.getOutputStream(), options.bufferSize()) {
+            @Override
+            protected void commit(int bufferedBytes, boolean complete) {
+                if (complete && contentLength < 0) {
+                    response.setContentLength(bufferedBytes);
+                }
+            }
+        };
+        options.render(source, out, config);
+        out.close();
+    }
+}
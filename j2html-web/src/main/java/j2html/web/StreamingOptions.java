@@ -0,0 +1,102 @@
+package j2html.web;
+
+import j2html.Config;
+import j2html.rendering.EarlyFlushHtml;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+import j2html.rendering.Utf8Output;
+
+import java.io.IOException;
+
+/**
+ * How the adapters stream a page into a response. Instances are immutable.
+ * <p>
+ * A page which fits into the buffer, or which has been measured first (see
+ * {@link #withExactContentLength(boolean)}), is sent with a Content-Length header. Any other
+ * page is sent with chunked transfer encoding, one chunk each time the buffer is full,
+ * and - with early flushing enabled - one right after the head element, so the
+ * browser can start loading stylesheets while the body is still being rendered.
+ */
+public final class StreamingOptions {
+
+    public static final StreamingOptions DEFAULTS = new StreamingOptions(Utf8Output.DEFAULT_BUFFER_SIZE, null, true, false);
+
+    private final int bufferSize;
+    private final Config config;
+    private final boolean earlyFlush;
+    private final boolean exactContentLength;
+
+    private StreamingOptions(int bufferSize, Config config, boolean earlyFlush, boolean exactContentLength) {
+        this.bufferSize = bufferSize;
+        this.config = config;
+        this.earlyFlush = earlyFlush;
+        this.exactContentLength = exactContentLength;
+    }
+
+    /**
+     * @param bufferSize the size of the UTF-8 buffer in bytes, which is also the largest page sent with a Content-Length
+     * @return a copy of these options with the given buffer size
+     */
+    public StreamingOptions withBufferSize(int bufferSize) {
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("Buffer size must be at least 4 bytes: " + bufferSize);
+        }
+        return new StreamingOptions(bufferSize, config, earlyFlush, exactContentLength);
+    }
+
+    /**
+     * @param config the Config to render with, or null to use the Config which is current when rendering
+     * @return a copy of these options with the given Config
+     */
+    public StreamingOptions withConfig(Config config) {
+        return new StreamingOptions(bufferSize, config, earlyFlush, exactContentLength);
+    }
+
+    /**
+     * @param earlyFlush whether to flush the response after the head element
+     * @return a copy of these options with early flushing enabled or disabled
+     */
+    public StreamingOptions withEarlyFlush(boolean earlyFlush) {
+        return new StreamingOptions(bufferSize, config, earlyFlush, exactContentLength);
+    }
+
+    /**
+     * Measures every page before streaming it, so that pages larger than the buffer are sent
+     * with a Content-Length instead of chunked. The length of a DomContent is computed with
+     * {@link j2html.tags.ContentLength}, which only adds up the cached lengths of sealed static
+     * subtrees; other sources are rendered twice. Content which can only be rendered once, like
+     * {@code eachStreamed(stream, ...)}, is not measured and sent chunked instead.
+     *
+     * @param exactContentLength whether to measure every page first
+     * @return a copy of these options with measuring enabled or disabled
+     */
+    public StreamingOptions withExactContentLength(boolean exactContentLength) {
+        return new StreamingOptions(bufferSize, config, earlyFlush, exactContentLength);
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return the Config to render with
+     */
+    Config config() {
+        return config == null ? Config.current() : config;
+    }
+
+    /**
+     * @return the exact Content-Length of the source if enabled, or -1
+     */
+    long contentLength(HtmlSource source, Config config) throws IOException {
+        return exactContentLength ? source.contentLength(config) : -1;
+    }
+
+    /**
+     * Renders the source into the output, without closing it
+     */
+    void render(HtmlSource source, Utf8Output out, Config config) throws IOException {
+        HtmlBuilder<Utf8Output> builder = FlatHtml.into(out, config);
+        source.render(earlyFlush ? EarlyFlushHtml.into(builder, out) : builder);
+    }
+}
@@ -0,0 +1,149 @@
+package j2html.web;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import j2html.rendering.HtmlBuilder;
+import j2html.tags.DomContent;
+import j2html.tags.specialized.HtmlTag;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.eachStreamed;
+import static j2html.TagCreator.head;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.link;
+import static j2html.TagCreator.table;
+import static j2html.TagCreator.td;
+import static j2html.TagCreator.title;
+import static j2html.TagCreator.tr;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class HttpServerHtmlTest {
+
+    private HttpServer server;
+
+    private URL serve(HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", handler);
+        server.start();
+        return new URL("http://localhost:" + server.getAddress().getPort() + "/");
+    }
+
+    @After
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private static HtmlTag page(int rows, DomContent... before) {
+        return html(
+            head(title("Rows"), link().withRel("stylesheet").withHref("/main.css")),
+            body(before).with(table(IntStream.range(0, rows)
+                .mapToObj(i -> tr(td("Row " + i), td("Größe " + i)))
+                .collect(Collectors.toList())
+                .toArray(new DomContent[0])))
+        );
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void small_pages_are_sent_with_a_content_length() throws Exception {
+        HtmlTag page = page(3);
+        HttpURLConnection connection = (HttpURLConnection) serve(exchange ->
+            HttpServerHtml.render(exchange, 200, page, StreamingOptions.DEFAULTS.withEarlyFlush(false))
+        ).openConnection();
+        assertThat(read(connection.getInputStream()), is(page.render()));
+        assertThat(connection.getContentLengthLong(), is((long) page.render().getBytes(StandardCharsets.UTF_8).length));
+        assertThat(connection.getContentType(), is("text/html;charset=UTF-8"));
+    }
+
+    @Test
+    public void large_pages_are_chunked() throws Exception {
+        HtmlTag page = page(2000);
+        HttpURLConnection connection = (HttpURLConnection) serve(exchange ->
+            HttpServerHtml.render(exchange, 404, page)
+        ).openConnection();
+        assertThat(connection.getResponseCode(), is(404));
+        assertThat(connection.getHeaderField("Transfer-Encoding"), is("chunked"));
+        assertThat(connection.getHeaderField("Content-Length"), is(nullValue()));
+        assertThat(read(connection.getErrorStream()), is(page.render()));
+    }
+
+    @Test
+    public void measured_pages_are_sent_with_a_content_length() throws Exception {
+        HtmlTag page = page(2000);
+        HttpURLConnection connection = (HttpURLConnection) serve(exchange ->
+            HttpServerHtml.render(exchange, 200, page, StreamingOptions.DEFAULTS.withExactContentLength(true))
+        ).openConnection();
+        assertThat(connection.getHeaderField("Transfer-Encoding"), is(nullValue()));
+        assertThat(connection.getContentLengthLong(), is((long) page.render().getBytes(StandardCharsets.UTF_8).length));
+        assertThat(read(connection.getInputStream()), is(page.render()));
+    }
+
+    @Test
+    public void streamed_pages_are_chunked_despite_exact_content_length() throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) serve(exchange ->
+            HttpServerHtml.render(exchange, 200, html(body(table(eachStreamed(IntStream.range(0, 2000).boxed(), i -> tr(td("Row " + i)))))),
+                StreamingOptions.DEFAULTS.withExactContentLength(true))
+        ).openConnection();
+        assertThat(connection.getHeaderField("Transfer-Encoding"), is("chunked"));
+        assertThat(connection.getHeaderField("Content-Length"), is(nullValue()));
+        assertThat(read(connection.getInputStream()), endsWith("<tr><td>Row 1999</td></tr></table></body></html>"));
+    }
+
+    @Test
+    public void the_head_is_received_before_the_body_is_rendered() throws Exception {
+        CountDownLatch headReceived = new CountDownLatch(1);
+        DomContent waitForClient = new DomContent() {
+            @Override
+            public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+                try {
+                    if (!headReceived.await(10, TimeUnit.SECONDS)) {
+                        throw new IOException("The head was not flushed");
+                    }
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return builder.output();
+            }
+        };
+        HtmlTag page = page(10, waitForClient);
+        URL url = serve(exchange -> HttpServerHtml.render(exchange, 200, page));
+
+        InputStream in = url.openStream();
+        StringBuilder received = new StringBuilder();
+        while (!received.toString().endsWith("</head>")) {
+            received.append((char) in.read());
+        }
+        headReceived.countDown();
+        assertThat(received.toString(), endsWith("<link rel=\"stylesheet\" href=\"/main.css\"></head>"));
+        assertThat(read(in), containsString("</table></body></html>"));
+    }
+}
@@ -0,0 +1,88 @@
+package j2html.web;
+
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.stream.IntStream;
+
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.eachStreamed;
+import static j2html.TagCreator.head;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.title;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServletHtmlTest {
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    public ServletHtmlTest() throws Exception {
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+        });
+    }
+
+    @Test
+    public void small_pages_are_sent_with_a_content_length() throws Exception {
+        ServletHtml.render(response, html(head(title("Tüte")), body(p("Hello"))), StreamingOptions.DEFAULTS.withEarlyFlush(false));
+        String expected = "<html><head><title>Tüte</title></head><body><p>Hello</p></body></html>";
+        assertThat(new String(body.toByteArray(), StandardCharsets.UTF_8), is(expected));
+        verify(response).setContentType("text/html;charset=UTF-8");
+        verify(response).setContentLength(expected.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    public void large_pages_are_streamed_without_a_content_length() throws Exception {
+        ServletHtml.render(response, body(each(Collections.nCopies(100, "Hello"), s -> p(s))), StreamingOptions.DEFAULTS.withBufferSize(64));
+        assertThat(body.size(), is("<body></body>".length() + 100 * "<p>Hello</p>".length()));
+        verify(response, never()).setContentLength(anyInt());
+    }
+
+    @Test
+    public void measured_pages_are_sent_with_a_content_length() throws Exception {
+        ServletHtml.render(response, body(each(Collections.nCopies(100, "Größe"), s -> p(s))), StreamingOptions.DEFAULTS.withBufferSize(64).withExactContentLength(true));
+        verify(response).setContentLengthLong(body.size());
+        verify(response, never()).setContentLength(anyInt());
+    }
+
+    @Test
+    public void streamed_pages_are_not_measured() throws Exception {
+        ServletHtml.render(response, body(eachStreamed(IntStream.range(0, 100).boxed(), i -> p("Größe " + i))), StreamingOptions.DEFAULTS.withBufferSize(64).withExactContentLength(true));
+        assertThat(new String(body.toByteArray(), StandardCharsets.UTF_8).endsWith("<p>Größe 99</p></body>"), is(true));
+        verify(response, never()).setContentLengthLong(anyLong());
+        verify(response, never()).setContentLength(anyInt());
+    }
+
+    @Test
+    public void sources_are_rendered_with_the_given_options() throws Exception {
+        ServletHtml.render(response, html -> html.appendUnescapedText("<!DOCTYPE html>"));
+        assertThat(new String(body.toByteArray(), StandardCharsets.UTF_8), is("<!DOCTYPE html>"));
+    }
+}
@@ -0,0 +1,109 @@
+package j2html.web;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.Clock;
+import com.sun.net.httpserver.HttpServer;
+import j2html.tags.DomContent;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.head;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.link;
+import static j2html.TagCreator.table;
+import static j2html.TagCreator.td;
+import static j2html.TagCreator.title;
+import static j2html.TagCreator.tr;
+
+/**
+ * Compares streaming a large page with {@link HttpServerHtml} with rendering it to a String
+ * and writing its bytes, by the time to the first byte and the time of the whole request.
+ * The GC statistics of the report compare the memory allocated per request: only the
+ * String path holds the whole page, twice.
+ */
+@BenchmarkOptions(callgc = false, benchmarkRounds = 50, warmupRounds = 10, concurrency = 1, clock = Clock.NANO_TIME)
+public class StreamingPerformanceTest {
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    private static final DomContent PAGE = html(
+        head(title("Rows"), link().withRel("stylesheet").withHref("/main.css")),
+        body(table(each(IntStream.range(0, 20000).mapToObj(i -> tr(td("Row " + i), td("Größe " + i))))))
+    );
+
+    private static HttpServer server;
+    private static URL stringPath;
+    private static URL streaming;
+
+    @BeforeClass
+    public static void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/string", exchange -> {
+            byte[] bytes = PAGE.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html;charset=UTF-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.createContext("/stream", exchange -> HttpServerHtml.render(exchange, 200, PAGE));
+        server.start();
+        stringPath = new URL("http://localhost:" + server.getAddress().getPort() + "/string");
+        streaming = new URL("http://localhost:" + server.getAddress().getPort() + "/stream");
+    }
+
+    @AfterClass
+    public static void stop() {
+        server.stop(0);
+    }
+
+    private static void readFirstByte(URL url) throws IOException {
+        try (InputStream in = url.openStream()) {
+            in.read();
+        }
+    }
+
+    private static void readAll(URL url) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = url.openStream()) {
+            while (in.read(buffer) != -1) {
+                // discard
+            }
+        }
+    }
+
+    @Test
+    public void stringPathFirstByte() throws IOException {
+        readFirstByte(stringPath);
+    }
+
+    @Test
+    public void streamingFirstByte() throws IOException {
+        readFirstByte(streaming);
+    }
+
+    @Test
+    public void stringPathRequest() throws IOException {
+        readAll(stringPath);
+    }
+
+    @Test
+    public void streamingRequest() throws IOException {
+        readAll(streaming);
+    }
+}
@@ -6,26 +6,29 @@ import app.views.pages.IndexView;
 import app.views.pages.NewsView;
 import app.views.pages.PageNotFoundView;
 import io.javalin.http.Context;
+import j2html.web.JavalinHtml;
+
+import java.io.IOException;
 
 public class PageController {
 
-    public static void serveIndex(Context ctx) {
-        ctx.html(IndexView.render());
+    public static void serveIndex(Context ctx) throws IOException {
+        JavalinHtml.render(ctx, IndexView.render()::render);
     }
 
-    public static void serveDownload(Context ctx) {
-        ctx.html(DownloadView.render());
+    public static void serveDownload(Context ctx) throws IOException {
+        JavalinHtml.render(ctx, DownloadView.render()::render);
     }
 
-    public static void serveExamples(Context ctx) {
-        ctx.html(ExamplesView.render());
+    public static void serveExamples(Context ctx) throws IOException {
+        JavalinHtml.render(ctx, ExamplesView.render()::render);
     }
 
-    public static void serveNews(Context ctx) {
-        ctx.html(NewsView.render());
+    public static void serveNews(Context ctx) throws IOException {
+        JavalinHtml.render(ctx, NewsView.render()::render);
     }
 
-    public static void serve404(Context ctx) {
-        ctx.html(PageNotFoundView.render());
+    public static void serve404(Context ctx) throws IOException {
+        JavalinHtml.render(ctx, PageNotFoundView.render()::render);
     }
 }
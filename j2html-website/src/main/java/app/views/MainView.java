@@ -1,12 +1,12 @@
 package app.views;
 
 import j2html.tags.DomContent;
+import j2html.tags.Layout;
 import static j2html.TagCreator.a;
 import static j2html.TagCreator.attrs;
 import static j2html.TagCreator.body;
 import static j2html.TagCreator.br;
 import static j2html.TagCreator.div;
-import static j2html.TagCreator.document;
 import static j2html.TagCreator.fileAsString;
 import static j2html.TagCreator.footer;
 import static j2html.TagCreator.h1;
@@ -25,19 +25,20 @@ import static j2html.TagCreator.scriptWithInlineFile;
 import static j2html.TagCreator.scriptWithInlineFile_min;
 import static j2html.TagCreator.span;
 import static j2html.TagCreator.styleWithInlineFile_min;
+import static j2html.TagCreator.text;
 import static j2html.TagCreator.title;
 import static j2html.TagCreator.ul;
 
 public class MainView {
 
-    public static String render(String title, String heading, DomContent... tags) {
-        return document(
+    // the shell, with its inlined css, js and banners, is rendered only once
+    private static final Layout LAYOUT = Layout.compile(
             html(
                 head(
                     meta().withCharset("UTF-8"),
                     meta().withName("viewport").withContent("width=device-width, initial-scale=1"),
                     meta().withName("description").withContent("j2html - Fast and fluent Java HTML builder. Build type-safe HTML 5 with Java 8 expression!"),
-                    title(title + " - Java HTML builder"),
+                    title(Layout.slot("title")),
                     link().withRel("icon").withHref("/img/favicon.svg"),
                     link().withRel("stylesheet").withHref("https://fonts.googleapis.com/css2?family=Lato&family=Patua+One&display=swap"),
                     styleWithInlineFile_min("/public/css/prism.css"),
@@ -61,10 +62,10 @@ public class MainView {
 
                     ),
                     header(attrs(".banner"),
-                        h1(attrs(".width-limit"), heading)
+                        h1(attrs(".width-limit"), Layout.slot("heading"))
                     ),
                     main(attrs(".width-limit"),
-                        tags //content from other template
+                        Layout.slot("content") //content from other template
                     ),
                     div(attrs("#javalin-suggestion"), join(
                         span("✖").withClass("close"),
@@ -89,7 +90,13 @@ public class MainView {
                     scriptWithInlineFile_min("/public/js/javalinSuggestion.js")
                 )
             )
-        );
+    );
+
+    public static Layout.Fill render(String title, String heading, DomContent... tags) {
+        return LAYOUT.fill()
+            .slot("title", text(title + " - Java HTML builder"))
+            .slot("heading", text(heading))
+            .slot("content", tags);
     }
 
 }
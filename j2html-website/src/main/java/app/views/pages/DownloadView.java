@@ -1,11 +1,12 @@
 package app.views.pages;
 
 import app.views.MainView;
+import j2html.tags.Layout;
 import static app.views.Partials.codeSnippet;
 import static j2html.TagCreator.*;
 
 public class DownloadView {
-    public static String render() {
+    public static Layout.Fill render() {
         return MainView.render(
             "Download j2html",
             "Maven and GitHub",
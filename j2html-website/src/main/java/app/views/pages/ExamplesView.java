@@ -1,6 +1,7 @@
 package app.views.pages;
 
 import app.views.MainView;
+import j2html.tags.Layout;
 import java.util.Arrays;
 import java.util.List;
 import static app.views.Partials.codeSnippet;
@@ -22,7 +23,7 @@ import static j2html.TagCreator.tr;
 public class ExamplesView {
     private static List<Integer> numbers = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 9, 10);
 
-    public static String render() {
+    public static Layout.Fill render() {
         return MainView.render(
             "Examples of how to use j2html",
             "Reclaim control of your HTML",
@@ -1,6 +1,7 @@
 package app.views.pages;
 
 import app.views.MainView;
+import j2html.tags.Layout;
 import static app.views.Partials.codeSnippet;
 import static j2html.TagCreator.a;
 import static j2html.TagCreator.attrs;
@@ -14,7 +15,7 @@ import static j2html.TagCreator.text;
 import static j2html.TagCreator.ul;
 
 public class IndexView {
-    public static String render() {
+    public static Layout.Fill render() {
         return MainView.render(
             "Fast and fluent Java HTML5 builder",
             "Fast and fluent Java HTML5 builder",
@@ -1,6 +1,7 @@
 package app.views.pages;
 
 import app.views.MainView;
+import j2html.tags.Layout;
 import j2html.TagCreator;
 import j2html.tags.DomContent;
 import j2html.tags.specialized.ArticleTag;
@@ -34,7 +35,7 @@ public class NewsView {
             ));
     }
 
-    public static String render() {
+    public static Layout.Fill render() {
         return MainView.render(
             "News about j2html",
             "News and releases",
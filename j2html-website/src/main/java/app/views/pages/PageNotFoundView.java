@@ -1,13 +1,14 @@
 package app.views.pages;
 
 import app.views.MainView;
+import j2html.tags.Layout;
 import static j2html.TagCreator.attrs;
 import static j2html.TagCreator.h2;
 import static j2html.TagCreator.p;
 import static j2html.TagCreator.section;
 
 public class PageNotFoundView {
-    public static String render() {
+    public static Layout.Fill render() {
         return MainView.render(
             "Page not found",
             "Page not found",
@@ -4,9 +4,9 @@ import static j2html.TagCreator.*; // Use static star import
 
 Config.class // Holds all configuration.  Offers global configuration or customizable instances
 Config.closeEmptyTags = true // Global options are public, static and mutable.
-Config.global() // Copy all static Config fields into an instance.  Instances are immutable
+Config.current() // The current global options as an immutable, shared instance
 Config.defaults() // A Config with defaults that are independent of global options
-Config.global().withEmptyTagsClosed(true) // A Config that is different from the global options
+Config.current().withEmptyTagsClosed(true) // A Config that is different from the global options
 Config.defaults().withEmptyTagsClosed(true) // A Config that is different from the default options
 
 
@@ -1,5 +1,7 @@
 package j2html;
 
+import j2html.rendering.CancellationToken;
+import j2html.rendering.RenderBudget;
 import j2html.utils.CSSMin;
 import j2html.utils.EscapeUtil;
 import j2html.utils.Indenter;
@@ -15,35 +17,37 @@ public class Config {
      * Change this to configure text-escaping
      * For example, to disable escaping, do <code>{@code Config.textEscaper = text -> text;}</code>
      */
-    public static TextEscaper textEscaper = EscapeUtil::escape;
+    public static volatile TextEscaper textEscaper = EscapeUtil::escape;
     /**
      * Change this to configure css-minification.
      * The default minifier is https://github.com/barryvan/CSSMin
      */
-    public static Minifier cssMinifier = CSSMin::compressCss;
+    public static volatile Minifier cssMinifier = CSSMin::compressCss;
     /**
      * Change this to configure js-minification.
      * The default minifier is a simple whitespace/newline stripper
      */
-    public static Minifier jsMinifier = JSMin::compressJs;
+    public static volatile Minifier jsMinifier = JSMin::compressJs;
     /**
      * Change this to configure enable/disable closing empty tags
      * The default is to NOT close them
      */
-    public static boolean closeEmptyTags = false;
-    private static String FOUR_SPACES = "    ";
+    public static volatile boolean closeEmptyTags = false;
+    private static final String FOUR_SPACES = "    ";
     /**
      * Change this to configure indentation when rendering formatted html
      * The default is four spaces
      */
-    public static Indenter indenter = (level, text) -> String.join("", Collections.nCopies(level, FOUR_SPACES)) + text;
+    public static volatile Indenter indenter = (level, text) -> String.join("", Collections.nCopies(level, FOUR_SPACES)) + text;
 
 
-    private TextEscaper _textEscaper;
-    private Minifier _cssMinifier;
-    private Minifier _jsMinifier;
-    private boolean _closeEmptyTags;
-    private Indenter _indenter;
+    private final TextEscaper _textEscaper;
+    private final Minifier _cssMinifier;
+    private final Minifier _jsMinifier;
+    private final boolean _closeEmptyTags;
+    private final Indenter _indenter;
+    private final RenderBudget _renderBudget;
+    private final CancellationToken _cancellationToken;
 
 
     private Config(
@@ -51,26 +55,17 @@ public class Config {
         Minifier _cssMinifier,
         Minifier _jsMinifier,
         boolean _closeEmptyTags,
-        Indenter _indenter
+        Indenter _indenter,
+        RenderBudget _renderBudget,
+        CancellationToken _cancellationToken
     ) {
         this._textEscaper = _textEscaper;
         this._cssMinifier = _cssMinifier;
         this._jsMinifier = _jsMinifier;
         this._closeEmptyTags = _closeEmptyTags;
         this._indenter = _indenter;
-    }
-
-    /**
-     * A copy constructor.
-     *
-     * @param original The Config to copy fields from.
-     */
-    private Config(Config original) {
-        this._textEscaper = original._textEscaper;
-        this._cssMinifier = original._cssMinifier;
-        this._jsMinifier = original._jsMinifier;
-        this._closeEmptyTags = original._closeEmptyTags;
-        this._indenter = original._indenter;
+        this._renderBudget = _renderBudget;
+        this._cancellationToken = _cancellationToken;
     }
 
     public TextEscaper textEscaper() {
@@ -93,34 +88,98 @@ public class Config {
         return _indenter;
     }
 
+    /**
+     * @return the limits of a single render, checked by FlatHtml and IndentedHtml
+     */
+    public RenderBudget renderBudget() {
+        return _renderBudget;
+    }
+
+    /**
+     * @return the token which cancels renders with this Config, or null
+     */
+    public CancellationToken cancellationToken() {
+        return _cancellationToken;
+    }
+
     public Config withTextEscaper(TextEscaper textEscaper){
-        Config copy = new Config(this);
-        copy._textEscaper = textEscaper;
-        return copy;
+        return new Config(textEscaper, _cssMinifier, _jsMinifier, _closeEmptyTags, _indenter, _renderBudget, _cancellationToken);
     }
 
     public Config withCssMinifier(Minifier cssMinifier){
-        Config copy = new Config(this);
-        copy._cssMinifier = cssMinifier;
-        return copy;
+        return new Config(_textEscaper, cssMinifier, _jsMinifier, _closeEmptyTags, _indenter, _renderBudget, _cancellationToken);
     }
 
     public Config withJsMinifier(Minifier jsMinifier){
-        Config copy = new Config(this);
-        copy._jsMinifier = jsMinifier;
-        return copy;
+        return new Config(_textEscaper, _cssMinifier, jsMinifier, _closeEmptyTags, _indenter, _renderBudget, _cancellationToken);
     }
 
     public Config withEmptyTagsClosed(boolean closeEmptyTags){
-        Config copy = new Config(this);
-        copy._closeEmptyTags = closeEmptyTags;
-        return copy;
+        return new Config(_textEscaper, _cssMinifier, _jsMinifier, closeEmptyTags, _indenter, _renderBudget, _cancellationToken);
     }
 
     public Config withIndenter(Indenter indenter){
-        Config copy = new Config(this);
-        copy._indenter = indenter;
-        return copy;
+        return new Config(_textEscaper, _cssMinifier, _jsMinifier, _closeEmptyTags, indenter, _renderBudget, _cancellationToken);
+    }
+
+    /**
+     * Limits every render with the returned Config, e.g. to stop a runaway loop from producing a huge page.
+     * The budget does not affect the output, so caches are shared with this Config (see {@link #rendersLike(Config)}).
+     *
+     * @param renderBudget the limits, or null for {@link RenderBudget#UNLIMITED}
+     * @return a copy of this Config with the given limits
+     */
+    public Config withRenderBudget(RenderBudget renderBudget) {
+        return new Config(_textEscaper, _cssMinifier, _jsMinifier, _closeEmptyTags, _indenter, renderBudget == null ? RenderBudget.UNLIMITED : renderBudget, _cancellationToken);
+    }
+
+    /**
+     * Makes renders with the returned Config stop at the next element once the token is cancelled,
+     * e.g. because the client of a request has disconnected. Usually a Config per request:
+     * the token does not affect the output, so caches of rendered or measured content are
+     * shared with the Config this one is copied from (see {@link #rendersLike(Config)}).
+     *
+     * @param cancellationToken the token, or null
+     * @return a copy of this Config with the given token
+     */
+    public Config withCancellationToken(CancellationToken cancellationToken) {
+        return new Config(_textEscaper, _cssMinifier, _jsMinifier, _closeEmptyTags, _indenter, _renderBudget, cancellationToken);
+    }
+
+    /**
+     * Compares the settings which affect the rendered output: the text escaper, the minifiers,
+     * the indenter and whether empty tags are closed. The render budget and cancellation token
+     * are ignored, so caches keyed on a Config are shared by per-request copies of it.
+     *
+     * @param other the Config to compare with, or null
+     * @return true if both Configs render the same content to the same HTML
+     */
+    public boolean rendersLike(Config other) {
+        return other == this || (other != null
+            && _textEscaper == other._textEscaper
+            && _cssMinifier == other._cssMinifier
+            && _jsMinifier == other._jsMinifier
+            && _closeEmptyTags == other._closeEmptyTags
+            && _indenter == other._indenter);
+    }
+
+    /**
+     * @return a hash code consistent with {@link #rendersLike(Config)}
+     */
+    public int renderHashCode() {
+        int hash = System.identityHashCode(_textEscaper);
+        hash = 31 * hash + System.identityHashCode(_cssMinifier);
+        hash = 31 * hash + System.identityHashCode(_jsMinifier);
+        hash = 31 * hash + Boolean.hashCode(_closeEmptyTags);
+        return 31 * hash + System.identityHashCode(_indenter);
+    }
+
+    private boolean matchesGlobalFields() {
+        return _textEscaper == textEscaper
+            && _cssMinifier == cssMinifier
+            && _jsMinifier == jsMinifier
+            && _closeEmptyTags == closeEmptyTags
+            && _indenter == indenter;
     }
 
     private static final Config DEFAULTS = new Config(
@@ -128,20 +187,102 @@ public class Config {
         CSSMin::compressCss,
         JSMin::compressJs,
         false,
-        (level, text) -> String.join("", Collections.nCopies(level, FOUR_SPACES)) + text
+        (level, text) -> String.join("", Collections.nCopies(level, FOUR_SPACES)) + text,
+        RenderBudget.UNLIMITED,
+        null
     );
 
+    private static volatile Config current = fromGlobalFields(null);
+
     public static final Config defaults() {
         return DEFAULTS;
     }
 
+    /**
+     * Returns the current global configuration. The returned instance is an immutable
+     * snapshot which is shared by all callers until the global configuration changes,
+     * either through {@link #publish(Config)}, one of the static setters, or by assigning
+     * one of the public static fields directly.
+     *
+     * @return The current global Config.
+     */
+    public static Config current() {
+        Config snapshot = current;
+        if (!snapshot.matchesGlobalFields()) {
+            snapshot = republish();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Replaces the global configuration with the given Config.
+     * The public static fields are updated to match.
+     *
+     * @param config The new global Config.
+     */
+    public static synchronized void publish(Config config) {
+        textEscaper = config._textEscaper;
+        cssMinifier = config._cssMinifier;
+        jsMinifier = config._jsMinifier;
+        closeEmptyTags = config._closeEmptyTags;
+        indenter = config._indenter;
+        current = config;
+    }
+
+    /**
+     * @deprecated Use {@link #current()} instead, which does not copy the global configuration on every call.
+     */
+    @Deprecated
     public static final Config global() {
+        return current();
+    }
+
+    public static void setTextEscaper(TextEscaper textEscaper) {
+        Config.textEscaper = textEscaper;
+        republish();
+    }
+
+    public static void setCssMinifier(Minifier cssMinifier) {
+        Config.cssMinifier = cssMinifier;
+        republish();
+    }
+
+    public static void setJsMinifier(Minifier jsMinifier) {
+        Config.jsMinifier = jsMinifier;
+        republish();
+    }
+
+    public static void setCloseEmptyTags(boolean closeEmptyTags) {
+        Config.closeEmptyTags = closeEmptyTags;
+        republish();
+    }
+
+    public static void setIndenter(Indenter indenter) {
+        Config.indenter = indenter;
+        republish();
+    }
+
+    private static synchronized Config republish() {
+        Config snapshot = current;
+        if (snapshot == null || !snapshot.matchesGlobalFields()) {
+            snapshot = fromGlobalFields(snapshot);
+            current = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * @param previous the Config to take the fields without a global counterpart from, or null
+     */
+    private static Config fromGlobalFields(Config previous) {
         return new Config(
             textEscaper,
             cssMinifier,
             jsMinifier,
             closeEmptyTags,
-            indenter
+            indenter,
+            previous == null ? RenderBudget.UNLIMITED : previous._renderBudget,
+            previous == null ? null : previous._cancellationToken
         );
     }
 
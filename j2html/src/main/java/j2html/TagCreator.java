@@ -1,16 +1,27 @@
 package j2html;
 
 import j2html.attributes.Attr;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.FragmentCache;
+import j2html.rendering.HtmlBuilder;
+import j2html.rendering.OutputSizeStats;
+import j2html.tags.CachedContent;
 import j2html.tags.ContainerTag;
+import j2html.tags.DataTable;
 import j2html.tags.DomContent;
 import j2html.tags.DomContentJoiner;
 import j2html.tags.EmptyTag;
+import j2html.tags.Fragment;
 import j2html.tags.InlineStaticResource;
+import j2html.tags.StreamedContent;
 import j2html.tags.Tag;
 import j2html.tags.Text;
 import j2html.tags.UnescapedText;
 import j2html.tags.specialized.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.function.BiFunction;
@@ -91,7 +102,7 @@ public class TagCreator {
      * @return DomContent containing the given elements
      */
     public static DomContent each(DomContent... contents) {
-        return new ContainerTag<>(null).with(contents);
+        return new Fragment(contents);
     }
 
     /**
@@ -102,7 +113,7 @@ public class TagCreator {
      * @return DomContent containing elements from the stream
      */
     public static DomContent each(Stream<DomContent> stream) {
-        return new ContainerTag<>(null).with(stream);
+        return new Fragment(stream.collect(Collectors.toList()));
     }
 
     /**
@@ -115,7 +126,11 @@ public class TagCreator {
      * @return DomContent containing mapped data {@literal (ex. docs: [li(1), li(2), li(3)])}
      */
     public static <T> DomContent each(Collection<T> collection, Function<? super T, DomContent> mapper) {
-        return tag(null).with(collection.stream().map(mapper));
+        List<DomContent> contents = new ArrayList<>(collection.size());
+        for (T t : collection) {
+            contents.add(mapper.apply(t));
+        }
+        return new Fragment(contents);
     }
 
     /**
@@ -128,12 +143,12 @@ public class TagCreator {
      * @return DomContent containing mapped data {@literal (ex. docs: [li(0 Tom), li(1 Dick), li(2 Harry)])}
      */
     public static <T> DomContent each(Collection<T> collection, BiFunction<Integer, ? super T, DomContent> mapper) {
-        ContainerTag<?> dom = tag(null);
+        List<DomContent> contents = new ArrayList<>(collection.size());
         int i = 0;
         for(T t : collection){
-            dom.with(mapper.apply(i++, t));
+            contents.add(mapper.apply(i++, t));
         }
-        return dom;
+        return new Fragment(contents);
     }
 
     public static <I, T> DomContent each(final Map<I, T> map, final Function<Entry<I, T>, DomContent> mapper) {
@@ -154,6 +169,62 @@ public class TagCreator {
         return each(map.entrySet().stream().map(entry -> mapper.apply(entry.getKey(), entry.getValue())));
     }
 
+    /**
+     * Creates a DomContent object which maps the elements of an Iterable while it is being rendered.
+     * Unlike {@link j2html.TagCreator#each(Collection, Function)}, the mapped DomContent is never stored,
+     * so memory use does not depend on the number of elements.
+     * Intended usage: {@literal eachStreamed(rows, row -> tr(td(row.getName())))}
+     *
+     * @param <T>      The derived generic parameter type
+     * @param iterable the elements to iterate over when rendering
+     * @param mapper   the mapping function, ex: {@literal "n -> li(n.toString())"}
+     * @return DomContent rendering the mapped elements
+     */
+    public static <T> DomContent eachStreamed(Iterable<T> iterable, Function<? super T, ? extends DomContent> mapper) {
+        return StreamedContent.of(iterable, mapper);
+    }
+
+    /**
+     * Like {@link j2html.TagCreator#eachStreamed(Iterable, Function)}, but the result can only be rendered once
+     */
+    public static <T> DomContent eachStreamed(Iterator<T> iterator, Function<? super T, ? extends DomContent> mapper) {
+        return StreamedContent.of(iterator, mapper);
+    }
+
+    /**
+     * Like {@link j2html.TagCreator#eachStreamed(Iterable, Function)}, but the result can only be rendered once.
+     * The stream is closed after rendering.
+     */
+    public static <T> DomContent eachStreamed(Stream<T> stream, Function<? super T, ? extends DomContent> mapper) {
+        return StreamedContent.of(stream, mapper);
+    }
+
+    /**
+     * Like {@link j2html.TagCreator#eachStreamed(Iterable, Function)}, but the result can only be rendered once
+     */
+    public static <T> DomContent eachStreamed(Spliterator<T> spliterator, Function<? super T, ? extends DomContent> mapper) {
+        return StreamedContent.of(spliterator, mapper);
+    }
+
+    /**
+     * Creates a table which renders rows and cells directly, without creating tags for them.
+     * Intended usage: {@literal dataTable(employees).intColumn("Id", Employee::getId).column("Name", Employee::getName)}
+     *
+     * @param <R>  The type of the rows
+     * @param rows the rows of the table
+     * @return a DataTable to which columns can be added
+     */
+    public static <R> DataTable<R> dataTable(Iterable<? extends R> rows) {
+        return DataTable.of(rows);
+    }
+
+    /**
+     * Like {@link j2html.TagCreator#dataTable(Iterable)}, but the rows are streamed and the table can only be rendered once
+     */
+    public static <R> DataTable<R> dataTable(Stream<? extends R> rows) {
+        return DataTable.of(rows);
+    }
+
     /**
      * Filters a collection to a list, to be used with {@link j2html.TagCreator#each}
      * Intended usage: {@literal each(filter(numbers, n -> n % 2 == 0), n -> li(n.toString()))}
@@ -167,6 +238,27 @@ public class TagCreator {
         return collection.stream().filter(filter).collect(Collectors.toList());
     }
 
+    /**
+     * Creates a memoized component, cached in {@link FragmentCache#defaultCache()}.
+     * Intended usage: {@literal cached("product-tile", product, p -> div(attrs(".tile"), h3(p.getName())))}
+     *
+     * @param <M>       The type of the model
+     * @param key       the name of the component
+     * @param model     the model to render, must implement equals() and hashCode()
+     * @param component the function building the component from the model
+     * @return DomContent that renders the component from the cache whenever possible
+     */
+    public static <M> DomContent cached(String key, M model, Function<? super M, ? extends DomContent> component) {
+        return cached(FragmentCache.defaultCache(), key, model, component);
+    }
+
+    /**
+     * Like {@link j2html.TagCreator#cached(String, Object, Function)}, but uses the given cache
+     */
+    public static <M> DomContent cached(FragmentCache cache, String key, M model, Function<? super M, ? extends DomContent> component) {
+        return new CachedContent<>(cache, key, model, component);
+    }
+
     /**
      * Wraps a String in an UnescapedText element
      *
@@ -194,7 +286,26 @@ public class TagCreator {
      * @return document declaration and rendered html content
      */
     public static String document(HtmlTag htmlTag) {
-        return document().render() + htmlTag.render();
+        OutputSizeStats.Histogram sizes = OutputSizeStats.shared().forRendering(htmlTag);
+        try {
+            StringBuilder out = document(htmlTag, FlatHtml.into(new StringBuilder(sizes.capacity(16)), Config.current()));
+            sizes.record(out.length());
+            return out.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Render a complete html document to the given builder
+     *
+     * @param htmlTag the html content of a website
+     * @param builder the HtmlBuilder to render to
+     * @return the output of the builder
+     */
+    public static <A extends Appendable> A document(HtmlTag htmlTag, HtmlBuilder<A> builder) throws IOException {
+        document().render(builder);
+        return htmlTag.render(builder);
     }
 
     //Special tags
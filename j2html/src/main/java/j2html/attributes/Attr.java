@@ -1,7 +1,10 @@
 package j2html.attributes;
 
+import j2html.rendering.TagBuilder;
 import j2html.tags.Tag;
 
+import java.io.IOException;
+
 public abstract class Attr {
 
     public static final String ACCEPT = "accept";
@@ -178,5 +181,20 @@ public abstract class Attr {
             }
             return tag;
         }
+
+        /**
+         * Appends the id and class attributes directly to a tag that is being rendered.
+         *
+         * @param builder the TagBuilder of the tag
+         * @throws IOException When the Appendable throws an IOException.
+         */
+        public void render(TagBuilder builder) throws IOException {
+            if (hasId()) {
+                builder.appendAttribute(ID, id);
+            }
+            if (hasClasses()) {
+                builder.appendAttribute(CLASS, classes);
+            }
+        }
     }
 }
@@ -39,15 +39,25 @@ public class Attribute implements Renderable {
             writer.append(name);
             if (value != null) {
                 writer.append("=\"");
-                writer.append(Config.textEscaper.escape(value));
+                writer.append(Config.current().textEscaper().escape(value));
                 writer.append('"');
             }
         }
     }
 
     public void render(TagBuilder builder, Object model) throws IOException {
-        // Maintain compatibility with classes that extend Attribute, for now...
-        renderModel(builder, model);
+        if (getClass() != Attribute.class) {
+            // Maintain compatibility with classes that extend Attribute, for now...
+            renderModel(builder, model);
+            return;
+        }
+        if (name != null) {
+            if (value != null) {
+                builder.appendAttribute(name, value);
+            } else {
+                builder.appendBooleanAttribute(name);
+            }
+        }
     }
 
     public String getName() {
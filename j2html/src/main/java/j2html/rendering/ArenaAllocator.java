@@ -0,0 +1,289 @@
+package j2html.rendering;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link BufferAllocator} which carves buffers out of large slabs and reuses them once
+ * they are released, so render output in direct memory costs neither a fresh allocation
+ * nor the GC work of freeing it.
+ * <p>
+ * Buffers come in size classes, the powers of two from {@value #MIN_SIZE_CLASS} to
+ * {@value #MAX_SIZE_CLASS} bytes. A buffer released by the thread which allocated it goes
+ * to a small cache of that thread, from which it allocates without contention; buffers
+ * released by other threads, or when the cache is full, go to a shared free list. Slabs
+ * are allocated until the memory limit is reached. When the slabs are used up, the caches
+ * of threads which have terminated are returned to the free lists, and only requests which
+ * still cannot be served, or are larger than a size class, get unpooled buffers.
+ * <p>
+ * With leak tracking, the allocator remembers where every buffer which has not been
+ * released yet was allocated; tests can assert that {@link #leaks()} is empty.
+ */
+public final class ArenaAllocator implements BufferAllocator {
+
+    public static final int MIN_SIZE_CLASS = 512;
+    public static final int MAX_SIZE_CLASS = 64 * 1024;
+    public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+    public static final long DEFAULT_MAX_MEMORY = 64L * 1024 * 1024;
+
+    private static final int SIZE_CLASSES = Integer.numberOfTrailingZeros(MAX_SIZE_CLASS) - Integer.numberOfTrailingZeros(MIN_SIZE_CLASS) + 1;
+    private static final int MAX_CACHED_PER_CLASS = 32;
+    private static final ArenaAllocator SHARED = new ArenaAllocator(true, DEFAULT_SLAB_SIZE, DEFAULT_MAX_MEMORY, false);
+
+    private final boolean direct;
+    private final int slabSize;
+    private final long maxMemory;
+    private final SizeClass[] sizeClasses = new SizeClass[SIZE_CLASSES];
+    private final ThreadLocal<ThreadCache> caches = ThreadLocal.withInitial(this::newCache);
+    private final Queue<ThreadCache> threadCaches = new ConcurrentLinkedQueue<>();
+    private final AtomicLong slabMemory = new AtomicLong();
+    private final AtomicLong outstanding = new AtomicLong();
+    private final AtomicLong unpooled = new AtomicLong();
+    private final Map<RefCountedBuffer, Throwable> allocationSites;
+
+    /**
+     * @return the direct memory arena used by the library when no allocator is given
+     */
+    public static ArenaAllocator shared() {
+        return SHARED;
+    }
+
+    /**
+     * A direct memory arena with the default slab size and memory limit, without leak tracking
+     */
+    public ArenaAllocator() {
+        this(true, DEFAULT_SLAB_SIZE, DEFAULT_MAX_MEMORY, false);
+    }
+
+    /**
+     * @param direct     true to allocate slabs in direct memory, false for the heap
+     * @param slabSize   the size of the slabs buffers are carved out of, at least {@value #MAX_SIZE_CLASS}
+     * @param maxMemory  the maximum size of all slabs together
+     * @param trackLeaks true to remember where unreleased buffers have been allocated
+     */
+    public ArenaAllocator(boolean direct, int slabSize, long maxMemory, boolean trackLeaks) {
+        if (slabSize < MAX_SIZE_CLASS) {
+            throw new IllegalArgumentException("slabSize must be at least " + MAX_SIZE_CLASS + ": " + slabSize);
+        }
+        if (maxMemory < 0) {
+            throw new IllegalArgumentException("maxMemory must not be negative: " + maxMemory);
+        }
+        this.direct = direct;
+        this.slabSize = slabSize;
+        this.maxMemory = maxMemory;
+        this.allocationSites = trackLeaks ? new ConcurrentHashMap<>() : null;
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            sizeClasses[i] = new SizeClass(MIN_SIZE_CLASS << i);
+        }
+    }
+
+    @Override
+    public RefCountedBuffer allocate(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+        RefCountedBuffer buffer;
+        int index = sizeClassOf(capacity);
+        ThreadCache cache = index < SIZE_CLASSES ? caches.get() : null;
+        ByteBuffer memory = cache != null ? take(cache, index) : null;
+        if (memory != null) {
+            memory.clear().limit(capacity);
+            buffer = new Pooled(memory, index, cache);
+        } else {
+            unpooled.incrementAndGet();
+            buffer = new Tracked(direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+        }
+        outstanding.incrementAndGet();
+        if (allocationSites != null) {
+            allocationSites.put(buffer, new Throwable("Buffer of " + capacity + " bytes allocated here"));
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the number of buffers which have been allocated and not released yet
+     */
+    public long outstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * @return the number of buffers which could not be served from the slabs
+     */
+    public long unpooledAllocations() {
+        return unpooled.get();
+    }
+
+    /**
+     * @return the size of all slabs allocated so far
+     */
+    public long slabMemory() {
+        return slabMemory.get();
+    }
+
+    /**
+     * @return where the buffers which have not been released yet were allocated
+     * @throws IllegalStateException if the allocator does not track leaks
+     */
+    public List<Throwable> leaks() {
+        if (allocationSites == null) {
+            throw new IllegalStateException("Leak tracking is not enabled");
+        }
+        return new ArrayList<>(allocationSites.values());
+    }
+
+    static int sizeClassOf(int capacity) {
+        if (capacity <= MIN_SIZE_CLASS) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - Integer.numberOfTrailingZeros(MIN_SIZE_CLASS);
+    }
+
+    private ByteBuffer take(ThreadCache cache, int index) {
+        ByteBuffer memory = cache.buffers[index].pollLast();
+        if (memory == null) {
+            memory = sizeClasses[index].take();
+        }
+        if (memory == null && reclaimTerminatedCaches()) {
+            memory = sizeClasses[index].take();
+        }
+        return memory;
+    }
+
+    private void giveBack(ByteBuffer memory, int index, ThreadCache owner) {
+        // the cache is confined to its thread, other threads use the shared free list
+        ArrayDeque<ByteBuffer> cache = owner.thread.get() == Thread.currentThread() ? owner.buffers[index] : null;
+        if (cache != null && cache.size() < MAX_CACHED_PER_CLASS) {
+            cache.addLast(memory);
+        } else {
+            sizeClasses[index].free.offer(memory);
+        }
+    }
+
+    /**
+     * Moves the cached buffers of terminated threads to the shared free lists
+     *
+     * @return true if any cache was reclaimed
+     */
+    private boolean reclaimTerminatedCaches() {
+        boolean reclaimed = false;
+        for (ThreadCache cache : threadCaches) {
+            Thread thread = cache.thread.get();
+            // isAlive() returning false guarantees that we see all writes of the thread;
+            // removing the cache from the queue makes sure that only one thread drains it
+            if ((thread == null || !thread.isAlive()) && threadCaches.remove(cache)) {
+                for (int i = 0; i < SIZE_CLASSES; i++) {
+                    sizeClasses[i].free.addAll(cache.buffers[i]);
+                    cache.buffers[i].clear();
+                }
+                reclaimed = true;
+            }
+        }
+        return reclaimed;
+    }
+
+    private void deallocated(RefCountedBuffer buffer) {
+        outstanding.decrementAndGet();
+        if (allocationSites != null) {
+            allocationSites.remove(buffer);
+        }
+    }
+
+    private ThreadCache newCache() {
+        // keeps the list from growing with every thread that ever allocated
+        reclaimTerminatedCaches();
+        ThreadCache cache = new ThreadCache(Thread.currentThread());
+        threadCaches.add(cache);
+        return cache;
+    }
+
+    /**
+     * The released buffers of one thread, by size class. Only that thread uses them while it is alive.
+     */
+    private static final class ThreadCache {
+        private final WeakReference<Thread> thread;
+        private final ArrayDeque<ByteBuffer>[] buffers;
+
+        @SuppressWarnings("unchecked")
+        private ThreadCache(Thread thread) {
+            this.thread = new WeakReference<>(thread);
+            this.buffers = new ArrayDeque[SIZE_CLASSES];
+            for (int i = 0; i < SIZE_CLASSES; i++) {
+                buffers[i] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    /**
+     * The shared free list of one size class, and the slab it currently carves new buffers out of
+     */
+    private final class SizeClass {
+        private final int size;
+        private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+        private ByteBuffer slab;
+
+        private SizeClass(int size) {
+            this.size = size;
+        }
+
+        private ByteBuffer take() {
+            ByteBuffer memory = free.poll();
+            return memory != null ? memory : carve();
+        }
+
+        private synchronized ByteBuffer carve() {
+            if (slab == null || slab.remaining() < size) {
+                long total = slabMemory.get();
+                do {
+                    if (total + slabSize > maxMemory) {
+                        return null;
+                    }
+                } while (!slabMemory.compareAndSet(total, total + slabSize));
+                slab = direct ? ByteBuffer.allocateDirect(slabSize) : ByteBuffer.allocate(slabSize);
+            }
+            ByteBuffer memory = slab.duplicate();
+            memory.limit(slab.position() + size);
+            slab.position(slab.position() + size);
+            return memory.slice();
+        }
+    }
+
+    private class Tracked extends RefCountedBuffer {
+
+        private Tracked(ByteBuffer buffer) {
+            super(buffer);
+        }
+
+        @Override
+        protected void deallocate() {
+            deallocated(this);
+        }
+    }
+
+    private final class Pooled extends Tracked {
+        private final ByteBuffer memory;
+        private final int sizeClass;
+        private final ThreadCache owner;
+
+        private Pooled(ByteBuffer memory, int sizeClass, ThreadCache owner) {
+            super(memory);
+            this.memory = memory;
+            this.sizeClass = sizeClass;
+            this.owner = owner;
+        }
+
+        @Override
+        protected void deallocate() {
+            super.deallocate();
+            giveBack(memory, sizeClass, owner);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package j2html.rendering;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides the byte buffers byte-oriented outputs such as {@link j2html.tags.ByteSegments}
+ * render into. Implementations decide where the memory comes from, e.g. the heap, or a
+ * pool of direct memory like {@link ArenaAllocator}, and must be thread safe.
+ */
+@FunctionalInterface
+public interface BufferAllocator {
+
+    /**
+     * @param capacity the number of bytes needed
+     * @return a buffer with position 0 and limit capacity, with one reference
+     */
+    RefCountedBuffer allocate(int capacity);
+
+    /**
+     * @return an allocator which allocates a new heap buffer every time, and leaves releasing it to the GC
+     */
+    static BufferAllocator heap() {
+        return capacity -> new Unpooled(ByteBuffer.allocate(capacity));
+    }
+
+    /**
+     * @return an allocator which allocates new direct memory every time, and leaves releasing it to the GC
+     */
+    static BufferAllocator direct() {
+        return capacity -> new Unpooled(ByteBuffer.allocateDirect(capacity));
+    }
+
+    /**
+     * A buffer which is not given back to anything when released
+     */
+    final class Unpooled extends RefCountedBuffer {
+
+        Unpooled(ByteBuffer buffer) {
+            super(buffer);
+        }
+
+        @Override
+        protected void deallocate() {
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package j2html.rendering;
+
+/**
+ * Cancels renders cooperatively: FlatHtml and IndentedHtml check the token of their
+ * Config at every element and throw a {@link RenderAbortedException} once it is cancelled.
+ * <p>
+ * Intended usage, with a token per request:
+ * <pre>{@code
+ * CancellationToken token = new CancellationToken();
+ * onClientDisconnect(token::cancel);
+ * page.render(FlatHtml.into(out, Config.current().withCancellationToken(token)));
+ * }</pre>
+ * A token can be cancelled from any thread, and cannot be reset.
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,145 @@
+package j2html.rendering;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * An unsynchronized Appendable which collects the many small appends of a render
+ * (a "&lt;", a tag name, a "&gt;") in a char buffer, and passes them on to the target
+ * in large chunks. Writers such as {@link java.io.PrintWriter} and {@link java.io.StringWriter}
+ * synchronize every single write, so this saves most of the locking and call overhead.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * CoalescingOutput out = CoalescingOutput.wrap(writer);
+ * page.render(FlatHtml.into(out));
+ * out.flush();
+ * }</pre>
+ * Nothing reaches the target before the buffer is full or {@link #flushBuffer()} or
+ * {@link #flush()} is called, so the buffer must be flushed when rendering is done.
+ * Instances are not thread safe.
+ */
+public class CoalescingOutput implements Appendable, Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 2048;
+
+    private final Appendable target;
+    private final Writer writer;
+    private final char[] buffer;
+    private final CharBuffer chars;
+    private int position;
+
+    public CoalescingOutput(Appendable target) {
+        this(target, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param target     the Appendable to pass the chars on to
+     * @param bufferSize the size of the buffer in chars
+     */
+    public CoalescingOutput(Appendable target, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.target = target;
+        this.writer = target instanceof Writer ? (Writer) target : null;
+        this.buffer = new char[bufferSize];
+        this.chars = writer == null ? CharBuffer.wrap(buffer) : null;
+    }
+
+    /**
+     * @param target the Appendable to pass the chars on to
+     * @return the target if it already is a CoalescingOutput, or else a new one with the default buffer size
+     */
+    public static CoalescingOutput wrap(Appendable target) {
+        return target instanceof CoalescingOutput ? (CoalescingOutput) target : new CoalescingOutput(target);
+    }
+
+    @Override
+    public CoalescingOutput append(CharSequence csq) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public CoalescingOutput append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        int length = end - start;
+        if (length > buffer.length - position) {
+            flushBuffer();
+            if (length >= buffer.length) {
+                // nothing to coalesce, pass large chunks on as they are
+                if (writer != null && csq instanceof String) {
+                    writer.write((String) csq, start, length);
+                } else {
+                    target.append(csq, start, end);
+                }
+                return this;
+            }
+        }
+        if (csq instanceof String) {
+            ((String) csq).getChars(start, end, buffer, position);
+        } else {
+            for (int i = start; i < end; i++) {
+                buffer[position + i - start] = csq.charAt(i);
+            }
+        }
+        position += length;
+        return this;
+    }
+
+    @Override
+    public CoalescingOutput append(char c) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = c;
+        return this;
+    }
+
+    /**
+     * @return the Appendable the chars are passed on to
+     */
+    public Appendable target() {
+        return target;
+    }
+
+    /**
+     * @return the number of chars in the buffer
+     */
+    public int buffered() {
+        return position;
+    }
+
+    /**
+     * Passes the buffered chars on to the target, without flushing the target
+     */
+    public void flushBuffer() throws IOException {
+        if (position == 0) {
+            return;
+        }
+        if (writer != null) {
+            writer.write(buffer, 0, position);
+        } else {
+            target.append(chars, 0, position);
+        }
+        position = 0;
+    }
+
+    /**
+     * Passes the buffered chars on to the target, and flushes the target if it is Flushable
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        if (target instanceof Flushable) {
+            ((Flushable) target).flush();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package j2html.rendering;
+
+import j2html.tags.Tag;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An HtmlBuilder which flushes the underlying output as soon as certain elements
+ * have been rendered, by default the head. The browser can then start loading
+ * stylesheets and scripts while the rest of the page is still being computed.
+ * <p>
+ * Intended usage, with a Writer over the response body:
+ * <pre>{@code
+ * page.render(EarlyFlushHtml.into(FlatHtml.into(writer)).flushAfterStartTag("body"));
+ * }</pre>
+ * All rendering is delegated to the wrapped HtmlBuilder.
+ *
+ * @param <T> The type of the Appendable to which HTML will be appended.
+ */
+public class EarlyFlushHtml<T extends Appendable> implements HtmlBuilder<T> {
+
+    private final HtmlBuilder<T> builder;
+    private final Flushable target;
+    private final Set<String> flushAfterEndTags = new HashSet<>();
+    private final Set<String> flushAfterStartTags = new HashSet<>();
+    private final TagBuilder startTag = new FlushingTagBuilder();
+    private TagBuilder pendingTagBuilder;
+    private int flushes;
+
+    /**
+     * Returns an HtmlBuilder which flushes the builder's output after the head element.
+     *
+     * @param builder The HtmlBuilder to render to, whose output must be Flushable.
+     * @param <T>     The type of the Appendable to which HTML will be appended.
+     * @return An HtmlBuilder which flushes early.
+     */
+    public static <T extends Appendable> EarlyFlushHtml<T> into(HtmlBuilder<T> builder) {
+        if (!(builder.output() instanceof Flushable)) {
+            throw new IllegalArgumentException("The output of the builder is not Flushable: " + builder.output().getClass().getName());
+        }
+        return into(builder, (Flushable) builder.output());
+    }
+
+    /**
+     * Returns an HtmlBuilder which flushes the given target after the head element.
+     *
+     * @param builder The HtmlBuilder to render to.
+     * @param target  What to flush, e.g. the stream the builder writes to.
+     * @param <T>     The type of the Appendable to which HTML will be appended.
+     * @return An HtmlBuilder which flushes early.
+     */
+    public static <T extends Appendable> EarlyFlushHtml<T> into(HtmlBuilder<T> builder, Flushable target) {
+        return new EarlyFlushHtml<>(builder, target).flushAfterEndTag("head");
+    }
+
+    private EarlyFlushHtml(HtmlBuilder<T> builder, Flushable target) {
+        this.builder = builder;
+        this.target = target;
+    }
+
+    /**
+     * Also flushes after the end tags with the given names
+     *
+     * @param names element names
+     * @return itself for easy chaining
+     */
+    public EarlyFlushHtml<T> flushAfterEndTag(String... names) {
+        flushAfterEndTags.addAll(Arrays.asList(names));
+        return this;
+    }
+
+    /**
+     * Also flushes after the start tags with the given names, e.g. body
+     *
+     * @param names element names
+     * @return itself for easy chaining
+     */
+    public EarlyFlushHtml<T> flushAfterStartTag(String... names) {
+        flushAfterStartTags.addAll(Arrays.asList(names));
+        return this;
+    }
+
+    /**
+     * Flushes the target now
+     */
+    public void flush() throws IOException {
+        target.flush();
+        flushes++;
+    }
+
+    /**
+     * @return how often the target has been flushed
+     */
+    public int flushes() {
+        return flushes;
+    }
+
+    @Override
+    public TagBuilder appendStartTag(String name) throws IOException {
+        TagBuilder tagBuilder = builder.appendStartTag(name);
+        if (!flushAfterStartTags.contains(name)) {
+            return tagBuilder;
+        }
+        pendingTagBuilder = tagBuilder;
+        return startTag;
+    }
+
+    @Override
+    public HtmlBuilder<T> appendEndTag(String name) throws IOException {
+        builder.appendEndTag(name);
+        if (flushAfterEndTags.contains(name)) {
+            flush();
+        }
+        return this;
+    }
+
+    @Override
+    public TagBuilder appendEmptyTag(String name) throws IOException {
+        return builder.appendEmptyTag(name);
+    }
+
+    @Override
+    public HtmlBuilder<T> appendEscapedText(String txt) throws IOException {
+        builder.appendEscapedText(txt);
+        return this;
+    }
+
+    @Override
+    public HtmlBuilder<T> appendUnescapedText(String txt) throws IOException {
+        builder.appendUnescapedText(txt);
+        return this;
+    }
+
+    @Override
+    public T output() {
+        return builder.output();
+    }
+
+    @Override
+    @Deprecated
+    public HtmlBuilder<T> append(CharSequence csq) throws IOException {
+        builder.append(csq);
+        return this;
+    }
+
+    @Override
+    @Deprecated
+    public HtmlBuilder<T> append(CharSequence csq, int start, int end) throws IOException {
+        builder.append(csq, start, end);
+        return this;
+    }
+
+    @Override
+    @Deprecated
+    public HtmlBuilder<T> append(char c) throws IOException {
+        builder.append(c);
+        return this;
+    }
+
+    @Override
+    public Map<String, Tag> getTags() {
+        return builder.getTags();
+    }
+
+    @Override
+    public <U extends Tag<U>> void registerTag(String id, Tag<U> tag) {
+        builder.registerTag(id, tag);
+    }
+
+    @Override
+    public <U extends Tag<U>> U getTag(String id) {
+        return builder.getTag(id);
+    }
+
+    private class FlushingTagBuilder implements TagBuilder {
+
+        @Override
+        public TagBuilder appendAttribute(String name, String value) throws IOException {
+            pendingTagBuilder.appendAttribute(name, value);
+            return this;
+        }
+
+        @Override
+        public TagBuilder appendBooleanAttribute(String name) throws IOException {
+            pendingTagBuilder.appendBooleanAttribute(name);
+            return this;
+        }
+
+        @Override
+        public HtmlBuilder<T> completeTag() throws IOException {
+            pendingTagBuilder.completeTag();
+            pendingTagBuilder = null;
+            flush();
+            return EarlyFlushHtml.this;
+        }
+
+        @Override
+        @Deprecated
+        public TagBuilder append(CharSequence csq) throws IOException {
+            pendingTagBuilder.append(csq);
+            return this;
+        }
+
+        @Override
+        @Deprecated
+        public TagBuilder append(CharSequence csq, int start, int end) throws IOException {
+            pendingTagBuilder.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        @Deprecated
+        public TagBuilder append(char c) throws IOException {
+            pendingTagBuilder.append(c);
+            return this;
+        }
+    }
+}
@@ -67,12 +67,19 @@ public class FlatHtml<T extends Appendable> implements HtmlBuilder<T> {
     }
 
     private final T out;
+    // the output, wrapped by the guard if the Config limits renders
+    private final Appendable sink;
+    private final RenderGuard guard;
+    private final Config config;
     private final TextEscaper textEscaper;
     private final TagBuilder enclosingElementAttributes;
     private final TagBuilder emptyElementAttributes;
 
     private FlatHtml(T out, Config config) {
         this.out = out;
+        this.guard = RenderGuard.of(out, config);
+        this.sink = guard == null ? out : guard;
+        this.config = config;
         this.textEscaper = config.textEscaper();
         this.enclosingElementAttributes = new FlatTagBuilder(false);
         this.emptyElementAttributes = new FlatTagBuilder(config.closeEmptyTags());
@@ -80,7 +87,10 @@ public class FlatHtml<T extends Appendable> implements HtmlBuilder<T> {
 
     private FlatHtml(T out, Config config, Map<String, Tag> tagsMap) {
         this.out = out;
+        this.guard = RenderGuard.of(out, config);
+        this.sink = guard == null ? out : guard;
         this.tags = tagsMap;
+        this.config = config;
         this.textEscaper = config.textEscaper();
         this.enclosingElementAttributes = new FlatTagBuilder(false);
         this.emptyElementAttributes = new FlatTagBuilder(config.closeEmptyTags());
@@ -90,54 +100,72 @@ public class FlatHtml<T extends Appendable> implements HtmlBuilder<T> {
         return out;
     }
 
+    /**
+     * Returns the Config this builder was created with.
+     *
+     * @return The Config used for text escapement, tag closing, etc.
+     */
+    public Config config() {
+        return config;
+    }
+
     @Override
     @Deprecated
     public HtmlBuilder<T> append(CharSequence csq) throws IOException {
-        out.append(csq);
+        sink.append(csq);
         return this;
     }
 
     @Override
     @Deprecated
     public HtmlBuilder<T> append(CharSequence csq, int start, int end) throws IOException {
-        out.append(csq, start, end);
+        sink.append(csq, start, end);
         return this;
     }
 
     @Override
     @Deprecated
     public HtmlBuilder<T> append(char c) throws IOException {
-        out.append(c);
+        sink.append(c);
         return this;
     }
 
     @Override
     public TagBuilder appendStartTag(String name) throws IOException {
-        out.append("<").append(name);
+        if (guard != null) {
+            guard.startTag();
+        }
+        sink.append("<").append(name);
         return enclosingElementAttributes;
     }
 
     @Override
     public HtmlBuilder<T> appendEndTag(String name) throws IOException {
-        out.append("</").append(name).append(">");
+        if (guard != null) {
+            guard.endTag();
+        }
+        sink.append("</").append(name).append(">");
         return this;
     }
 
     @Override
     public TagBuilder appendEmptyTag(String name) throws IOException {
-        out.append("<").append(name);
+        if (guard != null) {
+            guard.emptyTag();
+        }
+        sink.append("<").append(name);
         return emptyElementAttributes;
     }
 
     @Override
     public HtmlBuilder<T> appendEscapedText(String txt) throws IOException {
-        out.append(textEscaper.escape(txt));
+        sink.append(textEscaper.escape(txt));
         return this;
     }
 
     @Override
     public HtmlBuilder<T> appendUnescapedText(String txt) throws IOException {
-        out.append(txt);
+        sink.append(txt);
         return this;
     }
 
@@ -151,7 +179,7 @@ public class FlatHtml<T extends Appendable> implements HtmlBuilder<T> {
 
         @Override
         public TagBuilder appendAttribute(String name, String value) throws IOException {
-            out.append(" ")
+            sink.append(" ")
                 .append(name)
                 .append("=\"")
                 .append(textEscaper.escape(value))
@@ -161,16 +189,16 @@ public class FlatHtml<T extends Appendable> implements HtmlBuilder<T> {
 
         @Override
         public TagBuilder appendBooleanAttribute(String name) throws IOException {
-            out.append(" ").append(name);
+            sink.append(" ").append(name);
             return this;
         }
 
         @Override
         public HtmlBuilder<T> completeTag() throws IOException {
             if (closeTag) {
-                out.append("/");
+                sink.append("/");
             }
-            out.append(">");
+            sink.append(">");
 
             return FlatHtml.this;
         }
@@ -178,21 +206,21 @@ public class FlatHtml<T extends Appendable> implements HtmlBuilder<T> {
         @Override
         @Deprecated
         public TagBuilder append(CharSequence csq) throws IOException {
-            out.append(csq);
+            sink.append(csq);
             return this;
         }
 
         @Override
         @Deprecated
         public TagBuilder append(CharSequence csq, int start, int end) throws IOException {
-            out.append(csq, start, end);
+            sink.append(csq, start, end);
             return this;
         }
 
         @Override
         @Deprecated
         public TagBuilder append(char c) throws IOException {
-            out.append(c);
+            sink.append(c);
             return this;
         }
 
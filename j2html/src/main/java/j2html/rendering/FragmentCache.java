@@ -0,0 +1,325 @@
+package j2html.rendering;
+
+import j2html.Config;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A size-bounded, thread-safe cache of rendered HTML fragments.
+ * <p>
+ * Entries are keyed by a component key plus a model fingerprint (see {@link #key(String, Object)}),
+ * weighted by the length of their rendered output, and evicted in least-recently-used order once
+ * the total weight exceeds the configured maximum. Optionally, entries expire a fixed time after
+ * they were loaded.
+ * <p>
+ * Concurrent requests for a missing key are collapsed into a single load: the first caller renders
+ * the fragment while all others wait for its result.
+ */
+public class FragmentCache {
+
+    private static final FragmentCache DEFAULT = new FragmentCache(4 * 1024 * 1024);
+
+    /**
+     * Returns the cache used by {@link j2html.TagCreator#cached(String, Object, java.util.function.Function)}.
+     * It holds up to 4M characters of rendered output and never expires entries.
+     *
+     * @return the shared default cache.
+     */
+    public static FragmentCache defaultCache() {
+        return DEFAULT;
+    }
+
+    /**
+     * Creates a cache key from a component key and a model fingerprint. The model
+     * must implement equals() and hashCode() consistently with the rendered output.
+     *
+     * @param componentKey The name of the component, e.g. "product-tile".
+     * @param model        The model (or a fingerprint of it) the component is rendered from.
+     * @return A key suitable for {@link #get(Object, Supplier)}.
+     */
+    public static Object key(String componentKey, Object model) {
+        return new Key(componentKey, model, null);
+    }
+
+    /**
+     * Creates a cache key from a component key, a model fingerprint and the Config the
+     * fragment is rendered with. Configs are compared with {@link Config#rendersLike(Config)},
+     * so copies which only differ in their render budget or cancellation token share an entry.
+     *
+     * @param componentKey The name of the component, e.g. "product-tile".
+     * @param model        The model (or a fingerprint of it) the component is rendered from.
+     * @param config       The Config the fragment is rendered with.
+     * @return A key suitable for {@link #get(Object, Supplier)}.
+     */
+    public static Object key(String componentKey, Object model, Config config) {
+        return new Key(componentKey, model, config);
+    }
+
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache whose entries never expire.
+     *
+     * @param maxWeight The maximum number of rendered characters to keep.
+     */
+    public FragmentCache(long maxWeight) {
+        this(maxWeight, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a cache whose entries expire a fixed time after they were loaded.
+     *
+     * @param maxWeight The maximum number of rendered characters to keep.
+     * @param ttl       The time-to-live of an entry, or 0 to never expire entries.
+     * @param unit      The unit of ttl.
+     */
+    public FragmentCache(long maxWeight, long ttl, TimeUnit unit) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        if (ttl < 0) {
+            throw new IllegalArgumentException("ttl must not be negative: " + ttl);
+        }
+        this.maxWeight = maxWeight;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Returns the cached fragment for the given key, loading it with the given loader if absent.
+     * If another thread is already loading the same key, this call waits for that result instead
+     * of loading it again.
+     *
+     * @param key    The cache key.
+     * @param loader Renders the fragment on a cache miss.
+     * @return The rendered fragment.
+     */
+    public String get(Object key, Supplier<String> loader) {
+        Entry entry;
+        boolean owner = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired(ttlNanos)) {
+                remove(key, entry);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+                owner = true;
+                misses++;
+            } else {
+                hits++;
+            }
+        }
+
+        if (owner) {
+            return load(key, entry, loader);
+        }
+        if (entry.loaderId == Thread.currentThread().getId() && !entry.value.isDone()) {
+            throw new IllegalStateException("Recursive load of fragment " + key);
+        }
+        try {
+            return entry.value.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private String load(Object key, Entry entry, Supplier<String> loader) {
+        String value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                if (entries.get(key) == entry) {
+                    entries.remove(key);
+                }
+            }
+            entry.value.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            entry.complete(value);
+            if (entries.get(key) == entry) {
+                weight += entry.weight;
+                evict();
+            }
+        }
+        entry.value.complete(value);
+        return value;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            if (eldest.isLoaded()) {
+                iterator.remove();
+                weight -= eldest.weight;
+                evictions++;
+            }
+        }
+    }
+
+    private void remove(Object key, Entry entry) {
+        entries.remove(key);
+        if (entry.isLoaded()) {
+            weight -= entry.weight;
+        }
+    }
+
+    /**
+     * Discards the fragment for the given key, if present.
+     *
+     * @param key The cache key.
+     */
+    public synchronized void invalidate(Object key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            remove(key, entry);
+        }
+    }
+
+    /**
+     * Discards all cached fragments.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Returns a snapshot of this cache's statistics.
+     *
+     * @return The current statistics.
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size(), weight);
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<String> value = new CompletableFuture<>();
+        private final long loaderId = Thread.currentThread().getId();
+        private long loadedAt;
+        private long weight = -1;
+
+        private void complete(String html) {
+            loadedAt = System.nanoTime();
+            weight = html.length();
+        }
+
+        private boolean isLoaded() {
+            return weight >= 0;
+        }
+
+        private boolean isExpired(long ttlNanos) {
+            return ttlNanos > 0 && isLoaded() && System.nanoTime() - loadedAt >= ttlNanos;
+        }
+    }
+
+    private static final class Key {
+        private final String componentKey;
+        private final Object model;
+        private final Config config;
+
+        private Key(String componentKey, Object model, Config config) {
+            this.componentKey = Objects.requireNonNull(componentKey, "componentKey");
+            this.model = model;
+            this.config = config;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return componentKey.equals(other.componentKey) && Objects.equals(model, other.model)
+                && (config == null ? other.config == null : config.rendersLike(other.config));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * componentKey.hashCode() + Objects.hashCode(model)) + (config == null ? 0 : config.renderHashCode());
+        }
+
+        @Override
+        public String toString() {
+            return componentKey + "[" + model + "]";
+        }
+    }
+
+    /**
+     * A point-in-time snapshot of the statistics of a {@link FragmentCache}.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+        private final long weight;
+
+        private Stats(long hits, long misses, long evictions, int size, long weight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.weight = weight;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        public long evictions() {
+            return evictions;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return The number of rendered characters currently held by the cache.
+         */
+        public long weight() {
+            return weight;
+        }
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", size=" + size + ", weight=" + weight + "}";
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package j2html.rendering;
+
+import j2html.attributes.Attr;
+import j2html.tags.DomContent;
+import j2html.tags.IInstance;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Base class of the generated streaming DSL. Instead of building a tree of tags,
+ * every method immediately appends its element to the wrapped HtmlBuilder: the
+ * start tag is written, the body lambda is executed, and the end tag is written.
+ * <p>
+ * Attributes are added with {@link #attr(String, Object)} or the generated {@code withX}
+ * and {@code isX} methods, directly after the start tag: at the beginning of the body
+ * lambda, or after an empty element. The start tag is completed by the next write:
+ * <pre>{@code
+ * HtmlStream.into(html)
+ *     .a(a -> a.withHref(url).text("Link"))
+ *     .img().withSrc("logo.png").withAlt("Logo")
+ *     .finish();
+ * }</pre>
+ * Call {@link #finish()} when done, to complete the last start tag and push everything
+ * to the output.
+ * <p>
+ * Existing DomContent can be mixed in with {@link #with(DomContent...)} or by
+ * passing it as the children of an element.
+ * <p>
+ * IOExceptions thrown by the underlying Appendable are rethrown as UncheckedIOExceptions,
+ * since they cannot pass through the body lambdas.
+ *
+ * @param <S> The type of the generated subclass.
+ */
+public abstract class HtmlStreamBase<S extends HtmlStreamBase<S>> implements IInstance<S> {
+
+    private final HtmlBuilder<?> builder;
+    private TagBuilder openTag;
+
+    protected HtmlStreamBase(HtmlBuilder<?> builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Returns the HtmlBuilder to which HTML is being written. A start tag which is
+     * still open for attributes is not completed by this method.
+     *
+     * @return the wrapped HtmlBuilder
+     */
+    public HtmlBuilder<?> builder() {
+        return builder;
+    }
+
+    /**
+     * Adds an attribute to the start tag which has just been written
+     *
+     * @param name  the attribute name
+     * @param value the attribute value, which is escaped, or null for a boolean attribute
+     * @return itself for easy chaining
+     * @throws IllegalStateException if anything has been written since the start tag
+     */
+    public S attr(String name, Object value) {
+        if (openTag == null) {
+            throw new IllegalStateException("Attributes must directly follow the start tag");
+        }
+        try {
+            if (value == null) {
+                openTag.appendBooleanAttribute(name);
+            } else {
+                openTag.appendAttribute(name, String.valueOf(value));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return self();
+    }
+
+    /**
+     * Adds a boolean attribute to the start tag which has just been written
+     *
+     * @param name the attribute name
+     * @return itself for easy chaining
+     * @throws IllegalStateException if anything has been written since the start tag
+     */
+    public S attr(String name) {
+        return attr(name, null);
+    }
+
+    /*
+    Global attributes, which are valid on all elements and therefore not part of the
+    generated attribute methods. See Tag for the tree-building equivalents.
+     */
+
+    public S withId(String id) {
+        return attr(Attr.ID, id);
+    }
+
+    public S withClass(String className) {
+        return attr(Attr.CLASS, className);
+    }
+
+    public S withStyle(String style) {
+        return attr(Attr.STYLE, style);
+    }
+
+    public S withTitle(String title) {
+        return attr(Attr.TITLE, title);
+    }
+
+    public S withLang(String lang) {
+        return attr(Attr.LANG, lang);
+    }
+
+    public S withDir(String dir) {
+        return attr(Attr.DIR, dir);
+    }
+
+    public S withData(String dataAttr, String value) {
+        return attr(Attr.DATA + "-" + dataAttr, value);
+    }
+
+    public S withTabindex(int index) {
+        return attr(Attr.TABINDEX, index);
+    }
+
+    public S isHidden() {
+        return attr(Attr.HIDDEN);
+    }
+
+    /**
+     * Completes the last start tag, and flushes the output if it is Flushable,
+     * e.g. a Writer or a {@link CoalescingOutput}.
+     */
+    public void finish() {
+        try {
+            completeOpenTag();
+            Object output = builder.output();
+            if (output instanceof Flushable) {
+                ((Flushable) output).flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends html-escaped text
+     *
+     * @param text the text
+     * @return itself for easy chaining
+     */
+    public S text(String text) {
+        try {
+            completeOpenTag();
+            builder.appendEscapedText(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return self();
+    }
+
+    /**
+     * Appends text without escaping
+     *
+     * @param html the html
+     * @return itself for easy chaining
+     */
+    public S rawHtml(String html) {
+        try {
+            completeOpenTag();
+            builder.appendUnescapedText(html);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return self();
+    }
+
+    /**
+     * Renders existing DomContent in place
+     *
+     * @param contents the DomContent to render, null values are ignored
+     * @return itself for easy chaining
+     */
+    public S with(DomContent... contents) {
+        try {
+            completeOpenTag();
+            for (DomContent content : contents) {
+                if (content != null) {
+                    content.render(builder);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return self();
+    }
+
+    /**
+     * Appends an element with a custom tag name. The body can begin with attributes.
+     *
+     * @param name      the tag name
+     * @param shortAttr id and classes, or null
+     * @param body      writes the attributes and content of the element
+     * @return itself for easy chaining
+     */
+    public S tag(String name, Attr.ShortForm shortAttr, Consumer<S> body) {
+        try {
+            completeOpenTag();
+            openTag = openStartTag(builder.appendStartTag(name), shortAttr);
+            body.accept(self());
+            completeOpenTag();
+            builder.appendEndTag(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return self();
+    }
+
+    /**
+     * Appends an empty element with a custom tag name, which can be followed by attributes
+     *
+     * @param name      the tag name
+     * @param shortAttr id and classes, or null
+     * @return itself for easy chaining
+     */
+    public S emptyTag(String name, Attr.ShortForm shortAttr) {
+        try {
+            completeOpenTag();
+            openTag = openStartTag(builder.appendEmptyTag(name), shortAttr);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return self();
+    }
+
+    protected final S element(String name, Attr.ShortForm shortAttr, String text) {
+        try {
+            appendStartTag(name, shortAttr);
+            builder.appendEscapedText(text);
+            builder.appendEndTag(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return self();
+    }
+
+    protected final S element(String name, Attr.ShortForm shortAttr, DomContent... children) {
+        try {
+            appendStartTag(name, shortAttr);
+            for (DomContent child : children) {
+                if (child != null) {
+                    child.render(builder);
+                }
+            }
+            builder.appendEndTag(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return self();
+    }
+
+    private void appendStartTag(String name, Attr.ShortForm shortAttr) throws IOException {
+        completeOpenTag();
+        openStartTag(builder.appendStartTag(name), shortAttr).completeTag();
+    }
+
+    private TagBuilder openStartTag(TagBuilder tag, Attr.ShortForm shortAttr) throws IOException {
+        if (shortAttr != null) {
+            shortAttr.render(tag);
+        }
+        return tag;
+    }
+
+    private void completeOpenTag() throws IOException {
+        if (openTag != null) {
+            TagBuilder tag = openTag;
+            openTag = null;
+            tag.completeTag();
+        }
+    }
+}
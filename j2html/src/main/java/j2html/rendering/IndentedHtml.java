@@ -71,6 +71,9 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
     }
 
     private final T out;
+    // the output, wrapped by the guard if the Config limits renders
+    private final Appendable sink;
+    private final RenderGuard guard;
     private final Indenter indenter;
     private final TextEscaper textEscaper;
     private final TagBuilder enclosingElementAttributes;
@@ -86,6 +89,8 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
 
     private IndentedHtml(T out, Config config) {
         this.out = out;
+        this.guard = RenderGuard.of(out, config);
+        this.sink = guard == null ? out : guard;
         this.indenter = config.indenter();
         this.textEscaper = config.textEscaper();
         this.enclosingElementAttributes = new IndentedTagBuilder(false);
@@ -93,6 +98,8 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
     }
     private IndentedHtml(T out, Config config,Map<String,Tag>tagsMap) {
         this.out = out;
+        this.guard = RenderGuard.of(out, config);
+        this.sink = guard == null ? out : guard;
         this.indenter = config.indenter();
         this.tags = tagsMap;
         this.textEscaper = config.textEscaper();
@@ -110,13 +117,16 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
 
     @Override
     public TagBuilder appendStartTag(String name) throws IOException {
+        if (guard != null) {
+            guard.startTag();
+        }
         if (!isContentSelfFormatting()) {
-            out.append(indenter.indent(lvl(), ""));
+            sink.append(indenter.indent(lvl(), ""));
         }
 
         trace.push(name);
 
-        out.append("<").append(name);
+        sink.append("<").append(name);
         return enclosingElementAttributes;
     }
 
@@ -125,18 +135,21 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
         if (!name.equals(trace.peek())) {
             throw new RuntimeException("Incorrect element closed: " + name + ".  Expected: " + trace.peek());
         }
+        if (guard != null) {
+            guard.endTag();
+        }
 
         if (!isContentSelfFormatting()) {
             trace.pop();
-            out.append(indenter.indent(lvl(), ""));
+            sink.append(indenter.indent(lvl(), ""));
         } else {
             trace.pop();
         }
 
-        out.append("</").append(name).append(">");
+        sink.append("</").append(name).append(">");
 
         if (!isContentSelfFormatting()) {
-            out.append("\n");
+            sink.append("\n");
         }
 
         return this;
@@ -144,10 +157,13 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
 
     @Override
     public TagBuilder appendEmptyTag(String name) throws IOException {
+        if (guard != null) {
+            guard.emptyTag();
+        }
         if (!isContentSelfFormatting()) {
-            out.append(indenter.indent(lvl(), ""));
+            sink.append(indenter.indent(lvl(), ""));
         }
-        out.append("<").append(name);
+        sink.append("<").append(name);
         return emptyElementAttributes;
     }
 
@@ -155,10 +171,10 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
         if (!isContentSelfFormatting()) {
             String[] lines = txt.split("\n");
             for (String line : lines) {
-                out.append(indenter.indent(lvl(), line)).append("\n");
+                sink.append(indenter.indent(lvl(), line)).append("\n");
             }
         } else {
-            out.append(txt);
+            sink.append(txt);
         }
     }
 
@@ -182,21 +198,21 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
     @Override
     @Deprecated
     public HtmlBuilder<T> append(CharSequence csq) throws IOException {
-        out.append(csq);
+        sink.append(csq);
         return this;
     }
 
     @Override
     @Deprecated
     public HtmlBuilder<T> append(CharSequence csq, int start, int end) throws IOException {
-        out.append(csq, start, end);
+        sink.append(csq, start, end);
         return this;
     }
 
     @Override
     @Deprecated
     public HtmlBuilder<T> append(char c) throws IOException {
-        out.append(c);
+        sink.append(c);
         return this;
     }
 
@@ -211,7 +227,7 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
 
         @Override
         public TagBuilder appendAttribute(String name, String value) throws IOException {
-            out.append(" ")
+            sink.append(" ")
                 .append(name)
                 .append("=\"")
                 .append(textEscaper.escape(value))
@@ -221,19 +237,19 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
 
         @Override
         public TagBuilder appendBooleanAttribute(String name) throws IOException {
-            out.append(" ").append(name);
+            sink.append(" ").append(name);
             return this;
         }
 
         @Override
         public HtmlBuilder<T> completeTag() throws IOException {
             if (closeTag) {
-                out.append("/");
+                sink.append("/");
             }
-            out.append(">");
+            sink.append(">");
 
             if (!isContentSelfFormatting()) {
-                out.append("\n");
+                sink.append("\n");
             }
 
             return IndentedHtml.this;
@@ -242,21 +258,21 @@ public class IndentedHtml<T extends Appendable> implements HtmlBuilder<T> {
         @Override
         @Deprecated
         public TagBuilder append(CharSequence csq) throws IOException {
-            out.append(csq);
+            sink.append(csq);
             return this;
         }
 
         @Override
         @Deprecated
         public TagBuilder append(CharSequence csq, int start, int end) throws IOException {
-            out.append(csq, start, end);
+            sink.append(csq, start, end);
             return this;
         }
 
         @Override
         @Deprecated
         public TagBuilder append(char c) throws IOException {
-            out.append(c);
+            sink.append(c);
             return this;
         }
 
@@ -0,0 +1,395 @@
+package j2html.rendering;
+
+import j2html.tags.Tag;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Learns how large the output of previous renders was, so new renders can presize
+ * their buffers instead of growing a {@link StringBuilder} from 16 chars through a
+ * dozen copies.
+ * <p>
+ * Sizes are kept in a {@link Histogram} per template: per root for sealed tags, which
+ * are rendered again and again, per class for all other roots (so all pages rendered
+ * from an html tag share one histogram), or per explicit template key. A histogram
+ * suggests the size below which a given share of recent renders stayed, at most 25%
+ * above it. Old samples decay, so the suggestion follows templates which grow or shrink.
+ * <p>
+ * Intended usage, for code rendering into its own buffers:
+ * <pre>{@code
+ * OutputSizeStats.Histogram sizes = OutputSizeStats.shared().forKey("product-page");
+ * StringBuilder out = new StringBuilder(sizes.capacity(1024));
+ * page.render(FlatHtml.into(out));
+ * sizes.record(out.length());
+ * }</pre>
+ * {@link j2html.TagCreator#document(j2html.tags.specialized.HtmlTag)} and {@link j2html.tags.Layout}
+ * already do this with the shared instance, since they render whole pages; other renders are not
+ * recorded unless their callers opt in. {@link #snapshot()} exposes all histograms for monitoring.
+ * <p>
+ * Recording never blocks: a sample which arrives while another thread is recording into the
+ * same histogram is dropped, which is harmless for a size estimate and keeps a histogram shared
+ * by many threads from becoming a point of contention.
+ */
+public final class OutputSizeStats {
+
+    private static final OutputSizeStats SHARED = new OutputSizeStats(0.95, 64);
+
+    // 4 buckets per power of two, the first one for everything below 16 chars
+    private static final int MIN_EXPONENT = 4;
+    private static final int BUCKETS = (31 - MIN_EXPONENT) * 4 + 1;
+
+    private final double percentile;
+    private final int window;
+    private final ConcurrentMap<Object, Histogram> keys = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, Histogram> roots = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private final ClassValue<Histogram> classes = new ClassValue<Histogram>() {
+        @Override
+        protected Histogram computeValue(Class<?> type) {
+            return new Histogram();
+        }
+    };
+    private final Map<Class<?>, Boolean> usedClasses = new ConcurrentHashMap<>();
+
+    /**
+     * @return the statistics used by the render methods of the library
+     */
+    public static OutputSizeStats shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param percentile the share of renders which should fit into the suggested capacity, e.g. 0.95
+     * @param window     the number of renders after which the weight of older renders is halved
+     */
+    public OutputSizeStats(double percentile, int window) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1]: " + percentile);
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        this.percentile = percentile;
+        this.window = window;
+    }
+
+    /**
+     * @param key a template key, compared with equals()
+     * @return the histogram of the template
+     */
+    public Histogram forKey(Object key) {
+        Histogram histogram = keys.get(key);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = keys.putIfAbsent(key, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @param root a root which is rendered repeatedly, compared by identity and only weakly referenced
+     * @return the histogram of the root
+     */
+    public Histogram forRoot(Object root) {
+        expungeStaleEntries();
+        Histogram histogram = roots.get(new Lookup(root));
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = roots.putIfAbsent(new WeakKey(root, queue), created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @param type the class of the roots
+     * @return the histogram shared by all roots of the class
+     */
+    public Histogram forClass(Class<?> type) {
+        usedClasses.putIfAbsent(type, Boolean.TRUE);
+        return classes.get(type);
+    }
+
+    /**
+     * @param root what is about to be rendered
+     * @return the histogram of the root if it is a sealed tag, or else of its class
+     */
+    public Histogram forRendering(Object root) {
+        if (root instanceof Tag && ((Tag<?>) root).isSealed()) {
+            return forRoot(root);
+        }
+        return forClass(root.getClass());
+    }
+
+    /**
+     * @return a snapshot of every histogram, by a description of its template
+     */
+    public Map<String, Snapshot> snapshot() {
+        expungeStaleEntries();
+        Map<String, Snapshot> snapshot = new LinkedHashMap<>();
+        for (Class<?> type : usedClasses.keySet()) {
+            snapshot.put("class:" + type.getName(), classes.get(type).snapshot());
+        }
+        for (Map.Entry<Object, Histogram> entry : keys.entrySet()) {
+            snapshot.put("key:" + entry.getKey(), entry.getValue().snapshot());
+        }
+        for (Map.Entry<Object, Histogram> entry : roots.entrySet()) {
+            Object root = ((WeakKey) entry.getKey()).get();
+            if (root != null) {
+                snapshot.put("root:" + root.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(root)), entry.getValue().snapshot());
+            }
+        }
+        return snapshot;
+    }
+
+    private void expungeStaleEntries() {
+        WeakKey key;
+        while ((key = (WeakKey) queue.poll()) != null) {
+            roots.remove(key);
+        }
+    }
+
+    static int bucketOf(int size) {
+        if (size < (1 << MIN_EXPONENT)) {
+            return 0;
+        }
+        int exponent = 31 - Integer.numberOfLeadingZeros(size);
+        int quarter = (size >>> (exponent - 2)) & 3;
+        return (exponent - MIN_EXPONENT) * 4 + quarter + 1;
+    }
+
+    /**
+     * @return the smallest size above all sizes in the bucket
+     */
+    static int capacityOf(int bucket) {
+        if (bucket == 0) {
+            return 1 << MIN_EXPONENT;
+        }
+        int exponent = (bucket - 1) / 4 + MIN_EXPONENT;
+        int quarter = (bucket - 1) % 4;
+        long capacity = (long) (5 + quarter) << (exponent - 2);
+        return (int) Math.min(capacity, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * The decaying size histogram of one template
+     */
+    public final class Histogram {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int[] counts = new int[BUCKETS];
+        private int weight;
+        private long samples;
+        private long undersized;
+        private int max;
+        private volatile int capacity;
+
+        private Histogram() {
+        }
+
+        /**
+         * @param defaultCapacity the capacity to use before anything has been recorded
+         * @return the suggested capacity of the next render's buffer
+         */
+        public int capacity(int defaultCapacity) {
+            int capacity = this.capacity;
+            return capacity == 0 ? defaultCapacity : capacity;
+        }
+
+        /**
+         * Records a size, unless another thread is recording at the same time
+         *
+         * @param size the size of a render's output, in chars or bytes
+         */
+        public void record(int size) {
+            if (!lock.tryLock()) {
+                return;
+            }
+            try {
+                update(size);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void update(int size) {
+            if (capacity != 0 && size > capacity) {
+                undersized++;
+            }
+            samples++;
+            max = Math.max(max, size);
+            counts[bucketOf(size)]++;
+            if (++weight >= 2 * window) {
+                weight = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] >>= 1;
+                    weight += counts[i];
+                }
+            }
+            capacity = quantile(percentile);
+        }
+
+        private int quantile(double quantile) {
+            long target = (long) Math.ceil(weight * quantile);
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target && counts[i] > 0) {
+                    return capacityOf(i);
+                }
+            }
+            return capacityOf(bucketOf(max));
+        }
+
+        public Snapshot snapshot() {
+            lock.lock();
+            try {
+                return new Snapshot(samples, undersized, max, quantile(0.5), quantile(0.9), quantile(0.99), capacity);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A point-in-time view of a {@link Histogram}. Percentiles are upper bounds of the
+     * recent sizes, at most 25% above them.
+     */
+    public static final class Snapshot {
+        private final long samples;
+        private final long undersized;
+        private final int max;
+        private final int p50;
+        private final int p90;
+        private final int p99;
+        private final int capacity;
+
+        private Snapshot(long samples, long undersized, int max, int p50, int p90, int p99, int capacity) {
+            this.samples = samples;
+            this.undersized = undersized;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return the number of renders recorded
+         */
+        public long samples() {
+            return samples;
+        }
+
+        /**
+         * @return the number of renders which outgrew the capacity suggested before them
+         */
+        public long undersized() {
+            return undersized;
+        }
+
+        /**
+         * @return the largest size ever recorded
+         */
+        public int max() {
+            return max;
+        }
+
+        public int p50() {
+            return p50;
+        }
+
+        public int p90() {
+            return p90;
+        }
+
+        public int p99() {
+            return p99;
+        }
+
+        /**
+         * @return the currently suggested capacity
+         */
+        public int capacity() {
+            return capacity;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{samples=" + samples + ", undersized=" + undersized + ", max=" + max
+                + ", p50=" + p50 + ", p90=" + p90 + ", p99=" + p99 + ", capacity=" + capacity + "}";
+        }
+    }
+
+    /**
+     * A key which compares its referent by identity
+     */
+    private interface IdentityKey {
+        Object referent();
+    }
+
+    private static boolean sameReferent(IdentityKey key, Object other) {
+        if (!(other instanceof IdentityKey)) {
+            return false;
+        }
+        Object referent = key.referent();
+        return referent != null && referent == ((IdentityKey) other).referent();
+    }
+
+    private static final class WeakKey extends WeakReference<Object> implements IdentityKey {
+        private final int hash;
+
+        private WeakKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public Object referent() {
+            return get();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj == this || sameReferent(this, obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Lookup implements IdentityKey {
+        private final Object referent;
+
+        private Lookup(Object referent) {
+            this.referent = referent;
+        }
+
+        @Override
+        public Object referent() {
+            return referent;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return sameReferent(this, obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(referent);
+        }
+    }
+}
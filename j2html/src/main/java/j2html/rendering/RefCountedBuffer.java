@@ -0,0 +1,79 @@
+package j2html.rendering;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ByteBuffer from a {@link BufferAllocator}, which is given back to the allocator
+ * when its last reference is released. It starts with one reference; pass it on with
+ * {@link #retain()}, e.g. to a queue of pending socket writes, and call {@link #release()}
+ * once per reference.
+ * <p>
+ * The ByteBuffer must not be used anymore once the buffer has been deallocated,
+ * since a pooling allocator hands the same memory out again.
+ */
+public abstract class RefCountedBuffer {
+
+    private final ByteBuffer buffer;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    protected RefCountedBuffer(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return the buffer, with its position at 0 and its limit at the requested capacity when allocated
+     */
+    public ByteBuffer buffer() {
+        if (references.get() <= 0) {
+            throw new IllegalStateException("The buffer has been released");
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the number of references
+     */
+    public int refCount() {
+        return references.get();
+    }
+
+    /**
+     * Adds a reference
+     *
+     * @return itself for easy chaining
+     */
+    public RefCountedBuffer retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count <= 0) {
+                throw new IllegalStateException("The buffer has been released");
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return this;
+    }
+
+    /**
+     * Removes a reference, and gives the buffer back to its allocator if it was the last one
+     *
+     * @return true if the buffer has been deallocated
+     */
+    public boolean release() {
+        int count = references.decrementAndGet();
+        if (count == 0) {
+            deallocate();
+            return true;
+        }
+        if (count < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("The buffer has already been released");
+        }
+        return false;
+    }
+
+    /**
+     * Called once, when the last reference has been released
+     */
+    protected abstract void deallocate();
+}
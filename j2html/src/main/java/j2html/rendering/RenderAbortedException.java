@@ -0,0 +1,61 @@
+package j2html.rendering;
+
+/**
+ * Thrown when a render exceeds its {@link RenderBudget} or is cancelled through its
+ * {@link CancellationToken}. Whatever has been written before stays in the output;
+ * {@link #nodes()}, {@link #chars()} and the other accessors describe that partial output.
+ */
+public class RenderAbortedException extends RuntimeException {
+
+    public enum Reason {
+        MAX_NODES, MAX_CHARS, MAX_DEPTH, MAX_TIME, CANCELLED
+    }
+
+    private final Reason reason;
+    private final long nodes;
+    private final long chars;
+    private final int depth;
+    private final long elapsedNanos;
+
+    public RenderAbortedException(Reason reason, long nodes, long chars, int depth, long elapsedNanos) {
+        super("Render aborted (" + reason + ") after " + nodes + " elements, " + chars + " chars, at depth " + depth
+            + ", after " + elapsedNanos / 1_000_000 + " ms");
+        this.reason = reason;
+        this.nodes = nodes;
+        this.chars = chars;
+        this.depth = depth;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Reason reason() {
+        return reason;
+    }
+
+    /**
+     * @return the number of elements rendered before the render was aborted
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the number of chars written before the render was aborted
+     */
+    public long chars() {
+        return chars;
+    }
+
+    /**
+     * @return the nesting depth at which the render was aborted
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * @return the time between the creation of the builder and the abort
+     */
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,103 @@
+package j2html.rendering;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The limits of a single render with FlatHtml or IndentedHtml: the number of elements,
+ * the number of chars of output, the nesting depth and the wall-clock time. A render
+ * which exceeds one of them fails with a {@link RenderAbortedException}.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * Config.publish(Config.current().withRenderBudget(RenderBudget.UNLIMITED
+ *     .withMaxChars(50_000_000)
+ *     .withMaxTime(5, TimeUnit.SECONDS)));
+ * }</pre>
+ * The limits are checked at element boundaries, except the output, which is checked on every write.
+ * Each builder is a render of its own, including the builders created by cached content.
+ * Instances are immutable.
+ */
+public final class RenderBudget {
+
+    public static final RenderBudget UNLIMITED = new RenderBudget(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long maxNodes;
+    private final long maxChars;
+    private final int maxDepth;
+    private final long maxNanos;
+
+    private RenderBudget(long maxNodes, long maxChars, int maxDepth, long maxNanos) {
+        this.maxNodes = maxNodes;
+        this.maxChars = maxChars;
+        this.maxDepth = maxDepth;
+        this.maxNanos = maxNanos;
+    }
+
+    /**
+     * @param maxNodes the maximum number of elements
+     * @return a copy of this budget with the given limit
+     */
+    public RenderBudget withMaxNodes(long maxNodes) {
+        return new RenderBudget(positive(maxNodes, "maxNodes"), maxChars, maxDepth, maxNanos);
+    }
+
+    /**
+     * @param maxChars the maximum number of chars of output, which is the number of bytes for ASCII
+     * @return a copy of this budget with the given limit
+     */
+    public RenderBudget withMaxChars(long maxChars) {
+        return new RenderBudget(maxNodes, positive(maxChars, "maxChars"), maxDepth, maxNanos);
+    }
+
+    /**
+     * @param maxDepth the maximum nesting depth of elements
+     * @return a copy of this budget with the given limit
+     */
+    public RenderBudget withMaxDepth(int maxDepth) {
+        return new RenderBudget(maxNodes, maxChars, (int) positive(maxDepth, "maxDepth"), maxNanos);
+    }
+
+    /**
+     * @param maxTime the maximum wall-clock time, measured from the creation of the builder
+     * @param unit    the unit of maxTime
+     * @return a copy of this budget with the given limit
+     */
+    public RenderBudget withMaxTime(long maxTime, TimeUnit unit) {
+        return new RenderBudget(maxNodes, maxChars, maxDepth, unit.toNanos(positive(maxTime, "maxTime")));
+    }
+
+    public long maxNodes() {
+        return maxNodes;
+    }
+
+    public long maxChars() {
+        return maxChars;
+    }
+
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    public long maxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * @return true if this budget does not limit anything
+     */
+    public boolean isUnlimited() {
+        return maxNodes == Long.MAX_VALUE && maxChars == Long.MAX_VALUE && maxDepth == Integer.MAX_VALUE && maxNanos == Long.MAX_VALUE;
+    }
+
+    private static long positive(long value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "RenderBudget{maxNodes=" + maxNodes + ", maxChars=" + maxChars + ", maxDepth=" + maxDepth + ", maxNanos=" + maxNanos + "}";
+    }
+}
@@ -0,0 +1,101 @@
+package j2html.rendering;
+
+import j2html.Config;
+
+import java.io.IOException;
+
+/**
+ * Enforces the {@link RenderBudget} and {@link CancellationToken} of a Config for one builder.
+ * Wraps the builder's output to count the chars written to it.
+ */
+final class RenderGuard implements Appendable {
+
+    // reading the clock at every element would cost more than rendering most elements
+    private static final int CLOCK_INTERVAL = 16;
+
+    private final Appendable out;
+    private final RenderBudget budget;
+    private final CancellationToken token;
+    private final long start = System.nanoTime();
+    private long nodes;
+    private long chars;
+    private int depth;
+
+    private RenderGuard(Appendable out, RenderBudget budget, CancellationToken token) {
+        this.out = out;
+        this.budget = budget;
+        this.token = token;
+    }
+
+    /**
+     * @return a guard if the Config limits renders, or else null
+     */
+    static RenderGuard of(Appendable out, Config config) {
+        RenderBudget budget = config.renderBudget();
+        if (budget.isUnlimited() && config.cancellationToken() == null) {
+            return null;
+        }
+        return new RenderGuard(out, budget, config.cancellationToken());
+    }
+
+    void startTag() {
+        depth++;
+        if (depth > budget.maxDepth()) {
+            abort(RenderAbortedException.Reason.MAX_DEPTH);
+        }
+        element();
+    }
+
+    void emptyTag() {
+        element();
+    }
+
+    void endTag() {
+        depth--;
+    }
+
+    private void element() {
+        nodes++;
+        if (nodes > budget.maxNodes()) {
+            abort(RenderAbortedException.Reason.MAX_NODES);
+        }
+        if (token != null && token.isCancelled()) {
+            abort(RenderAbortedException.Reason.CANCELLED);
+        }
+        if (nodes % CLOCK_INTERVAL == 0 && System.nanoTime() - start > budget.maxNanos()) {
+            abort(RenderAbortedException.Reason.MAX_TIME);
+        }
+    }
+
+    private void written(int length) {
+        chars += length;
+        if (chars > budget.maxChars()) {
+            abort(RenderAbortedException.Reason.MAX_CHARS);
+        }
+    }
+
+    private void abort(RenderAbortedException.Reason reason) {
+        throw new RenderAbortedException(reason, nodes, chars, depth, System.nanoTime() - start);
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        written(csq == null ? 4 : csq.length());
+        out.append(csq);
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        written(end - start);
+        out.append(csq, start, end);
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        written(1);
+        out.append(c);
+        return this;
+    }
+}
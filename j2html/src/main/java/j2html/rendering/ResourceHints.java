@@ -0,0 +1,210 @@
+package j2html.rendering;
+
+import j2html.tags.ContainerTag;
+import j2html.tags.DomContent;
+import j2html.tags.Tag;
+import j2html.tags.specialized.HeadTag;
+import j2html.tags.specialized.LinkTag;
+import j2html.tags.specialized.ScriptTag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The external resources referenced from the head of a page: stylesheets,
+ * scripts, fonts and preloads. Web frameworks can send them as {@code Link}
+ * headers, or in a 103 Early Hints response, before the page itself is rendered,
+ * so the browser starts fetching them while the body is still being computed.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * ResourceHints hints = ResourceHints.collect(page);
+ * response.setHeader("Link", hints.toLinkHeader());
+ * }</pre>
+ */
+public final class ResourceHints {
+
+    private final List<Hint> hints;
+
+    private ResourceHints(List<Hint> hints) {
+        this.hints = Collections.unmodifiableList(hints);
+    }
+
+    /**
+     * Collects the hints from the first head element of a tree, without rendering it.
+     * Inline styles and scripts are ignored, as are resources of other tags.
+     *
+     * @param root the html element, or the head element itself
+     * @return the hints, which may be empty
+     */
+    public static ResourceHints collect(ContainerTag<?> root) {
+        HeadTag[] head = new HeadTag[1];
+        root.traverseTree(node -> {
+            if (head[0] == null && node instanceof HeadTag) {
+                head[0] = (HeadTag) node;
+            }
+        }, node -> head[0] != null);
+
+        Set<Hint> hints = new LinkedHashSet<>();
+        if (head[0] != null) {
+            head[0].traverseTree(node -> addHint(hints, node), node -> false);
+        }
+        return new ResourceHints(new ArrayList<>(hints));
+    }
+
+    private static void addHint(Set<Hint> hints, DomContent node) {
+        if (node instanceof LinkTag) {
+            Tag<?> link = (Tag<?>) node;
+            String href = link.getAttr("href");
+            String rel = link.getAttr("rel");
+            if (href == null || rel == null) {
+                return;
+            }
+            String crossorigin = link.getAttr("crossorigin");
+            for (String type : rel.toLowerCase(Locale.ROOT).split("\\s+")) {
+                switch (type) {
+                    case "stylesheet":
+                        hints.add(new Hint(href, "preload", "style", crossorigin));
+                        break;
+                    case "preload":
+                        String as = link.getAttr("as");
+                        if (as == null && isFont(href)) {
+                            as = "font";
+                        }
+                        hints.add(new Hint(href, "preload", as, "font".equals(as) && crossorigin == null ? "" : crossorigin));
+                        break;
+                    case "modulepreload":
+                    case "preconnect":
+                    case "dns-prefetch":
+                        hints.add(new Hint(href, type, null, crossorigin));
+                        break;
+                    default:
+                        if (isFont(href)) {
+                            hints.add(new Hint(href, "preload", "font", crossorigin == null ? "" : crossorigin));
+                        }
+                }
+            }
+        } else if (node instanceof ScriptTag) {
+            Tag<?> script = (Tag<?>) node;
+            String src = script.getAttr("src");
+            if (src != null) {
+                String type = script.getAttr("type");
+                boolean module = type != null && "module".equals(type.trim().toLowerCase(Locale.ROOT));
+                hints.add(new Hint(src, module ? "modulepreload" : "preload", module ? null : "script", script.getAttr("crossorigin")));
+            }
+        }
+    }
+
+    private static boolean isFont(String href) {
+        String path = href.toLowerCase(Locale.ROOT);
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        return path.endsWith(".woff2") || path.endsWith(".woff") || path.endsWith(".ttf") || path.endsWith(".otf");
+    }
+
+    /**
+     * @return the hints, in document order and without duplicates
+     */
+    public List<Hint> hints() {
+        return hints;
+    }
+
+    public boolean isEmpty() {
+        return hints.isEmpty();
+    }
+
+    /**
+     * @return the value of a {@code Link} header containing all hints, or an empty String
+     */
+    public String toLinkHeader() {
+        StringBuilder header = new StringBuilder();
+        for (Hint hint : hints) {
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            header.append(hint.toLinkValue());
+        }
+        return header.toString();
+    }
+
+    /**
+     * A single resource hint
+     */
+    public static final class Hint {
+        private final String url;
+        private final String rel;
+        private final String as;
+        private final String crossorigin;
+
+        Hint(String url, String rel, String as, String crossorigin) {
+            this.url = url;
+            this.rel = rel;
+            this.as = as;
+            this.crossorigin = crossorigin;
+        }
+
+        public String url() {
+            return url;
+        }
+
+        /**
+         * @return the link relation, e.g. preload or preconnect
+         */
+        public String rel() {
+            return rel;
+        }
+
+        /**
+         * @return the destination of a preload, e.g. style, script or font, or null
+         */
+        public String as() {
+            return as;
+        }
+
+        /**
+         * @return the crossorigin mode, an empty String for anonymous, or null
+         */
+        public String crossorigin() {
+            return crossorigin;
+        }
+
+        /**
+         * @return the hint formatted as one value of a {@code Link} header
+         */
+        public String toLinkValue() {
+            StringBuilder value = new StringBuilder().append('<').append(url).append(">; rel=").append(rel);
+            if (as != null) {
+                value.append("; as=").append(as);
+            }
+            if (crossorigin != null) {
+                value.append(crossorigin.isEmpty() ? "; crossorigin" : "; crossorigin=" + crossorigin);
+            }
+            return value.toString();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Hint)) {
+                return false;
+            }
+            Hint other = (Hint) obj;
+            return url.equals(other.url) && rel.equals(other.rel);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * url.hashCode() + rel.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return toLinkValue();
+        }
+    }
+}
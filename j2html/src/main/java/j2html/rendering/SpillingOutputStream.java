@@ -0,0 +1,316 @@
+package j2html.rendering;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An OutputStream which keeps the first bytes written to it in memory and spills the
+ * rest to a temporary file, so rendering a huge export does not need an equally huge heap.
+ * <p>
+ * Intended usage, together with {@link Utf8Output}:
+ * <pre>{@code
+ * SpillingOutputStream spill = new SpillingOutputStream(16 * 1024 * 1024);
+ * try (SpillingOutputStream.Content content = spill.content()) {
+ *     try (Utf8Output out = new Utf8Output(spill)) {
+ *         export.render(FlatHtml.into(out));
+ *     }
+ *     response.setContentLengthLong(content.size());
+ *     content.transferTo(Channels.newChannel(response.getOutputStream()));
+ * }
+ * }</pre>
+ * Like any OutputStream, closing the stream releases the memory and deletes the temporary
+ * file, unless its {@link #content()} has been taken before: then closing only ends writing,
+ * and the content can be read any number of times, also concurrently, until the
+ * {@link Content} is closed.
+ */
+public class SpillingOutputStream extends OutputStream {
+
+    private static final int TRANSFER_CHUNK = 8 * 1024 * 1024;
+
+    private final int memoryThreshold;
+    private final Path directory;
+    private byte[] memory = new byte[256];
+    private int memorySize;
+    private Path file;
+    private FileChannel channel;
+    private long fileSize;
+    private boolean closed;
+    private boolean released;
+    private Content content;
+
+    /**
+     * Spills into the default temporary-file directory
+     *
+     * @param memoryThreshold the number of bytes to keep in memory
+     */
+    public SpillingOutputStream(int memoryThreshold) {
+        this(memoryThreshold, null);
+    }
+
+    /**
+     * @param memoryThreshold the number of bytes to keep in memory
+     * @param directory       the directory of the temporary file, or null for the default one
+     */
+    public SpillingOutputStream(int memoryThreshold, Path directory) {
+        if (memoryThreshold < 0) {
+            throw new IllegalArgumentException("memoryThreshold must not be negative: " + memoryThreshold);
+        }
+        this.memoryThreshold = memoryThreshold;
+        this.directory = directory;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        int inMemory = Math.min(len, memoryThreshold - memorySize);
+        if (inMemory > 0) {
+            if (memorySize + inMemory > memory.length) {
+                int capacity = (int) Math.min(memoryThreshold, Math.max(memorySize + inMemory, 2L * memory.length));
+                memory = Arrays.copyOf(memory, capacity);
+            }
+            System.arraycopy(b, off, memory, memorySize, inMemory);
+            memorySize += inMemory;
+        }
+        if (inMemory < len) {
+            spill(ByteBuffer.wrap(b, off + inMemory, len - inMemory));
+        }
+    }
+
+    private void spill(ByteBuffer bytes) throws IOException {
+        if (channel == null) {
+            file = directory == null
+                ? Files.createTempFile("j2html-", ".html")
+                : Files.createTempFile(directory, "j2html-", ".html");
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        while (bytes.hasRemaining()) {
+            fileSize += channel.write(bytes, fileSize);
+        }
+    }
+
+    /**
+     * Ends writing. Releases the memory and deletes the temporary file, unless the
+     * {@link #content()} has been taken, which then owns them until it is closed.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (content == null) {
+            release();
+        }
+    }
+
+    /**
+     * Takes the content, which owns the memory and the temporary file from then on, so
+     * they outlive {@link #close()}. Has to be called before the stream is closed.
+     *
+     * @return the content, the same instance on every call
+     * @throws IllegalStateException if the stream was closed without taking its content
+     */
+    public Content content() {
+        if (released) {
+            throw new IllegalStateException("The stream was closed without taking its content");
+        }
+        if (content == null) {
+            content = new Content();
+        }
+        return content;
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    public long size() {
+        return memorySize + fileSize;
+    }
+
+    /**
+     * @return true if the content did not fit into memory
+     */
+    public boolean isSpilled() {
+        return channel != null;
+    }
+
+    /**
+     * @return the number of bytes in the temporary file
+     */
+    public long spilledSize() {
+        return fileSize;
+    }
+
+    private void release() throws IOException {
+        closed = true;
+        released = true;
+        memory = null;
+        if (channel != null) {
+            // the file was opened with DELETE_ON_CLOSE, some platforms even unlink it right away
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void checkReadable() {
+        if (released) {
+            throw new IllegalStateException("The content has been closed");
+        }
+        if (!closed) {
+            throw new IllegalStateException("The stream is still being written");
+        }
+    }
+
+    /**
+     * The content written to a {@link SpillingOutputStream}, readable once the stream is closed.
+     * Closing the content releases the memory and deletes the temporary file.
+     */
+    public final class Content implements Closeable {
+
+        private Content() {
+        }
+
+        /**
+         * @return the number of bytes written
+         */
+        public long size() {
+            return SpillingOutputStream.this.size();
+        }
+
+        /**
+         * @return true if the content did not fit into memory
+         */
+        public boolean isSpilled() {
+            return SpillingOutputStream.this.isSpilled();
+        }
+
+        /**
+         * @return the number of bytes in the temporary file
+         */
+        public long spilledSize() {
+            return SpillingOutputStream.this.spilledSize();
+        }
+
+        /**
+         * @return a stream over the whole content, which does not need to be closed
+         */
+        public InputStream openInputStream() {
+            checkReadable();
+            return new ContentInputStream();
+        }
+
+        /**
+         * @return a channel over the whole content, which does not need to be closed
+         */
+        public ReadableByteChannel openChannel() {
+            return Channels.newChannel(openInputStream());
+        }
+
+        /**
+         * Writes the whole content to a channel. The spilled part is transferred by the file
+         * system, without copying it through the heap where the platform supports it.
+         *
+         * @param target the channel to write to, which must be in blocking mode
+         * @return the number of bytes written
+         * @throws IOException              if reading or writing fails
+         * @throws IllegalArgumentException if the channel is in non-blocking mode
+         */
+        public long transferTo(WritableByteChannel target) throws IOException {
+            checkReadable();
+            // a non-blocking channel may accept nothing, which would make the loops below spin
+            if (target instanceof SelectableChannel && !((SelectableChannel) target).isBlocking()) {
+                throw new IllegalArgumentException("The target channel must be in blocking mode");
+            }
+            ByteBuffer head = ByteBuffer.wrap(memory, 0, memorySize);
+            while (head.hasRemaining()) {
+                target.write(head);
+            }
+            long position = 0;
+            while (position < fileSize) {
+                position += channel.transferTo(position, Math.min(TRANSFER_CHUNK, fileSize - position), target);
+            }
+            return size();
+        }
+
+        /**
+         * Writes the whole content to a stream
+         *
+         * @param target the stream to write to
+         * @return the number of bytes written
+         * @throws IOException if reading or writing fails
+         */
+        public long transferTo(OutputStream target) throws IOException {
+            return transferTo(Channels.newChannel(target));
+        }
+
+        /**
+         * Ends writing, releases the memory, closes and deletes the temporary file.
+         * Can be called more than once.
+         */
+        @Override
+        public void close() throws IOException {
+            release();
+        }
+    }
+
+    private final class ContentInputStream extends InputStream {
+        private long position;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkReadable();
+            if (len == 0) {
+                return 0;
+            }
+            if (position < memorySize) {
+                int read = (int) Math.min(len, memorySize - position);
+                System.arraycopy(memory, (int) position, b, off, read);
+                position += read;
+                return read;
+            }
+            long filePosition = position - memorySize;
+            if (filePosition >= fileSize) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, fileSize - filePosition)), filePosition);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, size() - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, size() - position);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package j2html.rendering;
+
+/**
+ * An Appendable which only counts how many bytes the appended characters take
+ * when encoded as UTF-8. Rendering into it computes the exact Content-Length of a
+ * page without producing any output:
+ * <pre>{@code
+ * long contentLength = page.render(FlatHtml.into(new Utf8Length())).length();
+ * }</pre>
+ * Unpaired surrogates are counted as one byte, the '?' they are encoded as by
+ * {@link Utf8Output} and {@link String#getBytes(java.nio.charset.Charset)}.
+ */
+public class Utf8Length implements Appendable {
+
+    private long length;
+    private boolean afterHighSurrogate;
+
+    @Override
+    public Utf8Length append(CharSequence csq) {
+        if (csq == null) {
+            csq = "null";
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Utf8Length append(CharSequence csq, int start, int end) {
+        if (csq == null) {
+            csq = "null";
+        }
+        long length = this.length + end - start;
+        boolean afterHighSurrogate = this.afterHighSurrogate;
+        for (int i = start; i < end; i++) {
+            char c = csq.charAt(i);
+            if (c < 0x80) {
+                afterHighSurrogate = false;
+            } else {
+                length += extraBytes(c, afterHighSurrogate);
+                afterHighSurrogate = Character.isHighSurrogate(c);
+            }
+        }
+        this.length = length;
+        this.afterHighSurrogate = afterHighSurrogate;
+        return this;
+    }
+
+    @Override
+    public Utf8Length append(char c) {
+        length += 1 + extraBytes(c, afterHighSurrogate);
+        afterHighSurrogate = Character.isHighSurrogate(c);
+        return this;
+    }
+
+    /**
+     * The bytes of a character beyond the first. A surrogate pair takes 4 bytes,
+     * counted as 1 for the high and 3 for the low surrogate.
+     */
+    private static int extraBytes(char c, boolean afterHighSurrogate) {
+        if (c < 0x80) {
+            return 0;
+        } else if (c < 0x800) {
+            return 1;
+        } else if (Character.isHighSurrogate(c)) {
+            return 0;
+        } else if (Character.isLowSurrogate(c)) {
+            return afterHighSurrogate ? 2 : 0;
+        }
+        return 2;
+    }
+
+    /**
+     * Counts bytes which have been measured before, e.g. the cached length of a static subtree.
+     * The bytes must not start with a low surrogate.
+     *
+     * @param bytes the number of bytes
+     * @return itself for easy chaining
+     */
+    public Utf8Length add(long bytes) {
+        length += bytes;
+        afterHighSurrogate = false;
+        return this;
+    }
+
+    /**
+     * @return the number of bytes counted so far
+     */
+    public long length() {
+        return length;
+    }
+}
@@ -0,0 +1,215 @@
+package j2html.rendering;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An Appendable which encodes everything appended to it as UTF-8 into a fixed
+ * buffer, and writes the buffer to an OutputStream whenever it is full. Rendering
+ * into it streams the page as bytes without ever holding the whole page as a
+ * String or a byte array.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * try (Utf8Output out = new Utf8Output(response.getOutputStream())) {
+ *     page.render(FlatHtml.into(out));
+ * }
+ * }</pre>
+ * Unpaired surrogates are encoded as '?', like {@link String#getBytes(java.nio.charset.Charset)} does.
+ * Subclasses can override {@link #commit(int, boolean)} to act before the first byte
+ * is written, e.g. to send a Content-Length header when the whole output fit into the buffer.
+ * Instances are not thread safe.
+ */
+public class Utf8Output implements Appendable, Flushable, Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    private char highSurrogate;
+    private boolean committed;
+    private boolean closed;
+    private long written;
+
+    public Utf8Output(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param out        the stream to write to
+     * @param bufferSize the size of the buffer in bytes, at least 4
+     */
+    public Utf8Output(OutputStream out, int bufferSize) {
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("Buffer size must be at least 4 bytes: " + bufferSize);
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public Utf8Output append(CharSequence csq) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Utf8Output append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        checkOpen();
+        byte[] buffer = this.buffer;
+        int i = start;
+        while (i < end) {
+            if (highSurrogate == 0) {
+                // ASCII is by far the most common case for markup
+                int position = this.position;
+                int limit = Math.min(end, i + buffer.length - position);
+                char c;
+                while (i < limit && (c = csq.charAt(i)) < 0x80) {
+                    buffer[position++] = (byte) c;
+                    i++;
+                }
+                this.position = position;
+                if (i == end) {
+                    break;
+                }
+            }
+            if (buffer.length - position < 4) {
+                drain();
+            } else {
+                encode(csq.charAt(i++));
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public Utf8Output append(char c) throws IOException {
+        checkOpen();
+        if (buffer.length - position < 4) {
+            drain();
+        }
+        encode(c);
+        return this;
+    }
+
+    /**
+     * Encodes one char, which needs at most 4 free bytes in the buffer
+     */
+    private void encode(char c) {
+        byte[] buffer = this.buffer;
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            buffer[position++] = '?';
+        }
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer[position++] = '?';
+        } else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    /**
+     * Called once, right before the first byte is written to the stream.
+     *
+     * @param bufferedBytes the number of bytes which are about to be written
+     * @param complete      true if these are all bytes of the output, because it is being closed
+     */
+    protected void commit(int bufferedBytes, boolean complete) throws IOException {
+    }
+
+    /**
+     * @return true if bytes have been written to the stream
+     */
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * @return the number of bytes written so far, including the ones still in the buffer
+     */
+    public long size() {
+        return written + position;
+    }
+
+    /**
+     * Writes the buffered bytes to the stream and flushes the stream.
+     * A high surrogate at the end of the output so far is kept until its low surrogate is appended.
+     */
+    @Override
+    public void flush() throws IOException {
+        checkOpen();
+        drain(false);
+        out.flush();
+    }
+
+    /**
+     * Writes the buffered bytes to the stream and closes the stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                if (position == buffer.length) {
+                    drain(false);
+                }
+                buffer[position++] = '?';
+            }
+            drain(true);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        drain(false);
+    }
+
+    private void drain(boolean complete) throws IOException {
+        if (!committed) {
+            committed = true;
+            commit(position, complete);
+        }
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            written += position;
+            position = 0;
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Output closed");
+        }
+    }
+}
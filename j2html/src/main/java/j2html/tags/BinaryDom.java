@@ -0,0 +1,517 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.attributes.Attribute;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+import j2html.rendering.TagBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary format for trees of {@link ContainerTag}, {@link EmptyTag},
+ * {@link Text} and {@link UnescapedText}, for caching built trees across JVM
+ * restarts or sending them to other nodes.
+ * <p>
+ * The format starts with a header and a table of all distinct strings, followed
+ * by the nodes in document order. All numbers are varints. Element and attribute
+ * names defined in the html.model are written as ids instead of strings, and the
+ * header contains a fingerprint of the names, so data written with a different
+ * model version is rejected.
+ * <p>
+ * Serialized trees can be turned back into tags with {@link #readFrom(ByteBuffer)},
+ * or rendered directly from the buffer, e.g. a memory-mapped file, without
+ * creating any tags:
+ * <pre>{@code
+ * BinaryDom.writeTo(page, out);
+ * ...
+ * BinaryDom.render(buffer, FlatHtml.into(writer));
+ * }</pre>
+ * Like {@link DomArena}, serialization takes a snapshot: other DomContent is
+ * written as the HTML it renders, and attributes are written with their current value
+ * (Attribute subclasses as they render without a model).
+ */
+public final class BinaryDom {
+
+    private static final byte[] MAGIC = {'J', '2', 'H', 'B'};
+    private static final int VERSION = 2;
+
+    private static final int END = 0;
+    private static final int TEXT = 1;
+    private static final int UNESCAPED_TEXT = 2;
+    private static final int EMPTY_TAG = 3;
+    private static final int CONTAINER_TAG = 4;
+    private static final int UNNAMED_CONTAINER_TAG = 5;
+
+    private static final Map<String, Integer> ELEMENT_IDS = ids(HtmlNames.ELEMENTS);
+    private static final Map<String, Integer> ATTRIBUTE_IDS = ids(HtmlNames.ATTRIBUTES);
+
+    private BinaryDom() {
+    }
+
+    private static Map<String, Integer> ids(String[] names) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            ids.put(names[i], i);
+        }
+        return ids;
+    }
+
+    /**
+     * Serializes a tree. The stream is flushed, but not closed.
+     *
+     * @param content the root of the tree
+     * @param out     the stream to write to
+     */
+    public static void writeTo(DomContent content, OutputStream out) throws IOException {
+        Writer writer = new Writer(out instanceof BufferedOutputStream || out instanceof ByteArrayOutputStream ? out : new BufferedOutputStream(out));
+        TreeWalker.walk(content, writer::collect);
+        writer.writeHeader();
+        TreeWalker.walk(content, writer::write);
+        writer.out.flush();
+    }
+
+    /**
+     * Serializes a tree into a byte array
+     *
+     * @param content the root of the tree
+     * @return the serialized tree
+     */
+    public static byte[] toBytes(DomContent content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeTo(content, out);
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Deserializes a tree, starting at the buffer's position. Afterwards the
+     * position is just after the tree.
+     *
+     * @param buffer the serialized tree
+     * @return the root of the tree
+     * @throws IllegalArgumentException if the buffer does not contain a valid tree
+     */
+    public static DomContent readFrom(ByteBuffer buffer) {
+        Reader reader = new Reader(buffer);
+        List<ContainerTag<?>> parents = new ArrayList<>();
+        DomContent root = null;
+        try {
+            do {
+                int kind = reader.varint();
+                DomContent node;
+                switch (kind) {
+                    case END:
+                        if (parents.isEmpty()) {
+                            throw new IllegalArgumentException("Unexpected end of element");
+                        }
+                        node = parents.remove(parents.size() - 1);
+                        if (parents.isEmpty()) {
+                            return node;
+                        }
+                        continue;
+                    case TEXT:
+                        node = new Text(reader.string());
+                        break;
+                    case UNESCAPED_TEXT:
+                        node = new UnescapedText(reader.string());
+                        break;
+                    case EMPTY_TAG:
+                        node = reader.attributes(new EmptyTag<>(reader.elementName()));
+                        break;
+                    case CONTAINER_TAG:
+                    case UNNAMED_CONTAINER_TAG:
+                        node = reader.attributes(new ContainerTag<>(kind == CONTAINER_TAG ? reader.elementName() : null));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown node kind: " + kind);
+                }
+                if (!parents.isEmpty()) {
+                    parents.get(parents.size() - 1).with(node);
+                } else {
+                    root = node;
+                }
+                if (node instanceof ContainerTag) {
+                    parents.add((ContainerTag<?>) node);
+                }
+            } while (!parents.isEmpty());
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated serialized tree", e);
+        }
+        return root;
+    }
+
+    /**
+     * Renders a serialized tree directly from the buffer, without creating tags.
+     * Afterwards the position of the buffer is just after the tree.
+     *
+     * @param buffer  the serialized tree
+     * @param builder the HtmlBuilder to render to
+     * @return the output of the builder
+     */
+    public static <A extends Appendable> A render(ByteBuffer buffer, HtmlBuilder<A> builder) throws IOException {
+        Reader reader = new Reader(buffer);
+        reader.render(builder);
+        return builder.output();
+    }
+
+    /**
+     * Returns DomContent which renders the serialized tree straight from the
+     * buffer, every time it is rendered. The string table is decoded once.
+     * The buffer must not be modified while the view is in use.
+     *
+     * @param buffer the serialized tree, from its position to its limit
+     * @return the view
+     */
+    public static DomContent view(ByteBuffer buffer) {
+        return new View(buffer.slice());
+    }
+
+    private static final class Writer {
+        private final OutputStream out;
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final Map<DomContent, String> snapshots = new IdentityHashMap<>();
+        private final Map<Tag<?>, List<Attribute>> attributes = new IdentityHashMap<>();
+
+        private Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void collect(DomContent node, boolean closing) {
+            if (closing) {
+                return;
+            }
+            switch (NodeRenderer.kindOf(node)) {
+                case NodeRenderer.TEXT:
+                    id(((Text) node).text());
+                    break;
+                case NodeRenderer.UNESCAPED_TEXT:
+                    id(((UnescapedText) node).text());
+                    break;
+                case NodeRenderer.EMPTY_TAG:
+                case NodeRenderer.CONTAINER_TAG:
+                    Tag<?> tag = (Tag<?>) node;
+                    if (tag.hasTagName() && !ELEMENT_IDS.containsKey(tag.getTagName())) {
+                        id(tag.getTagName());
+                    }
+                    List<Attribute> stored = StoredAttributes.of(tag);
+                    attributes.put(tag, stored);
+                    for (Attribute attribute : stored) {
+                        if (!ATTRIBUTE_IDS.containsKey(attribute.getName())) {
+                            id(attribute.getName());
+                        }
+                        if (attribute.getValue() != null) {
+                            id(attribute.getValue());
+                        }
+                    }
+                    break;
+                case NodeRenderer.FRAGMENT:
+                    break;
+                default:
+                    String html = node.render();
+                    snapshots.put(node, html);
+                    id(html);
+            }
+        }
+
+        private int id(String string) {
+            Integer id = stringIds.get(string);
+            if (id == null) {
+                id = strings.size();
+                stringIds.put(string, id);
+                strings.add(string);
+            }
+            return id;
+        }
+
+        void writeHeader() throws IOException {
+            out.write(MAGIC);
+            varint(VERSION);
+            varint(HtmlNames.FINGERPRINT);
+            varint(strings.size());
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                varint(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        void write(DomContent node, boolean closing) throws IOException {
+            if (closing) {
+                varint(END);
+                return;
+            }
+            switch (NodeRenderer.kindOf(node)) {
+                case NodeRenderer.TEXT:
+                    varint(TEXT);
+                    varint(stringIds.get(((Text) node).text()));
+                    break;
+                case NodeRenderer.UNESCAPED_TEXT:
+                    varint(UNESCAPED_TEXT);
+                    varint(stringIds.get(((UnescapedText) node).text()));
+                    break;
+                case NodeRenderer.EMPTY_TAG:
+                case NodeRenderer.CONTAINER_TAG:
+                    Tag<?> tag = (Tag<?>) node;
+                    if (!tag.hasTagName()) {
+                        varint(UNNAMED_CONTAINER_TAG);
+                    } else {
+                        varint(tag instanceof EmptyTag ? EMPTY_TAG : CONTAINER_TAG);
+                        name(tag.getTagName(), ELEMENT_IDS);
+                    }
+                    writeAttributes(tag);
+                    break;
+                case NodeRenderer.FRAGMENT:
+                    varint(UNNAMED_CONTAINER_TAG);
+                    varint(0);
+                    break;
+                default:
+                    varint(UNESCAPED_TEXT);
+                    varint(stringIds.get(snapshots.get(node)));
+            }
+        }
+
+        private void writeAttributes(Tag<?> tag) throws IOException {
+            List<Attribute> stored = attributes.get(tag);
+            varint(stored.size());
+            for (Attribute attribute : stored) {
+                name(attribute.getName(), ATTRIBUTE_IDS);
+                varint(attribute.getValue() == null ? 0 : stringIds.get(attribute.getValue()) + 1);
+            }
+        }
+
+        /**
+         * Names of the model are written as (id << 1) | 1, all others as (string id << 1)
+         */
+        private void name(String name, Map<String, Integer> dictionary) throws IOException {
+            Integer id = dictionary.get(name);
+            varint(id != null ? id << 1 | 1 : stringIds.get(name) << 1);
+        }
+
+        private void varint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final String[] strings;
+
+        private Reader(ByteBuffer buffer) {
+            this(buffer, null);
+        }
+
+        private Reader(ByteBuffer buffer, String[] strings) {
+            this.buffer = buffer;
+            this.strings = strings != null ? strings : readHeader();
+        }
+
+        private String[] readHeader() {
+            try {
+                byte[] magic = new byte[MAGIC.length];
+                buffer.get(magic);
+                if (!Arrays.equals(magic, MAGIC)) {
+                    throw new IllegalArgumentException("Not a serialized j2html tree");
+                }
+                int version = varint();
+                if (version != VERSION) {
+                    throw new IllegalArgumentException("Unsupported format version: " + version);
+                }
+                if (varint() != HtmlNames.FINGERPRINT) {
+                    throw new IllegalArgumentException("Tree was serialized with a different html.model");
+                }
+                // every string takes at least the byte of its length
+                String[] strings = new String[count(1)];
+                for (int i = 0; i < strings.length; i++) {
+                    byte[] bytes = new byte[count(1)];
+                    buffer.get(bytes);
+                    strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                return strings;
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("Truncated serialized tree", e);
+            }
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        /**
+         * Reads a count of items, each taking at least the given number of bytes,
+         * so corrupt data cannot make the reader allocate more than the buffer holds
+         */
+        private int count(int minBytesPerItem) {
+            int count = varint();
+            if (count < 0 || count > buffer.remaining() / minBytesPerItem) {
+                throw new IllegalArgumentException("Corrupt serialized tree: " + count + " items in " + buffer.remaining() + " bytes");
+            }
+            return count;
+        }
+
+        private static String lookup(String[] table, int id) {
+            if (id < 0 || id >= table.length) {
+                throw new IllegalArgumentException("Corrupt serialized tree: id " + id + " of " + table.length);
+            }
+            return table[id];
+        }
+
+        String string() {
+            return lookup(strings, varint());
+        }
+
+        String elementName() {
+            return name(HtmlNames.ELEMENTS);
+        }
+
+        private String name(String[] dictionary) {
+            int code = varint();
+            return lookup((code & 1) != 0 ? dictionary : strings, code >>> 1);
+        }
+
+        private String attributeValue() {
+            int value = varint();
+            return value == 0 ? null : lookup(strings, value - 1);
+        }
+
+        <T extends Tag<?>> T attributes(T tag) {
+            int count = count(2);
+            for (int i = 0; i < count; i++) {
+                String name = name(HtmlNames.ATTRIBUTES);
+                String value = attributeValue();
+                tag.getAttributes().add(value == null ? new Attribute(name) : new Attribute(name, value));
+            }
+            return tag;
+        }
+
+        private void renderAttributes(TagBuilder tag) throws IOException {
+            int count = count(2);
+            for (int i = 0; i < count; i++) {
+                String name = name(HtmlNames.ATTRIBUTES);
+                String value = attributeValue();
+                if (value == null) {
+                    tag.appendBooleanAttribute(name);
+                } else {
+                    tag.appendAttribute(name, value);
+                }
+            }
+            tag.completeTag();
+        }
+
+        private void skipAttributes() {
+            int count = count(2);
+            for (int i = 0; i < count; i++) {
+                varint();
+                varint();
+            }
+        }
+
+        void render(HtmlBuilder<?> builder) throws IOException {
+            // names of the open elements, null for unnamed containers
+            String[] open = new String[32];
+            int depth = 0;
+            try {
+                do {
+                    int kind = varint();
+                    switch (kind) {
+                        case END:
+                            if (depth == 0) {
+                                throw new IllegalArgumentException("Unexpected end of element");
+                            }
+                            String name = open[--depth];
+                            open[depth] = null;
+                            if (name != null) {
+                                builder.appendEndTag(name);
+                            }
+                            break;
+                        case TEXT:
+                            builder.appendEscapedText(string());
+                            break;
+                        case UNESCAPED_TEXT:
+                            builder.appendUnescapedText(string());
+                            break;
+                        case EMPTY_TAG:
+                            renderAttributes(builder.appendEmptyTag(elementName()));
+                            break;
+                        case CONTAINER_TAG:
+                        case UNNAMED_CONTAINER_TAG:
+                            String element = kind == CONTAINER_TAG ? elementName() : null;
+                            if (element != null) {
+                                renderAttributes(builder.appendStartTag(element));
+                            } else {
+                                skipAttributes();
+                            }
+                            if (depth == open.length) {
+                                open = Arrays.copyOf(open, depth * 2);
+                            }
+                            open[depth++] = element;
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown node kind: " + kind);
+                    }
+                } while (depth > 0);
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("Truncated serialized tree", e);
+            }
+        }
+    }
+
+    private static final class View extends DomContent {
+        private final ByteBuffer buffer;
+        private final String[] strings;
+        private final int treeOffset;
+
+        private View(ByteBuffer buffer) {
+            ByteBuffer header = buffer.duplicate();
+            this.strings = new Reader(header).strings;
+            this.treeOffset = header.position();
+            this.buffer = buffer;
+        }
+
+        @Override
+        public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+            ByteBuffer tree = buffer.duplicate();
+            tree.position(treeOffset);
+            new Reader(tree, strings).render(builder);
+            return builder.output();
+        }
+
+        @Override
+        @Deprecated
+        public void renderModel(Appendable writer, Object model) throws IOException {
+            HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
+                ? (HtmlBuilder<?>) writer
+                : FlatHtml.into(writer, Config.current());
+
+            render(builder, model);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.attributes.Attribute;
+import j2html.rendering.ArenaAllocator;
+import j2html.rendering.BufferAllocator;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.RefCountedBuffer;
+import j2html.rendering.Utf8Output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders a tree as UTF-8 into a list of ByteBuffers instead of one contiguous buffer,
+ * for NIO servers which write with {@link GatheringByteChannel#write(ByteBuffer[])}.
+ * <p>
+ * A sealed tag (see {@link Tag#seal()}) whose subtree is static - only sealed tags with
+ * plain {@link Attribute}s, {@link Text} and {@link UnescapedText} - is encoded once per
+ * render settings (see {@link Config#rendersLike(Config)}) into a direct buffer, and every
+ * render adds a read-only duplicate of it to its segments: the bytes of a shared header or
+ * footer are never copied again, not even by the channel. Everything else is encoded into small
+ * buffers from a {@link BufferAllocator}, by default the direct memory arena
+ * {@link ArenaAllocator#shared()}, which {@link #close()} releases.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * try (ByteSegments segments = ByteSegments.render(page)) {
+ *     segments.writeTo(channel);
+ * }
+ * }</pre>
+ * Instances are not thread safe, the shared buffers are.
+ */
+public final class ByteSegments implements Closeable {
+
+    static final int CHUNK_SIZE = 4096;
+
+    private final ByteBuffer[] buffers;
+    private final List<RefCountedBuffer> chunks;
+    private final int sharedSegments;
+    private final long length;
+    private int next;
+    private boolean closed;
+
+    private ByteSegments(Gatherer gatherer) {
+        this.buffers = gatherer.segments.toArray(new ByteBuffer[0]);
+        this.chunks = gatherer.stream.chunks;
+        this.sharedSegments = gatherer.sharedSegments;
+        long length = 0;
+        for (ByteBuffer buffer : buffers) {
+            length += buffer.remaining();
+        }
+        this.length = length;
+    }
+
+    /**
+     * @param content the content to render
+     * @return the segments of the content rendered with the current Config
+     */
+    public static ByteSegments render(DomContent content) {
+        return render(content, Config.current());
+    }
+
+    /**
+     * @param content the content to render
+     * @param config  the Config to render with
+     * @return the segments of the rendered content
+     */
+    public static ByteSegments render(DomContent content, Config config) {
+        return render(content, config, ArenaAllocator.shared());
+    }
+
+    /**
+     * @param content   the content to render
+     * @param config    the Config to render with
+     * @param allocator where the buffers of the dynamic parts come from
+     * @return the segments of the rendered content
+     */
+    public static ByteSegments render(DomContent content, Config config, BufferAllocator allocator) {
+        Gatherer gatherer = new Gatherer(config, allocator);
+        try {
+            gatherer.gather(content);
+            gatherer.endSegment();
+        } catch (IOException | RuntimeException e) {
+            release(gatherer.stream.chunks);
+            throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+        }
+        return new ByteSegments(gatherer);
+    }
+
+    /**
+     * The buffers to write, in order. Their positions advance as they are written,
+     * so the array can be passed to repeated calls of a non-blocking channel's write.
+     *
+     * @return the buffers of the rendered content
+     */
+    public ByteBuffer[] buffers() {
+        checkOpen();
+        return buffers;
+    }
+
+    /**
+     * @return the number of bytes of the rendered content
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return the number of buffers which are shared with other renders
+     */
+    public int sharedSegments() {
+        return sharedSegments;
+    }
+
+    /**
+     * @return true if some of the buffers have not been written completely
+     */
+    public boolean hasRemaining() {
+        checkOpen();
+        skipWritten();
+        return next < buffers.length;
+    }
+
+    /**
+     * Writes the remaining bytes to a blocking channel
+     *
+     * @param channel the channel to write to
+     * @return the number of bytes written
+     * @throws IOException if writing fails
+     */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        long written = 0;
+        while (hasRemaining()) {
+            written += channel.write(buffers, next, buffers.length - next);
+        }
+        return written;
+    }
+
+    /**
+     * Releases the buffers of the dynamic parts. The buffers must not be used anymore afterwards.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            release(chunks);
+        }
+    }
+
+    private void skipWritten() {
+        while (next < buffers.length && !buffers[next].hasRemaining()) {
+            next++;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The segments have been closed");
+        }
+    }
+
+    private static void release(List<RefCountedBuffer> chunks) {
+        for (RefCountedBuffer chunk : chunks) {
+            chunk.release();
+        }
+        chunks.clear();
+    }
+
+    /**
+     * Walks a tree like {@link ContentLength} does, adding the shared buffers of static
+     * subtrees to the segments and encoding everything else into the allocated chunks.
+     */
+    private static final class Gatherer {
+        private final Config config;
+        private final List<ByteBuffer> segments = new ArrayList<>();
+        private final ChunkStream stream;
+        private final Utf8Output utf8;
+        private final FlatHtml<Utf8Output> html;
+        private int sharedSegments;
+
+        private Gatherer(Config config, BufferAllocator allocator) {
+            this.config = config;
+            this.stream = new ChunkStream(segments, allocator);
+            this.utf8 = new Utf8Output(stream, 1024);
+            this.html = FlatHtml.into(utf8, config);
+        }
+
+        private void gather(DomContent node) throws IOException {
+            switch (NodeRenderer.kindOf(node)) {
+                case NodeRenderer.TEXT:
+                    ((Text) node).renderText(html);
+                    break;
+                case NodeRenderer.UNESCAPED_TEXT:
+                    ((UnescapedText) node).renderText(html);
+                    break;
+                case NodeRenderer.EMPTY_TAG:
+                    ((EmptyTag<?>) node).renderTag(html, null);
+                    break;
+                case NodeRenderer.CONTAINER_TAG:
+                    gatherContainer((ContainerTag<?>) node);
+                    break;
+                case NodeRenderer.FRAGMENT:
+                    for (DomContent child : ((Fragment) node).children()) {
+                        gather(child);
+                    }
+                    break;
+                default:
+                    node.render(html);
+            }
+        }
+
+        private void gatherContainer(ContainerTag<?> tag) throws IOException {
+            // only named tags start with '<', so their bytes do not depend on what precedes them
+            if (tag.isSealed() && tag.hasTagName()) {
+                Frozen frozen = tag.frozenBytes;
+                if (frozen == null || (frozen != Frozen.DYNAMIC && !config.rendersLike(frozen.config))) {
+                    frozen = freeze(tag, config);
+                    tag.frozenBytes = frozen;
+                }
+                if (frozen != Frozen.DYNAMIC) {
+                    endSegment();
+                    segments.add(frozen.bytes.duplicate());
+                    sharedSegments++;
+                    return;
+                }
+            }
+            tag.renderStartTag(html, null);
+            for (int i = 0; i < tag.getNumChildren(); i++) {
+                gather(tag.childAt(i));
+            }
+            tag.renderEndTag(html);
+        }
+
+        /**
+         * Ends the current dynamic segment, before a shared buffer is added
+         */
+        private void endSegment() throws IOException {
+            utf8.flush();
+            stream.endSegment();
+        }
+    }
+
+    private static Frozen freeze(ContainerTag<?> tag, Config config) throws IOException {
+        if (!isStatic(tag)) {
+            return Frozen.DYNAMIC;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Utf8Output utf8 = new Utf8Output(bytes)) {
+            tag.render(FlatHtml.into(utf8, config));
+        }
+        // a direct buffer is written to a channel without first being copied to a temporary direct buffer;
+        // it is never released explicitly, but freed with the tag
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.size());
+        direct.put(bytes.toByteArray()).flip();
+        return new Frozen(config, direct.asReadOnlyBuffer());
+    }
+
+    private static boolean isStatic(Tag<?> tag) {
+        if (!tag.isSealed()) {
+            return false;
+        }
+        for (Attribute attribute : tag.getAttributes()) {
+            if (attribute.getClass() != Attribute.class) {
+                return false;
+            }
+        }
+        if (!(tag instanceof ContainerTag)) {
+            return true;
+        }
+        ContainerTag<?> container = (ContainerTag<?>) tag;
+        for (int i = 0; i < container.getNumChildren(); i++) {
+            DomContent child = container.childAt(i);
+            switch (NodeRenderer.kindOf(child)) {
+                case NodeRenderer.TEXT:
+                case NodeRenderer.UNESCAPED_TEXT:
+                    break;
+                case NodeRenderer.EMPTY_TAG:
+                case NodeRenderer.CONTAINER_TAG:
+                    if (!isStatic((Tag<?>) child)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the bytes of dynamic parts into allocated chunks. A segment is the part of a
+     * chunk written between two shared buffers, so a chunk can hold several segments.
+     */
+    private static final class ChunkStream extends OutputStream {
+        private final List<ByteBuffer> segments;
+        private final BufferAllocator allocator;
+        private final List<RefCountedBuffer> chunks = new ArrayList<>();
+        private ByteBuffer chunk;
+        private int segmentStart;
+
+        private ChunkStream(List<ByteBuffer> segments, BufferAllocator allocator) {
+            this.segments = segments;
+            this.allocator = allocator;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                if (chunk == null || !chunk.hasRemaining()) {
+                    endSegment();
+                    RefCountedBuffer allocated = allocator.allocate(CHUNK_SIZE);
+                    chunks.add(allocated);
+                    chunk = allocated.buffer();
+                    segmentStart = 0;
+                }
+                int copied = Math.min(len, chunk.remaining());
+                chunk.put(b, off, copied);
+                off += copied;
+                len -= copied;
+            }
+        }
+
+        private void endSegment() {
+            if (chunk != null && chunk.position() > segmentStart) {
+                ByteBuffer segment = chunk.duplicate();
+                segment.limit(chunk.position());
+                segment.position(segmentStart);
+                segments.add(segment);
+                segmentStart = chunk.position();
+            }
+        }
+    }
+
+    /**
+     * The encoded bytes of a sealed tag
+     */
+    static final class Frozen {
+        static final Frozen DYNAMIC = new Frozen(null, null);
+
+        private final Config config;
+        private final ByteBuffer bytes;
+
+        private Frozen(Config config, ByteBuffer bytes) {
+            this.config = config;
+            this.bytes = bytes;
+        }
+    }
+}
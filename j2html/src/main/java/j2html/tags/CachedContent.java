@@ -0,0 +1,65 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.FragmentCache;
+import j2html.rendering.HtmlBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+/**
+ * A memoized component. When rendered with a {@link FlatHtml} builder, the component's
+ * output is looked up in a {@link FragmentCache} by component key and model, and only
+ * built and rendered on a cache miss. Other builders (e.g. formatted rendering) always
+ * build and render the component.
+ * <p>
+ * The output is cached per Config the builder was created with. The component is rendered
+ * from its own model only, the model passed to render is not passed on, since it is not
+ * part of the cache key. Tags rendered from the cache are not registered with the builder.
+ *
+ * @param <M> The type of the model the component is rendered from.
+ */
+public class CachedContent<M> extends DomContent {
+
+    private final FragmentCache cache;
+    private final String key;
+    private final M model;
+    private final Function<? super M, ? extends DomContent> component;
+
+    public CachedContent(FragmentCache cache, String key, M model, Function<? super M, ? extends DomContent> component) {
+        this.cache = cache;
+        this.key = key;
+        this.model = model;
+        this.component = component;
+    }
+
+    @Override
+    public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+        if (!(builder instanceof FlatHtml)) {
+            component.apply(this.model).render(builder);
+            return builder.output();
+        }
+        Config config = ((FlatHtml<T>) builder).config();
+        String html = cache.get(FragmentCache.key(key, this.model, config), () -> {
+            try {
+                return component.apply(this.model).render(FlatHtml.into(new StringBuilder(), config)).toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        builder.appendUnescapedText(html);
+        return builder.output();
+    }
+
+    @Override
+    @Deprecated
+    public void renderModel(Appendable writer, Object model) throws IOException {
+        HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
+            ? (HtmlBuilder<?>) writer
+            : FlatHtml.into(writer, Config.current());
+
+        render(builder, model);
+    }
+}
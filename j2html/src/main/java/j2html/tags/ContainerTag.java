@@ -9,6 +9,8 @@ import j2html.rendering.TagBuilder;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -17,6 +19,11 @@ import java.util.stream.Stream;
 public class ContainerTag<T extends ContainerTag<T>> extends Tag<T> {
 
     protected List<DomContent> children;
+    private DomContent[] sealedChildren;
+    // set by ContentLength once sealed, a benign race as Measured is immutable
+    ContentLength.Measured measuredLength;
+    // set by ByteSegments once sealed, a benign race as Frozen is immutable
+    ByteSegments.Frozen frozenBytes;
 
     public ContainerTag(String tagName) {
         super(tagName);
@@ -25,16 +32,21 @@ public class ContainerTag<T extends ContainerTag<T>> extends Tag<T> {
 
 
     /**
-     * Appends a DomContent-object to the end of this element
+     * Appends a DomContent-object to the end of this element.
+     * The children of a {@link Fragment} are appended individually.
      *
      * @param child DomContent-object to be appended
      * @return itself for easy chaining
      */
     public T with(DomContent child) {
+        checkNotSealed();
         if (this == child) {
             throw new RuntimeException("Cannot append a tag to itself.");
         }
-        if (child != null) {
+        if (child instanceof Fragment) {
+            // splice the fragment instead of keeping a wrapper in the tree
+            Collections.addAll(children, ((Fragment) child).children());
+        } else if (child != null) {
             // in some cases, like when using iff(), we ignore null children
             children.add(child);
         }
@@ -157,16 +169,33 @@ public class ContainerTag<T extends ContainerTag<T>> extends Tag<T> {
         return children.size();
     }
 
+    @Override
+    protected void sealContent() {
+        for (DomContent child : children) {
+            if (child instanceof Tag) {
+                ((Tag<?>) child).seal();
+            }
+        }
+        sealedChildren = children.toArray(new DomContent[0]);
+        children = Collections.unmodifiableList(Arrays.asList(sealedChildren));
+    }
+
+    @Override
+    protected void resetContent() {
+        // children are dropped, not reset, so sealed children shared with other trees stay intact
+        children.clear();
+    }
+
     /**
      * Render the ContainerTag and its children, adding newlines before each
-     * child and using Config.indenter to indent child based on how deep
+     * child and using the Config indenter to indent child based on how deep
      * in the tree it is
      *
      * @return the rendered and formatted string
      */
     public String renderFormatted() {
         try {
-            return render(IndentedHtml.into(new StringBuilder(), Config.global())).toString();
+            return render(IndentedHtml.into(new StringBuilder(), Config.current())).toString();
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage(), e);
         }
@@ -174,6 +203,27 @@ public class ContainerTag<T extends ContainerTag<T>> extends Tag<T> {
 
     @Override
     public <A extends Appendable> A render(HtmlBuilder<A> builder, Object model) throws IOException {
+        renderTag(builder, model);
+        return builder.output();
+    }
+
+    final void renderTag(HtmlBuilder<?> builder, Object model) throws IOException {
+        renderStartTag(builder, model);
+
+        if (isSealed()) {
+            for (DomContent child : sealedChildren) {
+                NodeRenderer.render(child, builder, model);
+            }
+        } else {
+            for (DomContent child : children) {
+                NodeRenderer.render(child, builder, model);
+            }
+        }
+
+        renderEndTag(builder);
+    }
+
+    void renderStartTag(HtmlBuilder<?> builder, Object model) throws IOException {
         if (hasTagName()) {
             TagBuilder tagBuilder = builder.appendStartTag(getTagName());
             for (Attribute attribute : getAttributes()) {
@@ -182,16 +232,16 @@ public class ContainerTag<T extends ContainerTag<T>> extends Tag<T> {
             tagBuilder.completeTag();
             builder.registerTag(getId(), this);
         }
+    }
 
-        for (DomContent child : children) {
-            child.render(builder, model);
-        }
-
+    void renderEndTag(HtmlBuilder<?> builder) throws IOException {
         if (hasTagName()) {
             builder.appendEndTag(getTagName());
         }
+    }
 
-        return builder.output();
+    DomContent childAt(int index) {
+        return isSealed() ? sealedChildren[index] : children.get(index);
     }
 
     private String getId() {
@@ -203,7 +253,7 @@ public class ContainerTag<T extends ContainerTag<T>> extends Tag<T> {
     public void renderModel(Appendable writer, Object model) throws IOException {
         HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
             ? (HtmlBuilder<?>) writer
-            : FlatHtml.into(writer, Config.global());
+            : FlatHtml.into(writer, Config.current());
 
         render(builder, model);
     }
@@ -0,0 +1,184 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.attributes.Attribute;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.Utf8Length;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Computes the exact number of bytes a tree renders to as UTF-8 with {@link FlatHtml},
+ * escaping included, without producing any output. Sending this as Content-Length and
+ * then streaming the page avoids buffering the whole page just to learn its length.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * response.setContentLengthLong(ContentLength.of(page));
+ * page.render(FlatHtml.into(new Utf8Output(response.getOutputStream())));
+ * }</pre>
+ * The length of a sealed tag (see {@link Tag#seal()}) whose subtree is static - only sealed
+ * tags with plain {@link Attribute}s, {@link Text} and {@link UnescapedText} - is cached
+ * in the tag, for the render settings it was measured with (see {@link Config#rendersLike(Config)}).
+ * Measuring the same shared header or footer again only adds up the cached length, also with
+ * per-request Configs which only differ in their render budget or cancellation token.
+ * <p>
+ * Other content is measured by rendering it. Content which can only be rendered once,
+ * like {@link StreamedContent} or a {@link DataTable} of a Stream, therefore cannot be
+ * measured: {@link #of(DomContent, Config)} rejects it before consuming it, and
+ * {@link #isMeasurable(DomContent)} tells in advance.
+ */
+public final class ContentLength {
+
+    private final FlatHtml<Utf8Length> html;
+    private final Utf8Length counter;
+    private final Config config;
+    private long dynamicNodes;
+
+    private ContentLength(Config config) {
+        this.config = config;
+        this.counter = new Utf8Length();
+        this.html = FlatHtml.into(counter, config);
+    }
+
+    /**
+     * @param content the content to measure
+     * @return the number of bytes the content renders to with the current Config
+     * @throws IllegalArgumentException if the tree contains content which can only be rendered once
+     */
+    public static long of(DomContent content) {
+        return of(content, Config.current());
+    }
+
+    /**
+     * @param content the content to measure
+     * @param config  the Config the content will be rendered with
+     * @return the number of bytes the content renders to
+     * @throws IllegalArgumentException if the tree contains content which can only be rendered once
+     */
+    public static long of(DomContent content, Config config) {
+        ContentLength length = new ContentLength(config);
+        try {
+            length.measure(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return length.counter.length();
+    }
+
+    /**
+     * Checks the tree, without rendering anything, for content which can only be rendered
+     * once. Content nested inside custom DomContent is not seen by this check.
+     *
+     * @param content the content to check
+     * @return true if the content can be measured and rendered afterwards
+     */
+    public static boolean isMeasurable(DomContent content) {
+        boolean[] measurable = {true};
+        try {
+            TreeWalker.walk(content, (node, closing) -> {
+                if (isSingleUse(node)) {
+                    measurable[0] = false;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return measurable[0];
+    }
+
+    private static boolean isSingleUse(DomContent node) {
+        return node instanceof StreamedContent && ((StreamedContent<?>) node).isSingleUse()
+            || node instanceof DataTable && ((DataTable<?>) node).isSingleUse();
+    }
+
+    private void measure(DomContent node) throws IOException {
+        switch (NodeRenderer.kindOf(node)) {
+            case NodeRenderer.TEXT:
+                ((Text) node).renderText(html);
+                break;
+            case NodeRenderer.UNESCAPED_TEXT:
+                ((UnescapedText) node).renderText(html);
+                break;
+            case NodeRenderer.EMPTY_TAG:
+                EmptyTag<?> emptyTag = (EmptyTag<?>) node;
+                checkAttributes(emptyTag);
+                emptyTag.renderTag(html, null);
+                break;
+            case NodeRenderer.CONTAINER_TAG:
+                measureContainer((ContainerTag<?>) node);
+                break;
+            case NodeRenderer.FRAGMENT:
+                dynamicNodes++;
+                for (DomContent child : ((Fragment) node).children()) {
+                    measure(child);
+                }
+                break;
+            default:
+                if (isSingleUse(node)) {
+                    throw new IllegalArgumentException("Content streamed from an Iterator, Stream or Spliterator "
+                        + "cannot be measured, since it can only be rendered once");
+                }
+                dynamicNodes++;
+                node.render(html);
+        }
+    }
+
+    private void measureContainer(ContainerTag<?> tag) throws IOException {
+        // only named tags start with '<', so their length does not depend on what precedes them
+        boolean cacheable = tag.isSealed() && tag.hasTagName();
+        if (cacheable) {
+            Measured measured = tag.measuredLength;
+            if (measured == Measured.DYNAMIC) {
+                cacheable = false;
+            } else if (measured != null && config.rendersLike(measured.config)) {
+                counter.add(measured.length);
+                return;
+            }
+        }
+
+        long start = counter.length();
+        long dynamicBefore = dynamicNodes;
+        checkAttributes(tag);
+        tag.renderStartTag(html, null);
+        for (int i = 0; i < tag.getNumChildren(); i++) {
+            measure(tag.childAt(i));
+        }
+        tag.renderEndTag(html);
+
+        if (cacheable) {
+            tag.measuredLength = dynamicNodes == dynamicBefore
+                ? new Measured(config, counter.length() - start)
+                : Measured.DYNAMIC;
+        }
+    }
+
+    private void checkAttributes(Tag<?> tag) {
+        if (!tag.isSealed()) {
+            dynamicNodes++;
+            return;
+        }
+        for (Attribute attribute : tag.getAttributes()) {
+            if (attribute.getClass() != Attribute.class) {
+                dynamicNodes++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * The cached length of a sealed tag
+     */
+    static final class Measured {
+        static final Measured DYNAMIC = new Measured(null, -1);
+
+        private final Config config;
+        private final long length;
+
+        private Measured(Config config, long length) {
+            this.config = config;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.attributes.Attribute;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+import j2html.rendering.TagBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Renders a table from a source of rows and a list of column definitions.
+ * Rows and cells are written directly to the HtmlBuilder; no tags are created
+ * per row or cell, which makes this considerably cheaper than building the
+ * equivalent table with {@link j2html.TagCreator#each}.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * DataTable.of(employees)
+ *     .intColumn("Id", Employee::getId)
+ *     .column("Name", Employee::getName)
+ *     .doubleColumn("Salary", Employee::getSalary, new Attribute("class", "number"))
+ * }</pre>
+ * A table built from an Iterable can be rendered any number of times, a table
+ * built from a Stream only once.
+ *
+ * @param <R> The type of the rows.
+ */
+public class DataTable<R> extends DomContent {
+
+    private static final int OBJECT = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int CONTENT = 4;
+
+    private static final Attribute[] NO_ATTRIBUTES = new Attribute[0];
+
+    private final ElementSource<? extends R> rows;
+    private final List<Column<R>> columns = new ArrayList<>();
+    private final List<Attribute> attributes = new ArrayList<>();
+
+    private DataTable(ElementSource<? extends R> rows) {
+        this.rows = rows;
+    }
+
+    public static <R> DataTable<R> of(Iterable<? extends R> rows) {
+        return new DataTable<>(ElementSource.of(rows));
+    }
+
+    public static <R> DataTable<R> of(Stream<? extends R> rows) {
+        return new DataTable<>(ElementSource.of(rows));
+    }
+
+    /**
+     * Adds a column whose cells contain the escaped String value of the accessor's result.
+     * A null result renders as an empty cell.
+     *
+     * @param header         the text of the header cell, or null
+     * @param accessor       the function returning the cell value of a row
+     * @param cellAttributes attributes added to every cell of this column
+     * @return itself for easy chaining
+     */
+    public DataTable<R> column(String header, Function<? super R, ?> accessor, Attribute... cellAttributes) {
+        return add(new Column<>(header, OBJECT, accessor, null, null, null, cellAttributes));
+    }
+
+    /**
+     * Adds a column whose cells contain an int value, without boxing.
+     */
+    public DataTable<R> intColumn(String header, ToIntFunction<? super R> accessor, Attribute... cellAttributes) {
+        return add(new Column<>(header, INT, null, accessor, null, null, cellAttributes));
+    }
+
+    /**
+     * Adds a column whose cells contain a long value, without boxing.
+     */
+    public DataTable<R> longColumn(String header, ToLongFunction<? super R> accessor, Attribute... cellAttributes) {
+        return add(new Column<>(header, LONG, null, null, accessor, null, cellAttributes));
+    }
+
+    /**
+     * Adds a column whose cells contain a double value, without boxing.
+     */
+    public DataTable<R> doubleColumn(String header, ToDoubleFunction<? super R> accessor, Attribute... cellAttributes) {
+        return add(new Column<>(header, DOUBLE, null, null, null, accessor, cellAttributes));
+    }
+
+    /**
+     * Adds a column whose cells contain arbitrary DomContent.
+     */
+    public DataTable<R> contentColumn(String header, Function<? super R, ? extends DomContent> accessor, Attribute... cellAttributes) {
+        return add(new Column<>(header, CONTENT, accessor, null, null, null, cellAttributes));
+    }
+
+    /**
+     * Sets an attribute on the table element
+     *
+     * @param name  the attribute name
+     * @param value the attribute value, or null for a boolean attribute
+     * @return itself for easy chaining
+     */
+    public DataTable<R> attr(String name, String value) {
+        attributes.add(new Attribute(name, value));
+        return this;
+    }
+
+    private DataTable<R> add(Column<R> column) {
+        columns.add(column);
+        return this;
+    }
+
+    boolean isSingleUse() {
+        return rows.isSingleUse();
+    }
+
+    @Override
+    public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+        @SuppressWarnings("unchecked")
+        Column<R>[] columns = this.columns.toArray(new Column[0]);
+
+        TagBuilder table = builder.appendStartTag("table");
+        for (Attribute attribute : attributes) {
+            attribute.render(table, model);
+        }
+        table.completeTag();
+
+        if (hasHeader(columns)) {
+            builder.appendStartTag("thead").completeTag();
+            builder.appendStartTag("tr").completeTag();
+            for (Column<R> column : columns) {
+                builder.appendStartTag("th").completeTag();
+                if (column.header != null) {
+                    builder.appendEscapedText(column.header);
+                }
+                builder.appendEndTag("th");
+            }
+            builder.appendEndTag("tr");
+            builder.appendEndTag("thead");
+        }
+
+        builder.appendStartTag("tbody").completeTag();
+        Iterator<? extends R> iterator = rows.open();
+        try {
+            while (iterator.hasNext()) {
+                R row = iterator.next();
+                builder.appendStartTag("tr").completeTag();
+                for (Column<R> column : columns) {
+                    renderCell(builder, column, row, model);
+                }
+                builder.appendEndTag("tr");
+            }
+        } finally {
+            rows.close();
+        }
+        builder.appendEndTag("tbody");
+        builder.appendEndTag("table");
+        return builder.output();
+    }
+
+    private static boolean hasHeader(Column<?>[] columns) {
+        for (Column<?> column : columns) {
+            if (column.header != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <R> void renderCell(HtmlBuilder<?> builder, Column<R> column, R row, Object model) throws IOException {
+        TagBuilder cell = builder.appendStartTag("td");
+        for (Attribute attribute : column.cellAttributes) {
+            attribute.render(cell, model);
+        }
+        cell.completeTag();
+        switch (column.kind) {
+            case INT:
+                builder.appendUnescapedText(Integer.toString(column.intAccessor.applyAsInt(row)));
+                break;
+            case LONG:
+                builder.appendUnescapedText(Long.toString(column.longAccessor.applyAsLong(row)));
+                break;
+            case DOUBLE:
+                builder.appendUnescapedText(Double.toString(column.doubleAccessor.applyAsDouble(row)));
+                break;
+            case CONTENT:
+                Object content = column.accessor.apply(row);
+                if (content != null) {
+                    ((DomContent) content).render(builder, model);
+                }
+                break;
+            default:
+                Object value = column.accessor.apply(row);
+                if (value != null) {
+                    builder.appendEscapedText(String.valueOf(value));
+                }
+        }
+        builder.appendEndTag("td");
+    }
+
+    @Override
+    @Deprecated
+    public void renderModel(Appendable writer, Object model) throws IOException {
+        HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
+            ? (HtmlBuilder<?>) writer
+            : FlatHtml.into(writer, Config.current());
+
+        render(builder, model);
+    }
+
+    private static final class Column<R> {
+        private final String header;
+        private final int kind;
+        private final Function<? super R, ?> accessor;
+        private final ToIntFunction<? super R> intAccessor;
+        private final ToLongFunction<? super R> longAccessor;
+        private final ToDoubleFunction<? super R> doubleAccessor;
+        private final Attribute[] cellAttributes;
+
+        private Column(String header, int kind,
+                       Function<? super R, ?> accessor,
+                       ToIntFunction<? super R> intAccessor,
+                       ToLongFunction<? super R> longAccessor,
+                       ToDoubleFunction<? super R> doubleAccessor,
+                       Attribute[] cellAttributes) {
+            this.header = header;
+            this.kind = kind;
+            this.accessor = accessor;
+            this.intAccessor = intAccessor;
+            this.longAccessor = longAccessor;
+            this.doubleAccessor = doubleAccessor;
+            this.cellAttributes = cellAttributes == null || cellAttributes.length == 0 ? NO_ATTRIBUTES : cellAttributes.clone();
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.attributes.Attribute;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+import j2html.rendering.TagBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, read-only representation of a static tree, for documents with
+ * millions of nodes. Instead of one object per node, the tree is stored in
+ * parallel int columns (node kind, name, attribute range and child range) and
+ * all tag names, attribute names, attribute values and texts are kept in a
+ * shared, deduplicated string table.
+ * <p>
+ * Nodes are stored in breadth-first order, so the children of a node are
+ * contiguous. The columns are allocated by an {@link Allocator}: on the heap,
+ * in direct buffers or in a memory-mapped file.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * DomArena arena = DomArena.of(report, DomArena.Allocator.DIRECT);
+ * report = null; // the tag tree can now be garbage collected
+ * arena.render(FlatHtml.into(writer));
+ * }</pre>
+ * An arena is a snapshot: content which is not a built-in node type (custom
+ * DomContent, or tags which override {@code render}) is rendered to a String
+ * when the arena is created, and attributes are stored with their current value
+ * (Attribute subclasses as they render without a model).
+ * Tags are not registered with the HtmlBuilder while rendering an arena.
+ */
+public final class DomArena extends DomContent {
+
+    private static final int NONE = -1;
+
+    private final IntBuffer kinds;
+    private final IntBuffer names;
+    private final IntBuffer firstAttributes;
+    private final IntBuffer firstChildren;
+    private final IntBuffer childCounts;
+    private final IntBuffer attributeNames;
+    private final IntBuffer attributeValues;
+    private final String[] strings;
+
+    private DomArena(IntBuffer kinds, IntBuffer names, IntBuffer firstAttributes, IntBuffer firstChildren, IntBuffer childCounts,
+                     IntBuffer attributeNames, IntBuffer attributeValues, String[] strings) {
+        this.kinds = kinds;
+        this.names = names;
+        this.firstAttributes = firstAttributes;
+        this.firstChildren = firstChildren;
+        this.childCounts = childCounts;
+        this.attributeNames = attributeNames;
+        this.attributeValues = attributeValues;
+        this.strings = strings;
+    }
+
+    /**
+     * Converts a tree into an arena with columns on the heap
+     *
+     * @param root the root of the tree
+     * @return the arena
+     */
+    public static DomArena of(ContainerTag<?> root) {
+        return of(root, Allocator.HEAP);
+    }
+
+    /**
+     * Converts a tree into an arena
+     *
+     * @param root      the root of the tree
+     * @param allocator allocates the columns of the arena
+     * @return the arena
+     */
+    public static DomArena of(ContainerTag<?> root, Allocator allocator) {
+        Builder builder = new Builder();
+        builder.build(root);
+        return builder.toArena(allocator);
+    }
+
+    /**
+     * @return the number of nodes in this arena
+     */
+    public int size() {
+        return kinds.limit();
+    }
+
+    /**
+     * @return the number of distinct strings in the string table
+     */
+    public int stringCount() {
+        return strings.length;
+    }
+
+    /**
+     * Converts this arena back into a tree of tags. Text which was snapshotted
+     * from custom content is returned as UnescapedText.
+     *
+     * @return the root of the tree
+     */
+    public ContainerTag<?> toTag() {
+        int size = size();
+        DomContent[] nodes = new DomContent[size];
+        // children always come after their parent, so they are created first
+        for (int node = size - 1; node >= 0; node--) {
+            switch (kinds.get(node)) {
+                case NodeRenderer.TEXT:
+                    nodes[node] = new Text(strings[names.get(node)]);
+                    break;
+                case NodeRenderer.UNESCAPED_TEXT:
+                    nodes[node] = new UnescapedText(strings[names.get(node)]);
+                    break;
+                case NodeRenderer.EMPTY_TAG:
+                    nodes[node] = copyAttributes(node, new EmptyTag<>(strings[names.get(node)]));
+                    break;
+                default:
+                    int name = names.get(node);
+                    ContainerTag<?> tag = copyAttributes(node, new ContainerTag<>(name == NONE ? null : strings[name]));
+                    int firstChild = firstChildren.get(node);
+                    int end = firstChild + childCounts.get(node);
+                    for (int child = firstChild; child < end; child++) {
+                        tag.with(nodes[child]);
+                        nodes[child] = null;
+                    }
+                    nodes[node] = tag;
+            }
+        }
+        return (ContainerTag<?>) nodes[0];
+    }
+
+    private <T extends Tag<?>> T copyAttributes(int node, T tag) {
+        int end = firstAttributes.get(node + 1);
+        for (int attribute = firstAttributes.get(node); attribute < end; attribute++) {
+            int value = attributeValues.get(attribute);
+            tag.getAttributes().add(value == NONE
+                ? new Attribute(strings[attributeNames.get(attribute)])
+                : new Attribute(strings[attributeNames.get(attribute)], strings[value]));
+        }
+        return tag;
+    }
+
+    @Override
+    public <A extends Appendable> A render(HtmlBuilder<A> builder, Object model) throws IOException {
+        int[] stack = new int[32];
+        int[] positions = new int[32];
+        int depth = 0;
+
+        open(0, builder);
+        stack[depth++] = 0;
+
+        while (depth > 0) {
+            int top = depth - 1;
+            int node = stack[top];
+            int position = positions[top];
+            if (position < childCounts.get(node)) {
+                positions[top] = position + 1;
+                int child = firstChildren.get(node) + position;
+                if (open(child, builder)) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                        positions = Arrays.copyOf(positions, depth * 2);
+                    }
+                    stack[depth] = child;
+                    positions[depth] = 0;
+                    depth++;
+                }
+            } else {
+                int name = names.get(node);
+                if (name != NONE) {
+                    builder.appendEndTag(strings[name]);
+                }
+                depth = top;
+            }
+        }
+        return builder.output();
+    }
+
+    /**
+     * Renders the node, or only its start tag if it is a container
+     *
+     * @return true if the node is a container, whose children still have to be rendered
+     */
+    private boolean open(int node, HtmlBuilder<?> builder) throws IOException {
+        switch (kinds.get(node)) {
+            case NodeRenderer.TEXT:
+                builder.appendEscapedText(strings[names.get(node)]);
+                return false;
+            case NodeRenderer.UNESCAPED_TEXT:
+                builder.appendUnescapedText(strings[names.get(node)]);
+                return false;
+            case NodeRenderer.EMPTY_TAG:
+                renderAttributes(node, builder.appendEmptyTag(strings[names.get(node)]));
+                return false;
+            default:
+                int name = names.get(node);
+                if (name != NONE) {
+                    renderAttributes(node, builder.appendStartTag(strings[name]));
+                }
+                return true;
+        }
+    }
+
+    private void renderAttributes(int node, TagBuilder tag) throws IOException {
+        int end = firstAttributes.get(node + 1);
+        for (int attribute = firstAttributes.get(node); attribute < end; attribute++) {
+            int value = attributeValues.get(attribute);
+            if (value == NONE) {
+                tag.appendBooleanAttribute(strings[attributeNames.get(attribute)]);
+            } else {
+                tag.appendAttribute(strings[attributeNames.get(attribute)], strings[value]);
+            }
+        }
+        tag.completeTag();
+    }
+
+    @Override
+    @Deprecated
+    public void renderModel(Appendable writer, Object model) throws IOException {
+        HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
+            ? (HtmlBuilder<?>) writer
+            : FlatHtml.into(writer, Config.current());
+
+        render(builder, model);
+    }
+
+    /**
+     * Allocates the int columns of an arena
+     */
+    @FunctionalInterface
+    public interface Allocator {
+
+        /**
+         * Allocates columns on the heap
+         */
+        Allocator HEAP = IntBuffer::allocate;
+
+        /**
+         * Allocates columns in direct buffers, outside of the heap
+         */
+        Allocator DIRECT = capacity -> ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+
+        /**
+         * Allocates columns in consecutive regions of a file, mapped into memory.
+         * The channel must be open for reading and writing.
+         *
+         * @param channel the file to map
+         * @return the allocator
+         */
+        static Allocator mapped(FileChannel channel) {
+            long[] position = {0};
+            return capacity -> {
+                try {
+                    long size = (long) capacity * Integer.BYTES;
+                    ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position[0], size);
+                    position[0] += size;
+                    return buffer.order(ByteOrder.nativeOrder()).asIntBuffer();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        }
+
+        /**
+         * @param capacity the number of ints in the column
+         * @return a buffer with position 0 and the given capacity
+         */
+        IntBuffer allocate(int capacity);
+    }
+
+    private static final class Builder {
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final IntColumn kinds = new IntColumn();
+        private final IntColumn names = new IntColumn();
+        private final IntColumn firstAttributes = new IntColumn();
+        private final IntColumn firstChildren = new IntColumn();
+        private final IntColumn childCounts = new IntColumn();
+        private final IntColumn attributeNames = new IntColumn();
+        private final IntColumn attributeValues = new IntColumn();
+
+        void build(ContainerTag<?> root) {
+            List<DomContent> queue = new ArrayList<>();
+            queue.add(root);
+            for (int node = 0; node < queue.size(); node++) {
+                DomContent content = queue.get(node);
+                queue.set(node, null);
+                firstAttributes.add(attributeNames.size());
+                switch (NodeRenderer.kindOf(content)) {
+                    case NodeRenderer.TEXT:
+                        addLeaf(NodeRenderer.TEXT, ((Text) content).text());
+                        break;
+                    case NodeRenderer.UNESCAPED_TEXT:
+                        addLeaf(NodeRenderer.UNESCAPED_TEXT, ((UnescapedText) content).text());
+                        break;
+                    case NodeRenderer.EMPTY_TAG:
+                        EmptyTag<?> emptyTag = (EmptyTag<?>) content;
+                        addLeaf(NodeRenderer.EMPTY_TAG, emptyTag.getTagName());
+                        addAttributes(emptyTag);
+                        break;
+                    case NodeRenderer.CONTAINER_TAG:
+                        ContainerTag<?> tag = (ContainerTag<?>) content;
+                        kinds.add(NodeRenderer.CONTAINER_TAG);
+                        names.add(tag.hasTagName() ? id(tag.getTagName()) : NONE);
+                        firstChildren.add(queue.size());
+                        for (int i = 0; i < tag.getNumChildren(); i++) {
+                            enqueue(queue, tag.childAt(i));
+                        }
+                        childCounts.add(queue.size() - firstChildren.get(node));
+                        addAttributes(tag);
+                        break;
+                    default:
+                        addLeaf(NodeRenderer.UNESCAPED_TEXT, content.render());
+                }
+            }
+            firstAttributes.add(attributeNames.size());
+        }
+
+        private static void enqueue(List<DomContent> queue, DomContent child) {
+            if (child instanceof Fragment) {
+                for (DomContent fragmentChild : ((Fragment) child).children()) {
+                    enqueue(queue, fragmentChild);
+                }
+            } else {
+                queue.add(child);
+            }
+        }
+
+        private void addLeaf(int kind, String name) {
+            kinds.add(kind);
+            names.add(id(name));
+            firstChildren.add(0);
+            childCounts.add(0);
+        }
+
+        private void addAttributes(Tag<?> tag) {
+            for (Attribute attribute : StoredAttributes.of(tag)) {
+                attributeNames.add(id(attribute.getName()));
+                attributeValues.add(attribute.getValue() == null ? NONE : id(attribute.getValue()));
+            }
+        }
+
+        private int id(String string) {
+            Integer id = stringIds.get(string);
+            if (id == null) {
+                id = strings.size();
+                stringIds.put(string, id);
+                strings.add(string);
+            }
+            return id;
+        }
+
+        DomArena toArena(Allocator allocator) {
+            return new DomArena(
+                kinds.copyTo(allocator),
+                names.copyTo(allocator),
+                firstAttributes.copyTo(allocator),
+                firstChildren.copyTo(allocator),
+                childCounts.copyTo(allocator),
+                attributeNames.copyTo(allocator),
+                attributeValues.copyTo(allocator),
+                strings.toArray(new String[0])
+            );
+        }
+    }
+
+    private static final class IntColumn {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        IntBuffer copyTo(Allocator allocator) {
+            IntBuffer buffer = allocator.allocate(Math.max(size, 1));
+            buffer.put(values, 0, size);
+            buffer.flip();
+            return buffer.asReadOnlyBuffer();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 public abstract class DomContent implements Renderable {
+
     @Override
     public String toString() {
         return render();
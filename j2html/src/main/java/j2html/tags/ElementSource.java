@@ -0,0 +1,67 @@
+package j2html.tags;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The source of elements which are iterated while rendering, as used by
+ * {@link StreamedContent} and {@link DataTable}. Iterables can be iterated any
+ * number of times, all other sources only once.
+ */
+final class ElementSource<E> {
+
+    private final Supplier<? extends Iterator<? extends E>> iterators;
+    private final Stream<?> stream;
+    private final boolean reusable;
+    private boolean consumed;
+
+    private ElementSource(Supplier<? extends Iterator<? extends E>> iterators, Stream<?> stream, boolean reusable) {
+        this.iterators = iterators;
+        this.stream = stream;
+        this.reusable = reusable;
+    }
+
+    static <E> ElementSource<E> of(Iterable<? extends E> iterable) {
+        return new ElementSource<>(iterable::iterator, null, true);
+    }
+
+    static <E> ElementSource<E> of(Iterator<? extends E> iterator) {
+        return new ElementSource<>(() -> iterator, null, false);
+    }
+
+    static <E> ElementSource<E> of(Stream<? extends E> stream) {
+        return new ElementSource<>(stream::iterator, stream, false);
+    }
+
+    static <E> ElementSource<E> of(Spliterator<? extends E> spliterator) {
+        return new ElementSource<>(() -> Spliterators.iterator(spliterator), null, false);
+    }
+
+    /**
+     * @return true if the source can only be iterated once
+     */
+    boolean isSingleUse() {
+        return !reusable;
+    }
+
+    Iterator<? extends E> open() {
+        synchronized (this) {
+            if (!reusable) {
+                if (consumed) {
+                    throw new IllegalStateException("Content streamed from an Iterator, Stream or Spliterator can only be rendered once");
+                }
+                consumed = true;
+            }
+        }
+        return iterators.get();
+    }
+
+    void close() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
@@ -22,13 +22,17 @@ public class EmptyTag<T extends EmptyTag<T>> extends Tag<T> {
 
     @Override
     public <A extends Appendable> A render(HtmlBuilder<A> builder, Object model) throws IOException {
+        renderTag(builder, model);
+        return builder.output();
+    }
+
+    final void renderTag(HtmlBuilder<?> builder, Object model) throws IOException {
         TagBuilder attrs = builder.appendEmptyTag(getTagName());
         for (Attribute attr : getAttributes()) {
             attr.render(attrs, model);
         }
         attrs.completeTag();
         builder.registerTag(getId(), this);
-        return builder.output();
     }
 
     private String getId() {
@@ -40,7 +44,7 @@ public class EmptyTag<T extends EmptyTag<T>> extends Tag<T> {
     public void renderModel(Appendable writer, Object model) throws IOException {
         HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
             ? (HtmlBuilder<?>) writer
-            : FlatHtml.into(writer, Config.global());
+            : FlatHtml.into(writer, Config.current());
 
         render(builder, model);
     }
@@ -0,0 +1,106 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A group of DomContent objects without an enclosing element, as created by
+ * {@link j2html.TagCreator#each}. When appended to a ContainerTag, the children
+ * of a Fragment are added to the ContainerTag directly, so no wrapper remains
+ * in the tree. Nested Fragments are flattened when created.
+ */
+public final class Fragment extends DomContent {
+
+    private static final DomContent[] NO_CHILDREN = new DomContent[0];
+
+    private final DomContent[] children;
+
+    public Fragment(DomContent... children) {
+        this.children = flatten(children);
+    }
+
+    public Fragment(Iterable<? extends DomContent> children) {
+        List<DomContent> flattened = new ArrayList<>();
+        for (DomContent child : children) {
+            add(flattened, child);
+        }
+        this.children = flattened.isEmpty() ? NO_CHILDREN : flattened.toArray(NO_CHILDREN);
+    }
+
+    private static DomContent[] flatten(DomContent[] children) {
+        boolean flat = true;
+        for (DomContent child : children) {
+            if (child == null || child instanceof Fragment) {
+                flat = false;
+                break;
+            }
+        }
+        if (flat) {
+            return children.length == 0 ? NO_CHILDREN : children.clone();
+        }
+        List<DomContent> flattened = new ArrayList<>(children.length);
+        for (DomContent child : children) {
+            add(flattened, child);
+        }
+        return flattened.toArray(NO_CHILDREN);
+    }
+
+    private static void add(List<DomContent> flattened, DomContent child) {
+        if (child instanceof Fragment) {
+            DomContent[] nested = ((Fragment) child).children;
+            for (DomContent grandChild : nested) {
+                flattened.add(grandChild);
+            }
+        } else if (child != null) {
+            // in some cases, like when using iff(), we ignore null children
+            flattened.add(child);
+        }
+    }
+
+    /**
+     * Gets number of child nodes this fragment contains
+     */
+    public int getNumChildren() {
+        return children.length;
+    }
+
+    void renderChildren(HtmlBuilder<?> builder, Object model) throws IOException {
+        for (DomContent child : children) {
+            NodeRenderer.render(child, builder, model);
+        }
+    }
+
+    DomContent[] children() {
+        return children;
+    }
+
+    @Override
+    public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+        renderChildren(builder, model);
+        return builder.output();
+    }
+
+    @Override
+    void traverseTree(Consumer<DomContent> consumer, Predicate stopPredicate) {
+        for (DomContent child : children) {
+            child.traverseTree(consumer, stopPredicate);
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void renderModel(Appendable writer, Object model) throws IOException {
+        HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
+            ? (HtmlBuilder<?>) writer
+            : FlatHtml.into(writer, Config.current());
+
+        render(builder, model);
+    }
+}
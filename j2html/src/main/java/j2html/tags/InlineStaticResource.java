@@ -15,9 +15,9 @@ public class InlineStaticResource {
         String fileString = getFileAsString(path);
         switch (format) {
             case CSS_MIN:
-                return style().with(rawHtml(Config.cssMinifier.minify(fileString)));
+                return style().with(rawHtml(Config.current().cssMinifier().minify(fileString)));
             case JS_MIN:
-                return script().with(rawHtml(Config.jsMinifier.minify((fileString))));
+                return script().with(rawHtml(Config.current().jsMinifier().minify((fileString))));
             case CSS:
                 return style().with(rawHtml(fileString));
             case JS:
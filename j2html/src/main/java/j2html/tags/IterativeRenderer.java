@@ -0,0 +1,70 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+
+import java.io.IOException;
+
+/**
+ * Renders a tree without recursing once per level. Container tags and fragments
+ * are expanded on an explicit, array-based stack, so the depth of the tree is
+ * only limited by the heap, not by the thread's stack size. All other content
+ * (text, empty tags, custom DomContent and container tags which override
+ * {@code render}) is rendered by calling its own render method.
+ * <p>
+ * The output is identical to rendering the root directly:
+ * <pre>{@code
+ * IterativeRenderer.render(deeplyNestedTree, IndentedHtml.inMemory())
+ * }</pre>
+ */
+public final class IterativeRenderer {
+
+    private IterativeRenderer() {
+    }
+
+    /**
+     * Renders the content into a String, using the current Config
+     *
+     * @param content the content to render
+     * @return the rendered HTML
+     */
+    public static String render(DomContent content) {
+        try {
+            return render(content, FlatHtml.into(new StringBuilder(), Config.current()), null).toString();
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    public static <A extends Appendable> A render(DomContent content, HtmlBuilder<A> builder) throws IOException {
+        return render(content, builder, null);
+    }
+
+    /**
+     * Renders the content to the given builder
+     *
+     * @param content the content to render
+     * @param builder the HtmlBuilder to render to
+     * @param model   a model object to provide data for children to render
+     * @return the output of the builder
+     */
+    public static <A extends Appendable> A render(DomContent content, HtmlBuilder<A> builder, Object model) throws IOException {
+        if (!TreeWalker.isContainer(content)) {
+            return content.render(builder, model);
+        }
+        TreeWalker.walk(content, (node, closing) -> {
+            int kind = NodeRenderer.kindOf(node);
+            if (kind == NodeRenderer.CONTAINER_TAG) {
+                if (closing) {
+                    ((ContainerTag<?>) node).renderEndTag(builder);
+                } else {
+                    ((ContainerTag<?>) node).renderStartTag(builder, model);
+                }
+            } else if (kind != NodeRenderer.FRAGMENT) {
+                NodeRenderer.render(node, builder, model);
+            }
+        });
+        return builder.output();
+    }
+}
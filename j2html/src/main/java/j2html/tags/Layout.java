@@ -0,0 +1,282 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.TagCreator;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+import j2html.rendering.OutputSizeStats;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page shell which is rendered once and then reused for every request.
+ * The shell is built like any other tree, with {@link #slot(String)} placeholders
+ * where the content of each page goes. Compiling the shell renders it into static
+ * segments around the slots, so a request only renders the slot contents.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * static final Layout MAIN = Layout.compile(html(
+ *     head(title(Layout.slot("title")), styleWithInlineFile_min("/css/main.css")),
+ *     body(main(Layout.slot("content")))
+ * ));
+ *
+ * String page = MAIN.fill()
+ *     .slot("title", text("Examples"))
+ *     .slot("content", examples)
+ *     .render();
+ * }</pre>
+ * The segments are rendered with the Config which is current when the layout is
+ * compiled, and the slot contents are rendered with the same Config. A slot may
+ * appear more than once. The whole shell is rendered at compile time, so it
+ * should not contain content which has to be evaluated per request.
+ */
+public final class Layout {
+
+    private static final ThreadLocal<Compilation> COMPILATION = new ThreadLocal<>();
+
+    private final Config config;
+    private final String[] segments;
+    private final byte[][] segmentBytes;
+    private final int[] slotIndices;
+    private final DomContent[] defaults;
+    private final Map<String, Integer> slotIds;
+
+    private Layout(Config config, String[] segments, int[] slotIndices, DomContent[] defaults, Map<String, Integer> slotIds) {
+        this.config = config;
+        this.segments = segments;
+        this.slotIndices = slotIndices;
+        this.defaults = defaults;
+        this.slotIds = slotIds;
+        this.segmentBytes = new byte[segments.length][];
+        for (int i = 0; i < segments.length; i++) {
+            segmentBytes[i] = segments[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Creates a placeholder for content which is filled in per request
+     *
+     * @param name the name of the slot
+     * @return the placeholder
+     */
+    public static Slot slot(String name) {
+        return new Slot(name, null);
+    }
+
+    /**
+     * Creates a placeholder with default content, which is used when a request does not fill the slot
+     *
+     * @param name           the name of the slot
+     * @param defaultContent the default content
+     * @return the placeholder
+     */
+    public static Slot slot(String name, DomContent defaultContent) {
+        return new Slot(name, defaultContent);
+    }
+
+    /**
+     * Compiles a shell which starts with an HTML5 doctype, using the current Config
+     *
+     * @param shell the html element of the shell
+     * @return the layout
+     */
+    public static Layout compile(ContainerTag<?> shell) {
+        return compile(new Fragment(TagCreator.document(), shell), Config.current());
+    }
+
+    /**
+     * Compiles a shell
+     *
+     * @param shell  the shell
+     * @param config the Config used to render the shell and the slot contents
+     * @return the layout
+     */
+    public static Layout compile(DomContent shell, Config config) {
+        Compilation compilation = new Compilation();
+        Compilation outer = COMPILATION.get();
+        COMPILATION.set(compilation);
+        try {
+            shell.render(FlatHtml.into(compilation.output, config));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (outer == null) {
+                COMPILATION.remove();
+            } else {
+                COMPILATION.set(outer);
+            }
+        }
+        compilation.segments.add(compilation.output.substring(compilation.segmentStart));
+
+        int[] slotIndices = new int[compilation.slots.size()];
+        Map<String, Integer> slotIds = new LinkedHashMap<>();
+        List<DomContent> defaults = new ArrayList<>();
+        for (int i = 0; i < slotIndices.length; i++) {
+            Slot slot = compilation.slots.get(i);
+            Integer id = slotIds.get(slot.name);
+            if (id == null) {
+                id = slotIds.size();
+                slotIds.put(slot.name, id);
+                defaults.add(slot.defaultContent);
+            }
+            slotIndices[i] = id;
+        }
+        return new Layout(config, compilation.segments.toArray(new String[0]), slotIndices, defaults.toArray(new DomContent[0]), slotIds);
+    }
+
+    /**
+     * @return the names of the slots, in order of their first appearance
+     */
+    public List<String> slotNames() {
+        return new ArrayList<>(slotIds.keySet());
+    }
+
+    /**
+     * @return a new, empty set of slot contents for one request
+     */
+    public Fill fill() {
+        return new Fill();
+    }
+
+    /**
+     * The slot contents of one request
+     */
+    public final class Fill {
+        private final DomContent[] contents = defaults.clone();
+
+        private Fill() {
+        }
+
+        /**
+         * Sets the content of a slot
+         *
+         * @param name     the name of the slot
+         * @param contents the content, replacing any earlier or default content
+         * @return itself for easy chaining
+         * @throws IllegalArgumentException if the layout has no slot with that name
+         */
+        public Fill slot(String name, DomContent... contents) {
+            Integer id = slotIds.get(name);
+            if (id == null) {
+                throw new IllegalArgumentException("Unknown slot: " + name + ", slots are " + slotIds.keySet());
+            }
+            this.contents[id] = contents.length == 1 ? contents[0] : new Fragment(contents);
+            return this;
+        }
+
+        public <A extends Appendable> A render(HtmlBuilder<A> builder) throws IOException {
+            builder.appendUnescapedText(segments[0]);
+            for (int i = 0; i < slotIndices.length; i++) {
+                DomContent content = contents[slotIndices[i]];
+                if (content != null) {
+                    content.render(builder);
+                }
+                builder.appendUnescapedText(segments[i + 1]);
+            }
+            return builder.output();
+        }
+
+        /**
+         * @return the rendered page
+         */
+        public String render() {
+            OutputSizeStats.Histogram sizes = OutputSizeStats.shared().forRoot(Layout.this);
+            try {
+                StringBuilder out = render(FlatHtml.into(new StringBuilder(sizes.capacity(estimateSize())), config));
+                sizes.record(out.length());
+                return out.toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes the page as UTF-8. The static segments are encoded only once, when the layout is compiled.
+         *
+         * @param out the stream to write to
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(segmentBytes[0]);
+            StringBuilder slot = new StringBuilder();
+            for (int i = 0; i < slotIndices.length; i++) {
+                DomContent content = contents[slotIndices[i]];
+                if (content != null) {
+                    slot.setLength(0);
+                    content.render(FlatHtml.into(slot, config));
+                    out.write(slot.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                out.write(segmentBytes[i + 1]);
+            }
+        }
+
+        private int estimateSize() {
+            int size = 0;
+            for (String segment : segments) {
+                size += segment.length();
+            }
+            return size + 1024;
+        }
+    }
+
+    /**
+     * A named placeholder in a layout. Outside of {@link #compile} a slot renders its default content, if any.
+     */
+    public static final class Slot extends DomContent {
+        private final String name;
+        private final DomContent defaultContent;
+
+        private Slot(String name, DomContent defaultContent) {
+            if (name == null) {
+                throw new IllegalArgumentException("Illegal slot name: null");
+            }
+            this.name = name;
+            this.defaultContent = defaultContent;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+            Compilation compilation = COMPILATION.get();
+            if (compilation != null && builder.output() == compilation.output) {
+                compilation.cut(this);
+            } else if (defaultContent != null) {
+                defaultContent.render(builder, model);
+            }
+            return builder.output();
+        }
+
+        @Override
+        @Deprecated
+        public void renderModel(Appendable writer, Object model) throws IOException {
+            HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
+                ? (HtmlBuilder<?>) writer
+                : FlatHtml.into(writer, Config.current());
+
+            render(builder, model);
+        }
+    }
+
+    private static final class Compilation {
+        private final StringBuilder output = new StringBuilder();
+        private final List<String> segments = new ArrayList<>();
+        private final List<Slot> slots = new ArrayList<>();
+        private int segmentStart;
+
+        void cut(Slot slot) {
+            segments.add(output.substring(segmentStart));
+            segmentStart = output.length();
+            slots.add(slot);
+        }
+    }
+}
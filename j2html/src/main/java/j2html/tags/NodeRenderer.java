@@ -0,0 +1,87 @@
+package j2html.tags;
+
+import j2html.rendering.HtmlBuilder;
+
+import java.io.IOException;
+
+/**
+ * Renders the built-in node types through a single switch on their kind, so the
+ * render loop calls final methods instead of making virtual calls spread over
+ * the ~130 specialized tag classes. Every DomContent is classified once per class:
+ * subclasses of the built-in types which override {@code render} are of kind
+ * {@link #OTHER} and are rendered through their own render method.
+ * NodeDispatchPerformanceTest compares both ways of dispatching.
+ */
+final class NodeRenderer {
+
+    static final int OTHER = 0;
+    static final int TEXT = 1;
+    static final int UNESCAPED_TEXT = 2;
+    static final int EMPTY_TAG = 3;
+    static final int CONTAINER_TAG = 4;
+    static final int FRAGMENT = 5;
+
+    private static final ClassValue<Integer> KINDS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            if (Text.class.isAssignableFrom(type)) {
+                return rendersAs(type, Text.class) ? TEXT : OTHER;
+            }
+            if (UnescapedText.class.isAssignableFrom(type)) {
+                return rendersAs(type, UnescapedText.class) ? UNESCAPED_TEXT : OTHER;
+            }
+            if (EmptyTag.class.isAssignableFrom(type)) {
+                return rendersAs(type, EmptyTag.class) ? EMPTY_TAG : OTHER;
+            }
+            if (ContainerTag.class.isAssignableFrom(type)) {
+                return rendersAs(type, ContainerTag.class) ? CONTAINER_TAG : OTHER;
+            }
+            if (type == Fragment.class) {
+                return FRAGMENT;
+            }
+            return OTHER;
+        }
+    };
+
+    private NodeRenderer() {
+    }
+
+    /**
+     * @return how the node is rendered, computed once per class and looked up where the node is
+     * dispatched, rather than stored in every node
+     */
+    static int kindOf(DomContent node) {
+        return KINDS.get(node.getClass());
+    }
+
+    static void render(DomContent node, HtmlBuilder<?> builder, Object model) throws IOException {
+        switch (kindOf(node)) {
+            case TEXT:
+                ((Text) node).renderText(builder);
+                break;
+            case UNESCAPED_TEXT:
+                ((UnescapedText) node).renderText(builder);
+                break;
+            case EMPTY_TAG:
+                ((EmptyTag<?>) node).renderTag(builder, model);
+                break;
+            case CONTAINER_TAG:
+                ((ContainerTag<?>) node).renderTag(builder, model);
+                break;
+            case FRAGMENT:
+                ((Fragment) node).renderChildren(builder, model);
+                break;
+            default:
+                node.render(builder, model);
+        }
+    }
+
+    private static boolean rendersAs(Class<?> type, Class<?> base) {
+        try {
+            return type.getMethod("render", HtmlBuilder.class, Object.class).getDeclaringClass() == base
+                && type.getMethod("render", HtmlBuilder.class).getDeclaringClass() == Renderable.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.attributes.Attr;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Renders only the element with a given id, e.g. for partial page updates with
+ * htmx or Turbo, where a request only needs {@code #cart} out of the whole page.
+ * <p>
+ * The tree is searched in document order, like {@code getElementById}. Only
+ * container tags, fragments and persistent tags are descended into; nothing outside
+ * the target is rendered, so lazy content such as
+ * {@link j2html.TagCreator#eachStreamed} or {@link j2html.TagCreator#cached}
+ * outside of the target is never evaluated. Elements generated by such content
+ * can therefore not be targeted.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * String cart = PartialRenderer.renderFragment(mainView.page(), "cart");
+ * }</pre>
+ */
+public final class PartialRenderer {
+
+    private PartialRenderer() {
+    }
+
+    /**
+     * Renders the first element with the given id, using the current Config
+     *
+     * @param root the root of the tree
+     * @param id   the id of the element
+     * @return the rendered element, or null if there is no element with the given id
+     */
+    public static String renderFragment(DomContent root, String id) {
+        return renderFragment(root, id, (Map<String, Tag>) null);
+    }
+
+    /**
+     * Renders the first element with the given id. If the element has been
+     * registered by an earlier {@link Renderable#renderRecorded(Map)}, it is
+     * rendered without searching the tree. The tags rendered as part of the
+     * element are registered in the map.
+     *
+     * @param root         the root of the tree
+     * @param id           the id of the element
+     * @param renderedTags tags by id, as recorded by renderRecorded, or null
+     * @return the rendered element, or null if there is no element with the given id
+     */
+    public static String renderFragment(DomContent root, String id, Map<String, Tag> renderedTags) {
+        try {
+            FlatHtml<StringBuilder> builder = FlatHtml.into(new StringBuilder(), Config.current(), renderedTags);
+            return renderFragment(root, id, builder) ? builder.output().toString() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Renders the first element with the given id to the builder
+     *
+     * @param root    the root of the tree
+     * @param id      the id of the element
+     * @param builder the HtmlBuilder to render to; tags registered with it are used to find the element
+     * @return true if the element was found and rendered
+     */
+    public static boolean renderFragment(DomContent root, String id, HtmlBuilder<?> builder) throws IOException {
+        DomContent target = builder.getTag(id);
+        if (target == null) {
+            target = find(root, id);
+        }
+        if (target == null) {
+            return false;
+        }
+        target.render(builder);
+        return true;
+    }
+
+    /**
+     * Finds the first element with the given id, without rendering anything
+     *
+     * @param root the root of the tree
+     * @param id   the id of the element
+     * @return the element, or null if there is none
+     */
+    public static DomContent find(DomContent root, String id) {
+        Deque<DomContent> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            DomContent node = pending.pop();
+            if (node instanceof ContainerTag) {
+                ContainerTag<?> tag = (ContainerTag<?>) node;
+                if (id.equals(tag.getAttr(Attr.ID))) {
+                    return tag;
+                }
+                for (int i = tag.getNumChildren() - 1; i >= 0; i--) {
+                    pending.push(tag.childAt(i));
+                }
+            } else if (node instanceof Tag) {
+                if (id.equals(((Tag<?>) node).getAttr(Attr.ID))) {
+                    return node;
+                }
+            } else if (node instanceof PersistentTag) {
+                PersistentTag tag = (PersistentTag) node;
+                if (id.equals(tag.getAttr(Attr.ID))) {
+                    return tag;
+                }
+                for (int i = tag.getNumChildren() - 1; i >= 0; i--) {
+                    pending.push(tag.getChild(i));
+                }
+            } else if (node instanceof Fragment) {
+                DomContent[] children = ((Fragment) node).children();
+                for (int i = children.length - 1; i >= 0; i--) {
+                    pending.push(children[i]);
+                }
+            }
+        }
+        return null;
+    }
+}
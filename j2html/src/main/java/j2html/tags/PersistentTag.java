@@ -0,0 +1,346 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.attributes.Attr;
+import j2html.attributes.Attribute;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+import j2html.rendering.TagBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * An immutable tag. Every modification returns a new tag which shares all unchanged
+ * children with the original, so deriving a variant of a large tree only copies the
+ * tags on the path to the change. Every version can be rendered concurrently.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * PersistentTag layout = PersistentTag.from(baseLayout);
+ * PersistentTag page = layout.updateById("user", user -> user.with(text(name)));
+ * }</pre>
+ * Mutable tags passed to this class are converted into persistent tags, unless they
+ * are sealed. Other DomContent, including tags which override {@code render}, is
+ * shared as is, and should be immutable.
+ */
+public final class PersistentTag extends DomContent {
+
+    private static final String[] NO_STRINGS = new String[0];
+    private static final DomContent[] NO_CHILDREN = new DomContent[0];
+
+    private final String tagName;
+    private final boolean emptyTag;
+    private final String[] attributeNames;
+    private final String[] attributeValues;
+    private final DomContent[] children;
+
+    private PersistentTag(String tagName, boolean emptyTag, String[] attributeNames, String[] attributeValues, DomContent[] children) {
+        this.tagName = tagName;
+        this.emptyTag = emptyTag;
+        this.attributeNames = attributeNames;
+        this.attributeValues = attributeValues;
+        this.children = children;
+    }
+
+    /**
+     * Creates a tag without attributes or children
+     *
+     * @param tagName the tag name
+     * @return the tag
+     */
+    public static PersistentTag of(String tagName) {
+        return new PersistentTag(tagName, false, NO_STRINGS, NO_STRINGS, NO_CHILDREN);
+    }
+
+    /**
+     * Creates an empty tag, which has no end tag and cannot have children
+     *
+     * @param tagName the tag name
+     * @return the tag
+     */
+    public static PersistentTag emptyTag(String tagName) {
+        return new PersistentTag(tagName, true, NO_STRINGS, NO_STRINGS, NO_CHILDREN);
+    }
+
+    /**
+     * Converts a mutable tag and all of its descendant tags. Attributes are
+     * copied with their current value, Attribute subclasses as they render
+     * without a model.
+     *
+     * @param tag the tag to convert
+     * @return the persistent copy
+     * @throws IllegalArgumentException if an Attribute subclass renders something other than attributes
+     */
+    public static PersistentTag from(Tag<?> tag) {
+        List<Attribute> attributes = StoredAttributes.of(tag);
+        String[] names = new String[attributes.size()];
+        String[] values = new String[attributes.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = attributes.get(i).getName();
+            values[i] = attributes.get(i).getValue();
+        }
+        if (!(tag instanceof ContainerTag)) {
+            return new PersistentTag(tag.getTagName(), true, names, values, NO_CHILDREN);
+        }
+        ContainerTag<?> container = (ContainerTag<?>) tag;
+        List<DomContent> children = new ArrayList<>(container.getNumChildren());
+        for (int i = 0; i < container.getNumChildren(); i++) {
+            addChild(children, container.childAt(i));
+        }
+        return new PersistentTag(tag.getTagName(), false, names, values, children.toArray(NO_CHILDREN));
+    }
+
+    private static void addChild(List<DomContent> children, DomContent child) {
+        if (child == null) {
+            return;
+        }
+        int kind = NodeRenderer.kindOf(child);
+        if (child instanceof Fragment) {
+            for (DomContent fragmentChild : ((Fragment) child).children()) {
+                addChild(children, fragmentChild);
+            }
+        } else if ((kind == NodeRenderer.CONTAINER_TAG || kind == NodeRenderer.EMPTY_TAG) && !((Tag<?>) child).isSealed()) {
+            children.add(from((Tag<?>) child));
+        } else {
+            children.add(child);
+        }
+    }
+
+    public String getTagName() {
+        return tagName;
+    }
+
+    public String getAttr(String name) {
+        int index = indexOfAttribute(name);
+        return index < 0 ? null : attributeValues[index];
+    }
+
+    public int getNumChildren() {
+        return children.length;
+    }
+
+    public DomContent getChild(int index) {
+        return children[index];
+    }
+
+    /**
+     * Returns a copy of this tag with the given attribute set
+     *
+     * @param name  the attribute name
+     * @param value the attribute value, or null for a boolean attribute
+     * @return the new tag
+     */
+    public PersistentTag attr(String name, Object value) {
+        String string = value == null ? null : String.valueOf(value);
+        int index = indexOfAttribute(name);
+        String[] names;
+        String[] values;
+        if (index < 0) {
+            names = Arrays.copyOf(attributeNames, attributeNames.length + 1);
+            values = Arrays.copyOf(attributeValues, attributeValues.length + 1);
+            index = names.length - 1;
+            names[index] = name;
+        } else {
+            names = attributeNames;
+            values = attributeValues.clone();
+        }
+        values[index] = string;
+        return new PersistentTag(tagName, emptyTag, names, values, children);
+    }
+
+    /**
+     * Returns a copy of this tag without the given attribute
+     *
+     * @param name the attribute name
+     * @return the new tag, or this tag if it has no such attribute
+     */
+    public PersistentTag removeAttr(String name) {
+        int index = indexOfAttribute(name);
+        if (index < 0) {
+            return this;
+        }
+        return new PersistentTag(tagName, emptyTag, remove(attributeNames, index, NO_STRINGS), remove(attributeValues, index, NO_STRINGS), children);
+    }
+
+    public PersistentTag withId(String id) {
+        return attr(Attr.ID, id);
+    }
+
+    public PersistentTag withClass(String className) {
+        return attr(Attr.CLASS, className);
+    }
+
+    /**
+     * Returns a copy of this tag with the given children appended
+     *
+     * @param children the children to append
+     * @return the new tag
+     */
+    public PersistentTag with(DomContent... children) {
+        checkNotEmptyTag();
+        List<DomContent> added = new ArrayList<>(children.length);
+        for (DomContent child : children) {
+            addChild(added, child);
+        }
+        DomContent[] result = Arrays.copyOf(this.children, this.children.length + added.size());
+        for (int i = 0; i < added.size(); i++) {
+            result[this.children.length + i] = added.get(i);
+        }
+        return new PersistentTag(tagName, emptyTag, attributeNames, attributeValues, result);
+    }
+
+    /**
+     * Returns a copy of this tag with the child at the given index replaced
+     *
+     * @param index the index of the child
+     * @param child the new child
+     * @return the new tag
+     */
+    public PersistentTag withChild(int index, DomContent child) {
+        List<DomContent> replacement = new ArrayList<>(1);
+        addChild(replacement, child);
+        if (replacement.size() != 1) {
+            throw new IllegalArgumentException("A child must be replaced by exactly one node");
+        }
+        DomContent[] result = children.clone();
+        result[index] = replacement.get(0);
+        return new PersistentTag(tagName, emptyTag, attributeNames, attributeValues, result);
+    }
+
+    /**
+     * Returns a copy of this tag without the child at the given index
+     *
+     * @param index the index of the child
+     * @return the new tag
+     */
+    public PersistentTag removeChild(int index) {
+        if (index < 0 || index >= children.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + children.length);
+        }
+        return new PersistentTag(tagName, emptyTag, attributeNames, attributeValues, remove(children, index, NO_CHILDREN));
+    }
+
+    /**
+     * Returns a copy of this tree in which the descendant at the given path has been
+     * replaced by the result of the update. Only the tags on the path are copied.
+     *
+     * @param path   the child indices leading from this tag to the descendant, which must be a PersistentTag
+     * @param update computes the new descendant
+     * @return the new tree
+     */
+    public PersistentTag update(int[] path, UnaryOperator<PersistentTag> update) {
+        return update(path, 0, update);
+    }
+
+    private PersistentTag update(int[] path, int depth, UnaryOperator<PersistentTag> update) {
+        if (depth == path.length) {
+            return update.apply(this);
+        }
+        DomContent child = children[path[depth]];
+        if (!(child instanceof PersistentTag)) {
+            throw new IllegalArgumentException("No PersistentTag at " + Arrays.toString(Arrays.copyOf(path, depth + 1)));
+        }
+        PersistentTag updated = ((PersistentTag) child).update(path, depth + 1, update);
+        return updated == child ? this : withChild(path[depth], updated);
+    }
+
+    /**
+     * Returns a copy of this tree in which the first descendant (or this tag) with
+     * the given id has been replaced by the result of the update.
+     *
+     * @param id     the id of the tag to update
+     * @param update computes the new tag
+     * @return the new tree
+     * @throws IllegalArgumentException if there is no tag with the given id
+     */
+    public PersistentTag updateById(String id, UnaryOperator<PersistentTag> update) {
+        int[] path = pathTo(id);
+        if (path == null) {
+            throw new IllegalArgumentException("No tag with id: " + id);
+        }
+        return update(path, update);
+    }
+
+    /**
+     * @param id the id of the tag to find
+     * @return the child indices leading to the first tag with the given id, or null
+     */
+    public int[] pathTo(String id) {
+        if (id.equals(getAttr(Attr.ID))) {
+            return new int[0];
+        }
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] instanceof PersistentTag) {
+                int[] path = ((PersistentTag) children[i]).pathTo(id);
+                if (path != null) {
+                    int[] result = new int[path.length + 1];
+                    result[0] = i;
+                    System.arraycopy(path, 0, result, 1, path.length);
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    private int indexOfAttribute(String name) {
+        for (int i = 0; i < attributeNames.length; i++) {
+            if (attributeNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void checkNotEmptyTag() {
+        if (emptyTag) {
+            throw new IllegalStateException("Cannot add children to an empty tag: " + tagName);
+        }
+    }
+
+    private static <E> E[] remove(E[] array, int index, E[] empty) {
+        if (array.length == 1) {
+            return empty;
+        }
+        E[] result = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    @Override
+    public <A extends Appendable> A render(HtmlBuilder<A> builder, Object model) throws IOException {
+        boolean hasTagName = tagName != null && !tagName.isEmpty();
+        if (hasTagName) {
+            TagBuilder tag = emptyTag ? builder.appendEmptyTag(tagName) : builder.appendStartTag(tagName);
+            for (int i = 0; i < attributeNames.length; i++) {
+                if (attributeValues[i] == null) {
+                    tag.appendBooleanAttribute(attributeNames[i]);
+                } else {
+                    tag.appendAttribute(attributeNames[i], attributeValues[i]);
+                }
+            }
+            tag.completeTag();
+        }
+        for (DomContent child : children) {
+            NodeRenderer.render(child, builder, model);
+        }
+        if (hasTagName && !emptyTag) {
+            builder.appendEndTag(tagName);
+        }
+        return builder.output();
+    }
+
+    @Override
+    @Deprecated
+    public void renderModel(Appendable writer, Object model) throws IOException {
+        HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
+            ? (HtmlBuilder<?>) writer
+            : FlatHtml.into(writer, Config.current());
+
+        render(builder, model);
+    }
+}
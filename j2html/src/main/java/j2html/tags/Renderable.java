@@ -45,7 +45,7 @@ public interface Renderable {
      */
     default String render() {
         try {
-            return render(FlatHtml.into(new StringBuilder(), Config.global())).toString();
+            return render(FlatHtml.into(new StringBuilder(), Config.current())).toString();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -54,7 +54,7 @@ public interface Renderable {
     default HtmlBuilder renderRecorded(Map<String, Tag> renderedTags) {
 
         try {
-            HtmlBuilder builder = FlatHtml.into(new StringBuilder(), Config.global(), renderedTags);
+            HtmlBuilder builder = FlatHtml.into(new StringBuilder(), Config.current(), renderedTags);
             renderModel(builder, null);
             return builder;
         } catch (IOException e) {
@@ -72,7 +72,7 @@ public interface Renderable {
         if (writer instanceof HtmlBuilder) {
             render((HtmlBuilder<? extends Appendable>) writer);
         } else {
-            render(FlatHtml.into(writer, Config.global()));
+            render(FlatHtml.into(writer, Config.current()));
         }
     }
 
@@ -0,0 +1,137 @@
+package j2html.tags;
+
+import j2html.attributes.Attribute;
+import j2html.rendering.HtmlBuilder;
+import j2html.rendering.TagBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the attributes of a tag into plain name/value pairs, for the tree representations
+ * which store attributes as strings ({@link DomArena}, {@link BinaryDom}, {@link PersistentTag}).
+ * <p>
+ * Subclasses of {@link Attribute} render through {@link Attribute#renderModel(Appendable, Object)},
+ * so their value is not what {@link Attribute#getValue()} returns. They are rendered once, without
+ * a model, and what they append is stored: attributes appended through the TagBuilder as they are,
+ * raw text if it consists of plain {@code name="value"} pairs whose values need no escaping.
+ * Anything else is rejected with an IllegalArgumentException instead of being stored wrongly.
+ */
+final class StoredAttributes {
+
+    // a value which contains none of the chars an escaper could change
+    private static final Pattern RAW_ATTRIBUTE = Pattern.compile("\\s+([^\\s\"'<>/=]+)(?:=\"([^\"&<>]*)\")?");
+
+    private StoredAttributes() {
+    }
+
+    /**
+     * @param tag the tag to store
+     * @return its attributes, all of them plain Attributes with a name
+     * @throws IllegalArgumentException if an Attribute subclass renders something which cannot be stored
+     */
+    static List<Attribute> of(Tag<?> tag) {
+        List<Attribute> attributes = tag.getAttributes();
+        boolean plain = true;
+        for (Attribute attribute : attributes) {
+            if (attribute.getName() == null || attribute.getClass() != Attribute.class) {
+                plain = false;
+                break;
+            }
+        }
+        if (plain) {
+            return attributes;
+        }
+        List<Attribute> stored = new ArrayList<>(attributes.size());
+        for (Attribute attribute : attributes) {
+            if (attribute.getClass() != Attribute.class) {
+                Capture capture = new Capture(attribute, stored);
+                try {
+                    attribute.render(capture, null);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                capture.parseRaw();
+            } else if (attribute.getName() != null) {
+                stored.add(attribute);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Records the attributes an Attribute subclass appends
+     */
+    private static final class Capture implements TagBuilder {
+        private final Attribute attribute;
+        private final List<Attribute> stored;
+        private final StringBuilder raw = new StringBuilder();
+
+        private Capture(Attribute attribute, List<Attribute> stored) {
+            this.attribute = attribute;
+            this.stored = stored;
+        }
+
+        @Override
+        public TagBuilder appendAttribute(String name, String value) {
+            parseRaw();
+            stored.add(new Attribute(name, value));
+            return this;
+        }
+
+        @Override
+        public TagBuilder appendBooleanAttribute(String name) {
+            parseRaw();
+            stored.add(new Attribute(name));
+            return this;
+        }
+
+        @Override
+        public HtmlBuilder<? extends Appendable> completeTag() {
+            throw new IllegalArgumentException("Attribute " + attribute.getClass().getName() + " completes the tag");
+        }
+
+        @Override
+        @Deprecated
+        public TagBuilder append(CharSequence csq) {
+            raw.append(csq);
+            return this;
+        }
+
+        @Override
+        @Deprecated
+        public TagBuilder append(CharSequence csq, int start, int end) {
+            raw.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        @Deprecated
+        public TagBuilder append(char c) {
+            raw.append(c);
+            return this;
+        }
+
+        private void parseRaw() {
+            if (raw.length() == 0) {
+                return;
+            }
+            Matcher matcher = RAW_ATTRIBUTE.matcher(raw);
+            int position = 0;
+            while (position < raw.length()) {
+                matcher.region(position, raw.length());
+                if (!matcher.lookingAt()) {
+                    throw new IllegalArgumentException("Attribute " + attribute.getClass().getName()
+                        + " renders markup which cannot be stored: " + raw);
+                }
+                stored.add(matcher.group(2) == null ? new Attribute(matcher.group(1)) : new Attribute(matcher.group(1), matcher.group(2)));
+                position = matcher.end();
+            }
+            raw.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * DomContent that maps the elements of a source to DomContent while it is being
+ * rendered, one element at a time. Unlike {@link j2html.TagCreator#each}, no child
+ * list is built: the DomContent of each element can be garbage collected as soon as
+ * it has been rendered, so memory use does not grow with the number of elements.
+ * <p>
+ * Content created from an Iterable can be rendered any number of times. Content
+ * created from an Iterator, Stream or Spliterator can only be rendered once, and
+ * a Stream is closed once it has been rendered.
+ *
+ * @param <E> The type of the source elements.
+ */
+public class StreamedContent<E> extends DomContent {
+
+    private final ElementSource<? extends E> source;
+    private final Function<? super E, ? extends DomContent> mapper;
+
+    private StreamedContent(ElementSource<? extends E> source, Function<? super E, ? extends DomContent> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    public static <E> StreamedContent<E> of(Iterable<? extends E> iterable, Function<? super E, ? extends DomContent> mapper) {
+        return new StreamedContent<>(ElementSource.of(iterable), mapper);
+    }
+
+    public static <E> StreamedContent<E> of(Iterator<? extends E> iterator, Function<? super E, ? extends DomContent> mapper) {
+        return new StreamedContent<>(ElementSource.of(iterator), mapper);
+    }
+
+    public static <E> StreamedContent<E> of(Stream<? extends E> stream, Function<? super E, ? extends DomContent> mapper) {
+        return new StreamedContent<>(ElementSource.of(stream), mapper);
+    }
+
+    public static <E> StreamedContent<E> of(Spliterator<? extends E> spliterator, Function<? super E, ? extends DomContent> mapper) {
+        return new StreamedContent<>(ElementSource.of(spliterator), mapper);
+    }
+
+    boolean isSingleUse() {
+        return source.isSingleUse();
+    }
+
+    @Override
+    public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+        Iterator<? extends E> elements = source.open();
+        try {
+            while (elements.hasNext()) {
+                DomContent content = mapper.apply(elements.next());
+                if (content != null) {
+                    content.render(builder, model);
+                }
+            }
+        } finally {
+            source.close();
+        }
+        return builder.output();
+    }
+
+    @Override
+    @Deprecated
+    public void renderModel(Appendable writer, Object model) throws IOException {
+        HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
+            ? (HtmlBuilder<?>) writer
+            : FlatHtml.into(writer, Config.current());
+
+        render(builder, model);
+    }
+}
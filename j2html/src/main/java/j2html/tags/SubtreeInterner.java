@@ -0,0 +1,399 @@
+package j2html.tags;
+
+import j2html.attributes.Attribute;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Deduplicates structurally equal, immutable subtrees, so that a page repeating
+ * the same icon, badge or menu item thousands of times holds a single instance of it.
+ * <p>
+ * Only static subtrees are interned: sealed tags (see {@link Tag#seal()}) whose
+ * attributes are plain {@link Attribute}s, and whose descendants are sealed tags,
+ * {@link Text} or {@link UnescapedText}. Text and UnescapedText are immutable and
+ * are interned as well. Everything else is returned unchanged.
+ * <p>
+ * Subtrees are hash-consed: a node is hashed over the canonical instances of its children,
+ * and only compared with canonical nodes of the same hash, so interning a subtree costs
+ * time proportional to its size, and its descendants are interned along with it.
+ * <p>
+ * Canonical instances are only weakly referenced by the intern table, so they are
+ * garbage collected once no tree uses them anymore. The table can be used
+ * concurrently.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * SubtreeInterner.Stats stats = SubtreeInterner.shared().dedupe(page);
+ * }</pre>
+ */
+public final class SubtreeInterner {
+
+    // rough sizes for a 64-bit JVM with compressed references
+    private static final int OBJECT_HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final int INITIAL_DEPTH = 32;
+
+    private static final SubtreeInterner SHARED = new SubtreeInterner();
+
+    // buckets of canonical nodes with the same structural hash, replaced on every change
+    private final ConcurrentMap<Integer, Entry[]> table = new ConcurrentHashMap<>();
+    private final ReferenceQueue<DomContent> queue = new ReferenceQueue<>();
+
+    /**
+     * @return the interner shared by the whole application
+     */
+    public static SubtreeInterner shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the canonical instance of a static subtree. The first subtree
+     * interned with a given structure becomes the canonical instance.
+     *
+     * @param content the subtree
+     * @param <T>     the type of the subtree
+     * @return the canonical instance, of the same class as content, or content
+     * itself if it is not a static subtree
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends DomContent> T intern(T content) {
+        if (content == null || !isStatic(content)) {
+            return content;
+        }
+        return (T) canonical(content);
+    }
+
+    /**
+     * Replaces all static subtrees of a tree with their canonical instances.
+     * Sealed tags are immutable, so only the children of unsealed container tags
+     * are replaced; a sealed root has to be passed to {@link #intern(DomContent)} instead.
+     *
+     * @param root the root of the tree
+     * @return how many subtrees were replaced, and roughly how many bytes that saves
+     */
+    public Stats dedupe(ContainerTag<?> root) {
+        int replaced = 0;
+        long bytesSaved = 0;
+        Deque<ContainerTag<?>> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            ContainerTag<?> tag = pending.pop();
+            if (tag.isSealed()) {
+                continue;
+            }
+            for (int i = 0; i < tag.children.size(); i++) {
+                DomContent child = tag.children.get(i);
+                if (isStatic(child)) {
+                    DomContent canonical = canonical(child);
+                    if (canonical != child) {
+                        tag.children.set(i, canonical);
+                        replaced++;
+                        bytesSaved += estimateSize(child);
+                    }
+                } else if (child instanceof ContainerTag) {
+                    pending.push((ContainerTag<?>) child);
+                }
+            }
+        }
+        return new Stats(replaced, bytesSaved);
+    }
+
+    /**
+     * @return the number of canonical nodes currently in the table, including the descendants of interned subtrees
+     */
+    public int size() {
+        expungeStaleEntries();
+        int size = 0;
+        for (Entry[] bucket : table.values()) {
+            size += bucket.length;
+        }
+        return size;
+    }
+
+    /**
+     * Interns a static subtree bottom-up: every node is hashed and compared over the
+     * canonical instances of its children, so equal subtrees are found without
+     * serializing them, and their descendants are interned as well.
+     */
+    private DomContent canonical(DomContent root) {
+        expungeStaleEntries();
+        List<DomContent> canonicals = new ArrayList<>();
+        DomContent[] nodes = new DomContent[INITIAL_DEPTH];
+        int[] positions = new int[INITIAL_DEPTH];
+        int depth = 0;
+        nodes[depth++] = root;
+        while (depth > 0) {
+            int top = depth - 1;
+            DomContent node = nodes[top];
+            int childCount = node instanceof ContainerTag ? ((ContainerTag<?>) node).getNumChildren() : 0;
+            int position = positions[top];
+            if (position < childCount) {
+                positions[top] = position + 1;
+                if (depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, depth * 2);
+                    positions = Arrays.copyOf(positions, depth * 2);
+                }
+                nodes[depth] = ((ContainerTag<?>) node).childAt(position);
+                positions[depth] = 0;
+                depth++;
+            } else {
+                DomContent[] children = new DomContent[childCount];
+                for (int i = childCount - 1; i >= 0; i--) {
+                    children[i] = canonicals.remove(canonicals.size() - 1);
+                }
+                canonicals.add(canonical(node, children));
+                nodes[top] = null;
+                depth = top;
+            }
+        }
+        return canonicals.get(0);
+    }
+
+    /**
+     * @param node     a static node
+     * @param children the canonical instances of its children
+     * @return the canonical instance of the node
+     */
+    private DomContent canonical(DomContent node, DomContent[] children) {
+        int hash = hash(node, children);
+        DomContent[] found = new DomContent[1];
+        table.compute(hash, (key, bucket) -> {
+            int live = 0;
+            if (bucket != null) {
+                for (Entry entry : bucket) {
+                    DomContent candidate = entry.get();
+                    if (candidate != null && matches(candidate, entry.children, node, children)) {
+                        found[0] = candidate;
+                        return bucket;
+                    }
+                    live++;
+                }
+            }
+            Entry[] updated = new Entry[live + 1];
+            int i = 0;
+            if (bucket != null) {
+                for (Entry entry : bucket) {
+                    if (entry.get() != null) {
+                        updated[i++] = entry;
+                    }
+                }
+            }
+            updated[i] = new Entry(hash, node, children, queue);
+            found[0] = node;
+            return Arrays.copyOf(updated, i + 1);
+        });
+        return found[0];
+    }
+
+    private static int hash(DomContent node, DomContent[] children) {
+        int hash = node.getClass().hashCode();
+        if (node instanceof Text) {
+            return 31 * hash + ((Text) node).text().hashCode();
+        }
+        if (node instanceof UnescapedText) {
+            return 31 * hash + ((UnescapedText) node).text().hashCode();
+        }
+        Tag<?> tag = (Tag<?>) node;
+        hash = 31 * hash + Objects.hashCode(tag.getTagName());
+        for (Attribute attribute : tag.getAttributes()) {
+            hash = 31 * hash + attribute.getName().hashCode();
+            hash = 31 * hash + Objects.hashCode(attribute.getValue());
+        }
+        for (DomContent child : children) {
+            hash = 31 * hash + System.identityHashCode(child);
+        }
+        return hash;
+    }
+
+    private static boolean matches(DomContent canonical, DomContent[] canonicalChildren, DomContent node, DomContent[] children) {
+        if (canonical == node) {
+            return true;
+        }
+        if (canonical.getClass() != node.getClass()) {
+            return false;
+        }
+        if (node instanceof Text) {
+            return ((Text) canonical).text().equals(((Text) node).text());
+        }
+        if (node instanceof UnescapedText) {
+            return ((UnescapedText) canonical).text().equals(((UnescapedText) node).text());
+        }
+        Tag<?> canonicalTag = (Tag<?>) canonical;
+        Tag<?> tag = (Tag<?>) node;
+        if (!Objects.equals(canonicalTag.getTagName(), tag.getTagName())
+            || canonicalTag.getAttributes().size() != tag.getAttributes().size()
+            || canonicalChildren.length != children.length) {
+            return false;
+        }
+        Iterator<Attribute> canonicalAttributes = canonicalTag.getAttributes().iterator();
+        for (Attribute attribute : tag.getAttributes()) {
+            Attribute canonicalAttribute = canonicalAttributes.next();
+            if (!canonicalAttribute.getName().equals(attribute.getName())
+                || !Objects.equals(canonicalAttribute.getValue(), attribute.getValue())) {
+                return false;
+            }
+        }
+        for (int i = 0; i < children.length; i++) {
+            // children are canonical, so equal children are the same instance
+            if (canonicalChildren[i] != children[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expungeStaleEntries() {
+        Entry stale;
+        while ((stale = (Entry) queue.poll()) != null) {
+            Entry expunged = stale;
+            table.computeIfPresent(expunged.hash, (key, bucket) -> {
+                Entry[] updated = new Entry[bucket.length];
+                int i = 0;
+                for (Entry entry : bucket) {
+                    if (entry != expunged) {
+                        updated[i++] = entry;
+                    }
+                }
+                return i == 0 ? null : Arrays.copyOf(updated, i);
+            });
+        }
+    }
+
+    private static boolean isStatic(DomContent root) {
+        Deque<DomContent> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            DomContent node = pending.pop();
+            switch (NodeRenderer.kindOf(node)) {
+                case NodeRenderer.TEXT:
+                case NodeRenderer.UNESCAPED_TEXT:
+                    break;
+                case NodeRenderer.EMPTY_TAG:
+                case NodeRenderer.CONTAINER_TAG:
+                    Tag<?> tag = (Tag<?>) node;
+                    if (!tag.isSealed()) {
+                        return false;
+                    }
+                    for (Attribute attribute : tag.getAttributes()) {
+                        if (attribute.getClass() != Attribute.class) {
+                            return false;
+                        }
+                    }
+                    if (node instanceof ContainerTag) {
+                        ContainerTag<?> container = (ContainerTag<?>) node;
+                        for (int i = 0; i < container.getNumChildren(); i++) {
+                            pending.push(container.childAt(i));
+                        }
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the heap used by a static subtree, assuming its strings are not shared
+     */
+    private static long estimateSize(DomContent root) {
+        long size = 0;
+        Deque<DomContent> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            DomContent node = pending.pop();
+            if (node instanceof Text) {
+                size += object(2) + string(((Text) node).text());
+            } else if (node instanceof UnescapedText) {
+                size += object(2) + string(((UnescapedText) node).text());
+            } else {
+                Tag<?> tag = (Tag<?>) node;
+                // the tag, its attribute list and the list's array
+                size += object(4) + object(2) + array(tag.getAttributes().size());
+                for (Attribute attribute : tag.getAttributes()) {
+                    size += object(2) + (attribute.getValue() == null ? 0 : string(attribute.getValue()));
+                }
+                if (node instanceof ContainerTag) {
+                    ContainerTag<?> container = (ContainerTag<?>) node;
+                    int children = container.getNumChildren();
+                    // the array of sealed children, and the unmodifiable list wrapping it
+                    size += array(children) + object(1) + object(1);
+                    for (int i = 0; i < children; i++) {
+                        pending.push(container.childAt(i));
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long object(int fields) {
+        return align(OBJECT_HEADER + fields * REFERENCE);
+    }
+
+    private static long array(int length) {
+        return align(OBJECT_HEADER + REFERENCE + (long) length * REFERENCE);
+    }
+
+    private static long string(String string) {
+        return object(3) + align(OBJECT_HEADER + REFERENCE + string.length());
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static final class Entry extends WeakReference<DomContent> {
+        private final int hash;
+        // the canonical children, which the children of the referent are equal to
+        private final DomContent[] children;
+
+        private Entry(int hash, DomContent content, DomContent[] children, ReferenceQueue<DomContent> queue) {
+            super(content, queue);
+            this.hash = hash;
+            this.children = children;
+        }
+    }
+
+    /**
+     * The outcome of a {@link #dedupe(ContainerTag)} pass
+     */
+    public static final class Stats {
+        private final int replacedSubtrees;
+        private final long bytesSaved;
+
+        private Stats(int replacedSubtrees, long bytesSaved) {
+            this.replacedSubtrees = replacedSubtrees;
+            this.bytesSaved = bytesSaved;
+        }
+
+        /**
+         * @return the number of subtrees which were replaced by a canonical instance
+         */
+        public int replacedSubtrees() {
+            return replacedSubtrees;
+        }
+
+        /**
+         * @return an estimate of the heap freed by the pass, once nothing else references the replaced subtrees
+         */
+        public long bytesSaved() {
+            return bytesSaved;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{replacedSubtrees=" + replacedSubtrees + ", bytesSaved=" + bytesSaved + "}";
+        }
+    }
+}
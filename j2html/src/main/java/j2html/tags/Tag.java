@@ -12,6 +12,7 @@ import java.util.function.Predicate;
 public abstract class Tag<T extends Tag<T>> extends DomContent implements IInstance<T> {
     private final String tagName;
     private final ArrayList<Attribute> attributes;
+    private volatile boolean sealed;
 
     protected Tag(String tagName) {
         this.tagName = tagName;
@@ -30,6 +31,73 @@ public abstract class Tag<T extends Tag<T>> extends DomContent implements IInsta
         return attributes;
     }
 
+    /**
+     * Makes this tag and all of its descendant tags immutable. Any further attempt
+     * to modify a sealed tag throws an IllegalStateException.
+     * <p>
+     * Sealing is meant to be done once, by the thread that built the tree. Afterwards
+     * the tree can be shared and rendered by any number of threads without copying.
+     *
+     * @return itself for easy chaining
+     */
+    public T seal() {
+        if (!sealed) {
+            for (int i = 0; i < attributes.size(); i++) {
+                Attribute attribute = attributes.get(i);
+                if (attribute.getClass() == Attribute.class) {
+                    // detach from the caller, who may still hold the original instance
+                    attributes.set(i, new Attribute(attribute.getName(), attribute.getValue()));
+                }
+            }
+            attributes.trimToSize();
+            sealContent();
+            sealed = true;
+        }
+        return self();
+    }
+
+    /**
+     * Called by {@link #seal()} before the tag is marked as sealed. Subclasses
+     * holding additional state should make it immutable here.
+     */
+    protected void sealContent() {
+    }
+
+    /**
+     * @return true if this tag has been sealed
+     */
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * Removes all attributes (and, for container tags, all children), so the tag
+     * can be reused. The backing storage is kept, so refilling a reset tag
+     * allocates nothing until it grows beyond its previous size.
+     * Sealed tags cannot be reset.
+     *
+     * @return itself for easy chaining
+     * @see TagPool
+     */
+    public T reset() {
+        checkNotSealed();
+        attributes.clear();
+        resetContent();
+        return self();
+    }
+
+    /**
+     * Called by {@link #reset()}. Subclasses holding additional state should clear it here.
+     */
+    protected void resetContent() {
+    }
+
+    protected final void checkNotSealed() {
+        if (sealed) {
+            throw new IllegalStateException("Cannot modify a sealed tag: " + tagName);
+        }
+    }
+
     /**
      * Sets a data prefixed attribute
      *
@@ -55,6 +123,7 @@ public abstract class Tag<T extends Tag<T>> extends DomContent implements IInsta
      * @param value the attribute value
      */
     boolean setAttribute(String name, String value) {
+        checkNotSealed();
         if (value == null) {
             return attributes.add(new Attribute(name));
         }
@@ -86,6 +155,7 @@ public abstract class Tag<T extends Tag<T>> extends DomContent implements IInsta
      * @return itself for easy chaining
      */
     public T appendAttrValue(String name, String value) {
+        checkNotSealed();
         if (value == null) {
             return self();
         }
@@ -147,6 +217,7 @@ public abstract class Tag<T extends Tag<T>> extends DomContent implements IInsta
     }
 
     public T removeAttrValue(String name, String value, boolean startsWith) {
+        checkNotSealed();
         if (value == null) {
             return self();
         }
@@ -200,6 +271,7 @@ public abstract class Tag<T extends Tag<T>> extends DomContent implements IInsta
      * @return itself for easy chaining
      */
     public T attr(Attribute attribute) {
+        checkNotSealed();
         Iterator<Attribute> iterator = attributes.iterator();
         String name = attribute.getName();
         if (name != null) {
@@ -0,0 +1,122 @@
+package j2html.tags;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A pool of reusable tags for loops which build, render and drop the same kind
+ * of tags over and over again, like the rows and cells of large tables.
+ * <p>
+ * A pool is confined to the thread which created it and is meant to live for one
+ * render session: tags are acquired while building and rendering, and released
+ * all at once when the output has been written. Released tags are {@link Tag#reset() reset}
+ * and handed out again by later calls to {@link #acquire(Class, Supplier)}.
+ * <p>
+ * Intended usage:
+ * <pre>{@code
+ * try (TagPool pool = new TagPool()) {
+ *     for (Employee employee : employees) {
+ *         TrTag row = pool.acquire(TrTag.class, TrTag::new)
+ *             .with(pool.acquire(TdTag.class, TdTag::new).withText(employee.getName()));
+ *         row.render(builder);
+ *         pool.releaseAll();
+ *     }
+ * }
+ * }</pre>
+ * Tags must not be used after they have been released. Sealed tags, e.g. a shared header
+ * which a factory hands out, are never reset: the pool drops them on release instead,
+ * so they stay intact for the other trees which contain them.
+ */
+public final class TagPool implements AutoCloseable {
+
+    private final Thread owner = Thread.currentThread();
+    private final Map<Class<?>, Slot> slots = new IdentityHashMap<>();
+    private final ArrayList<Slot> used = new ArrayList<>();
+
+    /**
+     * Returns a free tag of the given type, creating one if none is available
+     *
+     * @param type    the exact class of the tag
+     * @param factory creates a new tag of the given type
+     * @param <T>     the type of the tag
+     * @return an empty tag
+     */
+    public <T extends Tag<T>> T acquire(Class<T> type, Supplier<? extends T> factory) {
+        checkOwner();
+        Slot slot = slots.get(type);
+        if (slot == null) {
+            slot = new Slot();
+            slots.put(type, slot);
+        }
+        if (slot.inUse == 0) {
+            used.add(slot);
+        }
+        if (slot.inUse < slot.tags.size()) {
+            return type.cast(slot.tags.get(slot.inUse++));
+        }
+        T tag = factory.get();
+        if (tag.getClass() != type) {
+            throw new IllegalArgumentException("Factory created a " + tag.getClass().getName() + " instead of a " + type.getName());
+        }
+        slot.tags.add(tag);
+        slot.inUse++;
+        return tag;
+    }
+
+    /**
+     * Resets all tags acquired since the last release, making them available again.
+     * Sealed tags are dropped from the pool instead.
+     */
+    public void releaseAll() {
+        checkOwner();
+        for (Slot slot : used) {
+            boolean sealed = false;
+            for (int i = 0; i < slot.inUse; i++) {
+                Tag<?> tag = slot.tags.get(i);
+                if (tag.isSealed()) {
+                    sealed = true;
+                } else {
+                    tag.reset();
+                }
+            }
+            if (sealed) {
+                slot.tags.removeIf(Tag::isSealed);
+            }
+            slot.inUse = 0;
+        }
+        used.clear();
+    }
+
+    /**
+     * @return the number of tags owned by this pool, acquired or free
+     */
+    public int size() {
+        int size = 0;
+        for (Slot slot : slots.values()) {
+            size += slot.tags.size();
+        }
+        return size;
+    }
+
+    /**
+     * Releases all tags and drops them from the pool
+     */
+    @Override
+    public void close() {
+        releaseAll();
+        slots.clear();
+    }
+
+    private void checkOwner() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("A TagPool can only be used by the thread which created it");
+        }
+    }
+
+    private static final class Slot {
+        private final ArrayList<Tag<?>> tags = new ArrayList<>();
+        private int inUse;
+    }
+}
@@ -0,0 +1,89 @@
+package j2html.tags;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Walks a tree without recursing once per level. Container tags and fragments are
+ * expanded on an explicit, array-based stack, so the depth of the tree is only limited
+ * by the heap. Used by {@link IterativeRenderer} and {@link BinaryDom}.
+ */
+final class TreeWalker {
+
+    private static final int INITIAL_DEPTH = 32;
+
+    interface Visitor {
+        void visit(DomContent node, boolean closing) throws IOException;
+    }
+
+    private TreeWalker() {
+    }
+
+    /**
+     * Visits all nodes in document order. Containers are visited twice: opening and
+     * closing. Nested fragments are not visited themselves, a fragment at the root is
+     * visited like an unnamed container.
+     *
+     * @param root    the root of the tree
+     * @param visitor called for every node
+     */
+    static void walk(DomContent root, Visitor visitor) throws IOException {
+        visitor.visit(root, false);
+        if (!isContainer(root)) {
+            return;
+        }
+        DomContent[] nodes = new DomContent[INITIAL_DEPTH];
+        int[] positions = new int[INITIAL_DEPTH];
+        int depth = 0;
+        nodes[depth++] = root;
+        while (depth > 0) {
+            int top = depth - 1;
+            DomContent node = nodes[top];
+            int position = positions[top];
+            if (position < childCount(node)) {
+                positions[top] = position + 1;
+                DomContent child = childAt(node, position);
+                if (NodeRenderer.kindOf(child) != NodeRenderer.FRAGMENT) {
+                    visitor.visit(child, false);
+                }
+                if (isContainer(child)) {
+                    if (depth == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, depth * 2);
+                        positions = Arrays.copyOf(positions, depth * 2);
+                    }
+                    nodes[depth] = child;
+                    positions[depth] = 0;
+                    depth++;
+                }
+            } else {
+                if (NodeRenderer.kindOf(node) == NodeRenderer.CONTAINER_TAG || node == root) {
+                    visitor.visit(node, true);
+                }
+                nodes[top] = null;
+                depth = top;
+            }
+        }
+    }
+
+    /**
+     * @return true for container tags and fragments which render their children through the walker
+     */
+    static boolean isContainer(DomContent content) {
+        int kind = NodeRenderer.kindOf(content);
+        return kind == NodeRenderer.CONTAINER_TAG || kind == NodeRenderer.FRAGMENT;
+    }
+
+    private static int childCount(DomContent node) {
+        if (NodeRenderer.kindOf(node) == NodeRenderer.CONTAINER_TAG) {
+            return ((ContainerTag<?>) node).getNumChildren();
+        }
+        return ((Fragment) node).getNumChildren();
+    }
+
+    private static DomContent childAt(DomContent node, int index) {
+        if (NodeRenderer.kindOf(node) == NodeRenderer.CONTAINER_TAG) {
+            return ((ContainerTag<?>) node).childAt(index);
+        }
+        return ((Fragment) node).children()[index];
+    }
+}
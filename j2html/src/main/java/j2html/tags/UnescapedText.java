@@ -16,16 +16,24 @@ public class UnescapedText extends DomContent {
 
     @Override
     public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
-        builder.appendUnescapedText(String.valueOf(text));
+        renderText(builder);
         return builder.output();
     }
 
+    final String text() {
+        return String.valueOf(text);
+    }
+
+    final void renderText(HtmlBuilder<?> builder) throws IOException {
+        builder.appendUnescapedText(String.valueOf(text));
+    }
+
     @Override
     @Deprecated
     public void renderModel(Appendable writer, Object model) throws IOException {
         HtmlBuilder<?> builder = (writer instanceof HtmlBuilder)
             ? (HtmlBuilder<?>) writer
-            : FlatHtml.into(writer, Config.global());
+            : FlatHtml.into(writer, Config.current());
 
         render(builder, model);
     }
@@ -0,0 +1,72 @@
+package j2html;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.Clock;
+import j2html.rendering.ArenaAllocator;
+import j2html.rendering.BufferAllocator;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.Utf8Output;
+import j2html.tags.ByteSegments;
+import j2html.tags.DomContent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.ul;
+
+/**
+ * Compares rendering a page of about 400 KB into heap byte arrays with rendering it into
+ * ByteSegments, whose buffers are allocated on the heap, allocated in direct memory, or
+ * taken from the pooled direct memory of an ArenaAllocator.
+ */
+@BenchmarkOptions(callgc = false, benchmarkRounds = 200, warmupRounds = 50, concurrency = 1, clock = Clock.NANO_TIME)
+public class BufferAllocatorPerformanceTest {
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    private static final DomContent PAGE = html(body(each(IntStream.range(0, 200).mapToObj(i -> div(
+        ul(each(IntStream.range(0, 20).mapToObj(j -> li(a("Entry " + j).withHref("/entry/" + j))))),
+        p("Paragraph " + i).withClass("text")
+    )))));
+
+    private static final BufferAllocator HEAP = BufferAllocator.heap();
+    private static final BufferAllocator DIRECT = BufferAllocator.direct();
+    private static final ArenaAllocator ARENA = new ArenaAllocator();
+
+    @Test
+    public void heapByteArray() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Utf8Output out = new Utf8Output(bytes)) {
+            PAGE.render(FlatHtml.into(out));
+        }
+        bytes.toByteArray();
+    }
+
+    @Test
+    public void heapBuffers() {
+        ByteSegments.render(PAGE, Config.defaults(), HEAP).close();
+    }
+
+    @Test
+    public void directBuffers() {
+        ByteSegments.render(PAGE, Config.defaults(), DIRECT).close();
+    }
+
+    @Test
+    public void arenaBuffers() {
+        ByteSegments.render(PAGE, Config.defaults(), ARENA).close();
+    }
+}
@@ -0,0 +1,62 @@
+package j2html;
+
+import j2html.rendering.CancellationToken;
+import j2html.rendering.RenderBudget;
+import org.junit.After;
+import org.junit.Test;
+
+import static j2html.TagCreator.br;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ConfigTest {
+
+    @After
+    public void tearDown() {
+        Config.publish(Config.defaults());
+    }
+
+    @Test
+    public void current_config_is_reused_while_unchanged() {
+        assertThat(Config.current(), is(sameInstance(Config.current())));
+    }
+
+    @Test
+    public void assigning_static_fields_republishes_the_current_config() {
+        Config before = Config.current();
+        Config.closeEmptyTags = true;
+        Config after = Config.current();
+        assertThat(after, is(not(sameInstance(before))));
+        assertThat(after.closeEmptyTags(), is(true));
+        assertThat(br().render(), is("<br/>"));
+    }
+
+    @Test
+    public void static_setters_republish_the_current_config() {
+        Config.setCloseEmptyTags(true);
+        assertThat(Config.current().closeEmptyTags(), is(true));
+        Config.setCloseEmptyTags(false);
+        assertThat(br().render(), is("<br>"));
+    }
+
+    @Test
+    public void publishing_a_config_updates_the_static_fields() {
+        Config config = Config.defaults().withEmptyTagsClosed(true);
+        Config.publish(config);
+        assertThat(Config.closeEmptyTags, is(true));
+        assertThat(Config.current(), is(sameInstance(config)));
+    }
+
+    @Test
+    public void render_settings_ignore_the_budget_and_token() {
+        Config config = Config.defaults();
+        Config perRequest = config.withRenderBudget(RenderBudget.UNLIMITED.withMaxChars(10)).withCancellationToken(new CancellationToken());
+        assertThat(config.rendersLike(perRequest), is(true));
+        assertThat(config.renderHashCode(), is(perRequest.renderHashCode()));
+        assertThat(config.rendersLike(config.withEmptyTagsClosed(true)), is(false));
+        assertThat(config.rendersLike(config.withTextEscaper(text -> text)), is(false));
+        assertThat(config.rendersLike(null), is(false));
+    }
+}
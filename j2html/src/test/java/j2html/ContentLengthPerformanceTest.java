@@ -0,0 +1,74 @@
+package j2html;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.Clock;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.Utf8Output;
+import j2html.tags.ContentLength;
+import j2html.tags.DomContent;
+import j2html.tags.specialized.DivTag;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.IntStream;
+
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.ul;
+
+/**
+ * Compares two ways of sending a large page with a Content-Length: buffering the
+ * encoded page to learn its length, and measuring it first and then streaming it.
+ * The page repeats a sealed navigation, whose length is only computed once.
+ */
+@BenchmarkOptions(callgc = false, benchmarkRounds = 200, warmupRounds = 50, concurrency = 1, clock = Clock.NANO_TIME)
+public class ContentLengthPerformanceTest {
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    private static final DivTag NAVIGATION = div(ul(each(IntStream.range(0, 50).mapToObj(i -> li(a("Menu entry " + i).withHref("/entry/" + i)))))).seal();
+
+    private static final DomContent PAGE = html(body(each(IntStream.range(0, 200).mapToObj(i -> div(
+        NAVIGATION,
+        p("Größe " + i)
+    )))));
+
+    private static final OutputStream NOWHERE = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Test
+    public void bufferThenWrite() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (Utf8Output out = new Utf8Output(buffer)) {
+            PAGE.render(FlatHtml.into(out));
+        }
+        long contentLength = buffer.size();
+        buffer.writeTo(NOWHERE);
+    }
+
+    @Test
+    public void measureThenStream() throws IOException {
+        long contentLength = ContentLength.of(PAGE);
+        try (Utf8Output out = new Utf8Output(NOWHERE)) {
+            PAGE.render(FlatHtml.into(out));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package j2html;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.Clock;
+import j2html.tags.DomContent;
+import j2html.tags.IterativeRenderer;
+import j2html.tags.specialized.DivTag;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.p;
+
+/**
+ * Compares the recursive and the iterative render path on trees of increasing depth.
+ * The recursive path is not measured at depth 100,000, where it overflows the default stack.
+ */
+@BenchmarkOptions(callgc = false, benchmarkRounds = 2000, warmupRounds = 200, concurrency = 2, clock = Clock.NANO_TIME)
+public class IterativeRenderPerformanceTest {
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    private static final DomContent depth10 = nested(10);
+    private static final DomContent depth1000 = nested(1_000);
+    private static final DomContent depth100000 = nested(100_000);
+
+    private static DivTag nested(int depth) {
+        DivTag root = div();
+        DivTag current = root;
+        for (int i = 1; i < depth; i++) {
+            DivTag child = div();
+            current.with(child);
+            current = child;
+        }
+        current.with(p("Hello World!"));
+        return root;
+    }
+
+    @Test
+    public void recursiveDepth10() {
+        depth10.render();
+    }
+
+    @Test
+    public void iterativeDepth10() {
+        IterativeRenderer.render(depth10);
+    }
+
+    @Test
+    public void recursiveDepth1000() {
+        depth1000.render();
+    }
+
+    @Test
+    public void iterativeDepth1000() {
+        IterativeRenderer.render(depth1000);
+    }
+
+    @Test
+    @BenchmarkOptions(callgc = false, benchmarkRounds = 50, warmupRounds = 10, concurrency = 2, clock = Clock.NANO_TIME)
+    public void iterativeDepth100000() {
+        IterativeRenderer.render(depth100000);
+    }
+}
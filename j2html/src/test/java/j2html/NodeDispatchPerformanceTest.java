@@ -0,0 +1,105 @@
+package j2html;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.Clock;
+import j2html.rendering.HtmlBuilder;
+import j2html.tags.ContainerTag;
+import j2html.tags.DomContent;
+import j2html.tags.EmptyTag;
+import j2html.tags.Text;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.br;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.ul;
+
+/**
+ * Compares rendering built-in nodes, which the render loop dispatches through a switch
+ * on their kind, with rendering the same page built from subclasses which override
+ * {@code render}, and are therefore rendered through virtual calls.
+ */
+@BenchmarkOptions(callgc = false, benchmarkRounds = 2000, warmupRounds = 200, concurrency = 1, clock = Clock.NANO_TIME)
+public class NodeDispatchPerformanceTest {
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    private static final DomContent BUILT_IN = html(body(each(IntStream.range(0, 50).mapToObj(i -> div(
+        ul(each(IntStream.range(0, 10).mapToObj(j -> li(a("Entry " + j), br())))),
+        p("Paragraph " + i)
+    )))));
+
+    private static final DomContent VIRTUAL = container("html", container("body", each(IntStream.range(0, 50).mapToObj(i -> container("div",
+        container("ul", each(IntStream.range(0, 10).mapToObj(j -> container("li", container("a", text("Entry " + j)), new VirtualEmptyTag("br"))))),
+        container("p", text("Paragraph " + i))
+    )))));
+
+    static {
+        if (!BUILT_IN.render().equals(VIRTUAL.render())) {
+            throw new IllegalStateException("Both pages must render the same HTML");
+        }
+    }
+
+    private static final class VirtualContainerTag extends ContainerTag<VirtualContainerTag> {
+        private VirtualContainerTag(String tagName) {
+            super(tagName);
+        }
+
+        @Override
+        public <A extends Appendable> A render(HtmlBuilder<A> builder, Object model) throws IOException {
+            return super.render(builder, model);
+        }
+    }
+
+    private static final class VirtualEmptyTag extends EmptyTag<VirtualEmptyTag> {
+        private VirtualEmptyTag(String tagName) {
+            super(tagName);
+        }
+
+        @Override
+        public <A extends Appendable> A render(HtmlBuilder<A> builder, Object model) throws IOException {
+            return super.render(builder, model);
+        }
+    }
+
+    private static final class VirtualText extends Text {
+        private VirtualText(String text) {
+            super(text);
+        }
+
+        @Override
+        public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+            return super.render(builder, model);
+        }
+    }
+
+    private static VirtualContainerTag container(String tagName, DomContent... children) {
+        return new VirtualContainerTag(tagName).with(children);
+    }
+
+    private static VirtualText text(String text) {
+        return new VirtualText(text);
+    }
+
+    @Test
+    public void kindSwitch() {
+        BUILT_IN.render();
+    }
+
+    @Test
+    public void virtualCalls() {
+        VIRTUAL.render();
+    }
+}
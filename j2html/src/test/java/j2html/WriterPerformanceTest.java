@@ -0,0 +1,82 @@
+package j2html;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.Clock;
+import j2html.rendering.CoalescingOutput;
+import j2html.rendering.FlatHtml;
+import j2html.tags.DomContent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.stream.IntStream;
+
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.ul;
+
+/**
+ * Compares rendering into Writers directly with rendering into a CoalescingOutput
+ * which passes the small appends of the builder on to them in large chunks.
+ */
+@BenchmarkOptions(callgc = false, benchmarkRounds = 200, warmupRounds = 50, concurrency = 1, clock = Clock.NANO_TIME)
+public class WriterPerformanceTest {
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    private static final DomContent PAGE = html(body(each(IntStream.range(0, 200).mapToObj(i -> div(
+        ul(each(IntStream.range(0, 10).mapToObj(j -> li(a("Entry " + j).withHref("/entry/" + j))))),
+        p("Paragraph " + i).withClass("text")
+    )))));
+
+    private static final Writer NOWHERE = new Writer() {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Test
+    public void stringWriter() throws IOException {
+        PAGE.render(FlatHtml.into(new StringWriter()));
+    }
+
+    @Test
+    public void stringWriterCoalesced() throws IOException {
+        CoalescingOutput out = CoalescingOutput.wrap(new StringWriter());
+        PAGE.render(FlatHtml.into(out));
+        out.flushBuffer();
+    }
+
+    @Test
+    public void bufferedWriter() throws IOException {
+        BufferedWriter writer = new BufferedWriter(NOWHERE);
+        PAGE.render(FlatHtml.into(writer));
+        writer.flush();
+    }
+
+    @Test
+    public void bufferedWriterCoalesced() throws IOException {
+        CoalescingOutput out = CoalescingOutput.wrap(new BufferedWriter(NOWHERE));
+        PAGE.render(FlatHtml.into(out));
+        out.flush();
+    }
+}
@@ -23,6 +23,11 @@ public class RenderPerformanceComparisonTest {
         TestJ2html.multiplicationTable();
     }
 
+    @Test
+    public void j2htmlDataTablePerformance() throws Exception {
+        TestJ2html.multiplicationDataTable();
+    }
+
     @Test
     public void velocityPerformance() throws Exception {
         TestVelocity.helloWorld();
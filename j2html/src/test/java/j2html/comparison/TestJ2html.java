@@ -3,6 +3,7 @@ package j2html.comparison;
 import j2html.comparison.j2html.FiveHundredEmployees;
 import j2html.comparison.j2html.HelloWorld;
 import j2html.comparison.j2html.Macros;
+import j2html.comparison.j2html.MultiplicationDataTable;
 import j2html.comparison.j2html.MultiplicationTable;
 
 public class TestJ2html {
@@ -23,6 +24,10 @@ public class TestJ2html {
         return MultiplicationTable.tag.render();
     }
 
+    public static String multiplicationDataTable() {
+        return MultiplicationDataTable.tag.render();
+    }
+
     public static void main(String[] args) {
         System.out.println(MultiplicationTable.tag.renderFormatted());
     }
@@ -0,0 +1,18 @@
+package j2html.comparison.j2html;
+
+import j2html.comparison.ComparisonData;
+import j2html.tags.DataTable;
+
+import static j2html.TagCreator.dataTable;
+
+public class MultiplicationDataTable {
+
+    public static DataTable<Integer> tag = dataTable(ComparisonData.tableNumbers);
+
+    static {
+        for (int j : ComparisonData.tableNumbers) {
+            tag.intColumn(null, i -> i * j);
+        }
+    }
+
+}
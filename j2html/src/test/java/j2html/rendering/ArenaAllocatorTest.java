@@ -0,0 +1,196 @@
+package j2html.rendering;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+public class ArenaAllocatorTest {
+
+    private final ArenaAllocator allocator = new ArenaAllocator(true, ArenaAllocator.MAX_SIZE_CLASS, 4L * ArenaAllocator.MAX_SIZE_CLASS, true);
+
+    @After
+    public void no_buffers_leak() {
+        assertThat(allocator.leaks().toString(), allocator.leaks().isEmpty(), is(true));
+        assertThat(allocator.outstanding(), is(0L));
+    }
+
+    @Test
+    public void capacities_are_rounded_up_to_size_classes() {
+        assertThat(ArenaAllocator.sizeClassOf(0), is(0));
+        assertThat(ArenaAllocator.sizeClassOf(512), is(0));
+        assertThat(ArenaAllocator.sizeClassOf(513), is(1));
+        assertThat(ArenaAllocator.sizeClassOf(1024), is(1));
+        assertThat(ArenaAllocator.sizeClassOf(4096), is(3));
+        assertThat(ArenaAllocator.sizeClassOf(ArenaAllocator.MAX_SIZE_CLASS), is(7));
+        assertThat(ArenaAllocator.sizeClassOf(ArenaAllocator.MAX_SIZE_CLASS + 1), is(8));
+    }
+
+    @Test
+    public void buffers_are_carved_from_direct_slabs() {
+        RefCountedBuffer buffer = allocator.allocate(1000);
+        ByteBuffer bytes = buffer.buffer();
+        assertThat(bytes.isDirect(), is(true));
+        assertThat(bytes.position(), is(0));
+        assertThat(bytes.limit(), is(1000));
+        assertThat(bytes.capacity(), is(1024));
+        assertThat(allocator.slabMemory(), is((long) ArenaAllocator.MAX_SIZE_CLASS));
+        assertThat(buffer.release(), is(true));
+    }
+
+    @Test
+    public void released_buffers_are_reused_by_the_thread() {
+        RefCountedBuffer first = allocator.allocate(4096);
+        first.buffer().put((byte) 42).limit(10);
+        ByteBuffer memory = first.buffer();
+        first.release();
+
+        RefCountedBuffer second = allocator.allocate(3000);
+        second.buffer().put((byte) 1);
+        assertThat(memory.get(0), is((byte) 1));
+        assertThat(second.buffer().limit(), is(3000));
+        second.release();
+        assertThat(allocator.unpooledAllocations(), is(0L));
+    }
+
+    @Test
+    public void buffers_are_given_back_with_the_last_reference() {
+        RefCountedBuffer buffer = allocator.allocate(100).retain();
+        assertThat(buffer.refCount(), is(2));
+        assertThat(buffer.release(), is(false));
+        assertThat(allocator.outstanding(), is(1L));
+        assertThat(buffer.release(), is(true));
+        assertThat(allocator.outstanding(), is(0L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void released_buffers_cannot_be_used() {
+        RefCountedBuffer buffer = allocator.allocate(100);
+        buffer.release();
+        buffer.buffer();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void buffers_cannot_be_released_twice() {
+        RefCountedBuffer buffer = allocator.allocate(100);
+        buffer.release();
+        buffer.release();
+    }
+
+    @Test
+    public void large_requests_and_requests_beyond_the_memory_limit_are_unpooled() {
+        List<RefCountedBuffer> buffers = new ArrayList<>();
+        buffers.add(allocator.allocate(ArenaAllocator.MAX_SIZE_CLASS + 1));
+        // one slab per size class in use, up to the limit of four slabs
+        for (int i = 0; i < 5; i++) {
+            buffers.add(allocator.allocate(ArenaAllocator.MAX_SIZE_CLASS));
+        }
+        assertThat(allocator.slabMemory(), is(4L * ArenaAllocator.MAX_SIZE_CLASS));
+        assertThat(allocator.unpooledAllocations(), is(2L));
+        assertThat(buffers.get(5).buffer().isDirect(), is(true));
+        buffers.forEach(RefCountedBuffer::release);
+    }
+
+    @Test
+    public void leaks_name_the_allocation_site() {
+        RefCountedBuffer forgotten = allocator.allocate(100);
+        List<Throwable> leaks = allocator.leaks();
+        assertThat(leaks.size(), is(1));
+        assertThat(leaks.get(0).getMessage(), is("Buffer of 100 bytes allocated here"));
+        assertThat(leaks.get(0).getStackTrace()[1].getMethodName(), containsString("leaks_name_the_allocation_site"));
+        forgotten.release();
+    }
+
+    @Test
+    public void buffers_can_be_released_by_other_threads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    List<RefCountedBuffer> held = new ArrayList<>();
+                    for (int i = 0; i < 10_000; i++) {
+                        RefCountedBuffer buffer = allocator.allocate(512 << ((i + seed) % 4));
+                        buffer.buffer().putInt(0, i);
+                        held.add(buffer);
+                        if (held.size() > 8) {
+                            RefCountedBuffer oldest = held.remove(0);
+                            assertThat(oldest.buffer().getInt(0), is(i - 8));
+                            oldest.release();
+                        }
+                    }
+                    held.forEach(RefCountedBuffer::release);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void buffers_released_by_other_threads_are_reused() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < 3; round++) {
+                // uses up all four slabs on the worker thread, releases the buffers on this one
+                List<RefCountedBuffer> buffers = executor.submit(() -> {
+                    List<RefCountedBuffer> allocated = new ArrayList<>();
+                    for (int i = 0; i < 4; i++) {
+                        allocated.add(allocator.allocate(ArenaAllocator.MAX_SIZE_CLASS));
+                    }
+                    return allocated;
+                }).get(30, TimeUnit.SECONDS);
+                buffers.forEach(RefCountedBuffer::release);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(allocator.slabMemory(), is(4L * ArenaAllocator.MAX_SIZE_CLASS));
+        assertThat(allocator.unpooledAllocations(), is(0L));
+    }
+
+    @Test
+    public void buffers_cached_by_terminated_threads_are_reclaimed() throws Exception {
+        Thread thread = new Thread(() -> {
+            List<RefCountedBuffer> buffers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                buffers.add(allocator.allocate(ArenaAllocator.MAX_SIZE_CLASS));
+            }
+            // released by the allocating thread, so they go to its cache
+            buffers.forEach(RefCountedBuffer::release);
+        });
+        thread.start();
+        thread.join();
+
+        List<RefCountedBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            buffers.add(allocator.allocate(ArenaAllocator.MAX_SIZE_CLASS));
+        }
+        assertThat(allocator.slabMemory(), is(4L * ArenaAllocator.MAX_SIZE_CLASS));
+        assertThat(allocator.unpooledAllocations(), is(0L));
+        buffers.forEach(RefCountedBuffer::release);
+    }
+
+    @Test
+    public void unpooled_allocators_allocate_every_time() {
+        RefCountedBuffer heap = BufferAllocator.heap().allocate(100);
+        assertThat(heap.buffer().isDirect(), is(false));
+        assertThat(heap.buffer().limit(), is(100));
+        assertThat(BufferAllocator.direct().allocate(100).buffer().isDirect(), is(true));
+        assertThat(heap.release(), is(true));
+    }
+}
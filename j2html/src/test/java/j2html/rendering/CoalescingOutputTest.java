@@ -0,0 +1,151 @@
+package j2html.rendering;
+
+import j2html.tags.DomContent;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.p;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class CoalescingOutputTest {
+
+    private static final DomContent PAGE = div(each(Arrays.asList(0, 1, 2), i -> p("Paragraph " + i).withClass("c" + i)));
+
+    /**
+     * A Writer which records every write it receives
+     */
+    private static class RecordingWriter extends StringWriter {
+        final List<String> writes = new ArrayList<>();
+        int flushes;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            writes.add(new String(cbuf, off, len));
+            super.write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            writes.add(str.substring(off, off + len));
+            super.write(str, off, len);
+        }
+
+        @Override
+        public void write(int c) {
+            writes.add(String.valueOf((char) c));
+            super.write(c);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+
+    @Test
+    public void small_appends_are_coalesced() throws IOException {
+        RecordingWriter writer = new RecordingWriter();
+        CoalescingOutput out = new CoalescingOutput(writer, 8);
+        out.append("<").append("p").append('>').append("Hello", 1, 4);
+        assertThat(writer.writes.isEmpty(), is(true));
+        assertThat(out.buffered(), is(6));
+        out.append("</p>");
+        out.flushBuffer();
+        assertThat(writer.writes.toString(), is("[<p>ell, </p>]"));
+        assertThat(writer.flushes, is(0));
+    }
+
+    @Test
+    public void large_appends_are_passed_on_directly() throws IOException {
+        RecordingWriter writer = new RecordingWriter();
+        CoalescingOutput out = new CoalescingOutput(writer, 8);
+        out.append("<p>").append("A text longer than the buffer").append(new StringBuilder("</p>"));
+        out.flush();
+        assertThat(writer.writes.toString(), is("[<p>, A text longer than the buffer, </p>]"));
+        assertThat(writer.toString(), is("<p>A text longer than the buffer</p>"));
+        assertThat(writer.flushes, is(1));
+    }
+
+    @Test
+    public void other_appendables_receive_the_buffer_as_char_sequence() throws IOException {
+        StringBuffer target = new StringBuffer();
+        CoalescingOutput out = new CoalescingOutput(target, 4);
+        out.append("abc").append("defgh").append('i').append(null);
+        out.flush();
+        assertThat(target.toString(), is("abcdefghinull"));
+    }
+
+    @Test
+    public void builders_coalesce_wrapped_writers() throws IOException {
+        RecordingWriter writer = new RecordingWriter();
+        CoalescingOutput out = CoalescingOutput.wrap(writer);
+        PAGE.render(FlatHtml.into(out));
+        assertThat(writer.toString(), is(""));
+        out.flush();
+        assertThat(writer.toString(), is(PAGE.render()));
+        assertThat(writer.writes.size(), is(1));
+        assertThat(writer.flushes, is(1));
+
+        RecordingWriter indented = new RecordingWriter();
+        CoalescingOutput indentedOut = CoalescingOutput.wrap(indented);
+        PAGE.render(IndentedHtml.into(indentedOut));
+        indentedOut.flushBuffer();
+        assertThat(indented.toString(), is(PAGE.render(IndentedHtml.inMemory()).toString()));
+        assertThat(indented.writes.size(), is(1));
+        assertThat(indented.flushes, is(0));
+    }
+
+    @Test
+    public void wrapping_is_idempotent() {
+        CoalescingOutput out = CoalescingOutput.wrap(new StringWriter());
+        assertThat(CoalescingOutput.wrap(out), sameInstance(out));
+    }
+
+    @Test
+    public void builders_write_unwrapped_writers_directly() throws IOException {
+        RecordingWriter writer = new RecordingWriter();
+        HtmlBuilder<RecordingWriter> html = FlatHtml.into(writer);
+        html.appendStartTag("p").appendAttribute("class", "x").completeTag();
+        html.appendEscapedText("a < b");
+        html.appendEndTag("p");
+        assertThat(writer.toString(), is("<p class=\"x\">a &lt; b</p>"));
+        assertThat(html.output(), sameInstance(writer));
+    }
+
+    @Test
+    public void html_streams_write_unwrapped_writers_directly() {
+        StringWriter writer = new StringWriter();
+        HtmlStream.into(FlatHtml.into(writer)).div(d -> d.span("x"));
+        assertThat(writer.toString(), is("<div><span>x</span></div>"));
+    }
+
+    @Test
+    public void html_streams_write_wrapped_writers_when_flushed() throws IOException {
+        StringWriter writer = new StringWriter();
+        CoalescingOutput out = CoalescingOutput.wrap(writer);
+        HtmlStream.into(FlatHtml.into(out)).div(d -> d.span("x"));
+        out.flushBuffer();
+        assertThat(writer.toString(), is("<div><span>x</span></div>"));
+    }
+
+    @Test
+    public void large_renders_are_written_in_few_chunks() throws IOException {
+        RecordingWriter writer = new RecordingWriter();
+        DomContent page = div(each(Arrays.asList(new Integer[2000]), i -> p("Paragraph")));
+        CoalescingOutput out = CoalescingOutput.wrap(writer);
+        page.render(FlatHtml.into(out));
+        out.flushBuffer();
+        assertThat(writer.toString(), is(page.render()));
+        assertThat(writer.writes.size(), lessThan(page.render().length() / CoalescingOutput.DEFAULT_BUFFER_SIZE + 2));
+    }
+}
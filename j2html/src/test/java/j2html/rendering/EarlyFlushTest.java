@@ -0,0 +1,86 @@
+package j2html.rendering;
+
+import j2html.tags.specialized.HtmlTag;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.head;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.link;
+import static j2html.TagCreator.meta;
+import static j2html.TagCreator.script;
+import static j2html.TagCreator.style;
+import static j2html.TagCreator.title;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class EarlyFlushTest {
+
+    private static HtmlTag page() {
+        return html(
+            head(
+                meta().withCharset("UTF-8"),
+                title("Title"),
+                link().withRel("stylesheet").withHref("/css/main.css"),
+                link().withRel("stylesheet").withHref("/css/main.css"),
+                link().withRel("preload").withHref("/fonts/lato.woff2"),
+                link().withRel("preconnect").withHref("https://fonts.example.com"),
+                link().withRel("icon").withHref("/img/favicon.svg"),
+                style("body { color: red }"),
+                script().withSrc("/js/app.js"),
+                script().withSrc("/js/module.js").withType("module"),
+                script("inline()")
+            ),
+            body(div("content"), script().withSrc("/js/late.js"))
+        );
+    }
+
+    @Test
+    public void hints_are_collected_from_the_head() {
+        ResourceHints hints = ResourceHints.collect(page());
+        assertThat(hints.hints().size(), is(5));
+        assertThat(hints.toLinkHeader(), is(
+            "</css/main.css>; rel=preload; as=style, " +
+            "</fonts/lato.woff2>; rel=preload; as=font; crossorigin, " +
+            "<https://fonts.example.com>; rel=preconnect, " +
+            "</js/app.js>; rel=preload; as=script, " +
+            "</js/module.js>; rel=modulepreload"
+        ));
+    }
+
+    @Test
+    public void pages_without_head_have_no_hints() {
+        assertThat(ResourceHints.collect(html(body())).isEmpty(), is(true));
+        assertThat(ResourceHints.collect(html(body())).toLinkHeader(), is(""));
+    }
+
+    @Test
+    public void head_and_body_start_are_flushed_early() throws IOException {
+        List<String> flushed = new ArrayList<>();
+        StringWriter writer = new StringWriter() {
+            @Override
+            public void flush() {
+                flushed.add(toString());
+            }
+        };
+        EarlyFlushHtml<StringWriter> builder = EarlyFlushHtml.into(FlatHtml.into(writer)).flushAfterStartTag("body");
+        HtmlTag page = page();
+        page.render(builder);
+
+        assertThat(writer.toString(), is(page.render()));
+        assertThat(builder.flushes(), is(2));
+        assertThat(flushed.get(0).endsWith("</head>"), is(true));
+        assertThat(flushed.get(1).endsWith("</head><body>"), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void output_must_be_flushable() {
+        EarlyFlushHtml.into(FlatHtml.inMemory());
+    }
+}
@@ -0,0 +1,150 @@
+package j2html.rendering;
+
+import j2html.Config;
+import j2html.tags.DomContent;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static j2html.TagCreator.cached;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.img;
+import static j2html.TagCreator.span;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class FragmentCacheTest {
+
+    @Test
+    public void cached_components_are_only_built_once_per_model() {
+        FragmentCache cache = new FragmentCache(1024);
+        AtomicInteger builds = new AtomicInteger();
+        DomContent page = div(each(asList(1, 2, 1, 1), i -> cached(cache, "tile", i, n -> {
+            builds.incrementAndGet();
+            return span("Tile " + n);
+        })));
+        assertThat(page.render(), is("<div><span>Tile 1</span><span>Tile 2</span><span>Tile 1</span><span>Tile 1</span></div>"));
+        assertThat(builds.get(), is(2));
+        assertThat(cache.stats().hits(), is(2L));
+        assertThat(cache.stats().misses(), is(2L));
+        assertThat(cache.stats().weight(), is(38L));
+    }
+
+    @Test
+    public void fragments_are_cached_per_config() throws Exception {
+        FragmentCache cache = new FragmentCache(1024);
+        DomContent tile = cached(cache, "tile", "logo.png", src -> img().withSrc(src));
+        Config open = Config.defaults().withEmptyTagsClosed(false);
+        Config closed = Config.defaults().withEmptyTagsClosed(true);
+
+        assertThat(tile.render(FlatHtml.into(new StringBuilder(), open)).toString(), is("<img src=\"logo.png\">"));
+        assertThat(tile.render(FlatHtml.into(new StringBuilder(), closed)).toString(), is("<img src=\"logo.png\"/>"));
+        assertThat(tile.render(FlatHtml.into(new StringBuilder(), open)).toString(), is("<img src=\"logo.png\">"));
+        assertThat(cache.stats().misses(), is(2L));
+        assertThat(cache.stats().hits(), is(1L));
+    }
+
+    @Test
+    public void keys_compare_the_render_settings_of_configs() {
+        Config config = Config.defaults();
+        Config perRequest = config.withRenderBudget(RenderBudget.UNLIMITED.withMaxNodes(100)).withCancellationToken(new CancellationToken());
+        assertThat(FragmentCache.key("tile", 1, config).equals(FragmentCache.key("tile", 1, config)), is(true));
+        assertThat(FragmentCache.key("tile", 1, config).equals(FragmentCache.key("tile", 1, perRequest)), is(true));
+        assertThat(FragmentCache.key("tile", 1, config).hashCode(), is(FragmentCache.key("tile", 1, perRequest).hashCode()));
+        assertThat(FragmentCache.key("tile", 1, config).equals(FragmentCache.key("tile", 1, config.withEmptyTagsClosed(false))), is(true));
+        assertThat(FragmentCache.key("tile", 1, config).equals(FragmentCache.key("tile", 1, config.withEmptyTagsClosed(true))), is(false));
+        assertThat(FragmentCache.key("tile", 1, config).equals(FragmentCache.key("tile", 1)), is(false));
+    }
+
+    @Test
+    public void formatted_rendering_bypasses_the_cache() {
+        FragmentCache cache = new FragmentCache(1024);
+        assertThat(div(cached(cache, "tile", 1, n -> span("Tile " + n))).renderFormatted(), is(
+            "<div>\n" +
+            "    <span>\n" +
+            "        Tile 1\n" +
+            "    </span>\n" +
+            "</div>\n"
+        ));
+        assertThat(cache.stats().size(), is(0));
+    }
+
+    @Test
+    public void least_recently_used_entries_are_evicted_by_weight() {
+        FragmentCache cache = new FragmentCache(10);
+        cache.get("a", () -> "aaaa");
+        cache.get("b", () -> "bbbb");
+        cache.get("a", () -> "----");
+        cache.get("c", () -> "cccc");
+        assertThat(cache.stats().evictions(), is(1L));
+        assertThat(cache.get("a", () -> "----"), is("aaaa"));
+        assertThat(cache.get("b", () -> "BBBB"), is("BBBB"));
+    }
+
+    @Test
+    public void entries_expire_after_ttl() throws Exception {
+        FragmentCache cache = new FragmentCache(100, 1, TimeUnit.MILLISECONDS);
+        cache.get("a", () -> "old");
+        Thread.sleep(5);
+        assertThat(cache.get("a", () -> "new"), is("new"));
+        assertThat(cache.stats().weight(), is(3L));
+    }
+
+    @Test
+    public void failed_loads_are_not_cached() {
+        FragmentCache cache = new FragmentCache(100);
+        try {
+            cache.get("a", () -> {
+                throw new IllegalStateException("boom");
+            });
+        } catch (IllegalStateException expected) {
+        }
+        assertThat(cache.get("a", () -> "ok"), is("ok"));
+    }
+
+    @Test
+    public void concurrent_misses_are_loaded_once() throws Exception {
+        FragmentCache cache = new FragmentCache(100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("a", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "value";
+            })));
+            loading.await();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.get("a", () -> "other")));
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(), is("value"));
+            }
+            assertThat(loads.get(), is(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
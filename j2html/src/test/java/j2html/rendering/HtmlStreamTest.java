@@ -0,0 +1,113 @@
+package j2html.rendering;
+
+import j2html.Config;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static j2html.TagCreator.attrs;
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.img;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.ul;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class HtmlStreamTest {
+
+    @Test
+    public void elements_are_written_directly() {
+        FlatHtml<StringBuilder> html = FlatHtml.inMemory();
+        HtmlStream.into(html).div(attrs("#main.row"), d -> d
+            .h1("Title <1>")
+            .p(p -> p.text("a").br().text("b"))
+            .input(attrs(".field"))
+        );
+        assertThat(html.output().toString(), is(
+            "<div id=\"main\" class=\"row\"><h1>Title &lt;1&gt;</h1><p>a<br>b</p><input class=\"field\"></div>"
+        ));
+    }
+
+    @Test
+    public void output_matches_tag_based_rendering() {
+        FlatHtml<StringBuilder> html = FlatHtml.inMemory();
+        HtmlStream.into(html).ul(u -> Arrays.asList("a", "b").forEach(u::li));
+        assertThat(html.output().toString(), is(ul(li("a"), li("b")).render()));
+    }
+
+    @Test
+    public void dom_content_can_be_mixed_in() {
+        FlatHtml<StringBuilder> html = FlatHtml.inMemory();
+        HtmlStream.into(html)
+            .section(span("x"), div("y"))
+            .with(span("z"))
+            .rawHtml("<!-- raw -->");
+        assertThat(html.output().toString(), is("<section><span>x</span><div>y</div></section><span>z</span><!-- raw -->"));
+    }
+
+    @Test
+    public void indented_output_is_supported() {
+        IndentedHtml<StringBuilder> html = IndentedHtml.inMemory(Config.defaults());
+        HtmlStream.into(html).div(d -> d.span("x"));
+        assertThat(html.output().toString(), is(
+            "<div>\n" +
+            "    <span>\n" +
+            "        x\n" +
+            "    </span>\n" +
+            "</div>\n"
+        ));
+    }
+
+    @Test
+    public void attributes_follow_the_start_tag() {
+        FlatHtml<StringBuilder> html = FlatHtml.inMemory();
+        HtmlStream.into(html)
+            .a(attrs(".nav"), a -> a.withHref("/search?q=a&b=\"c\"").attr("data-x", "<y>").text("Search"))
+            .input().withType("text").isRequired().isAutocomplete()
+            .span("after")
+            .finish();
+        assertThat(html.output().toString(), is(
+            "<a class=\"nav\" href=\"/search?q=a&amp;b=&quot;c&quot;\" data-x=\"&lt;y&gt;\">Search</a>" +
+            "<input type=\"text\" required autocomplete=\"on\"><span>after</span>"
+        ));
+    }
+
+    @Test
+    public void attributes_match_tag_based_rendering() {
+        FlatHtml<StringBuilder> html = FlatHtml.inMemory();
+        HtmlStream.into(html).div(d -> d.withId("x").a(a -> a.withHref("a&b").text("<link>")).img().withSrc("\"logo\"")).finish();
+        assertThat(html.output().toString(), is(div(a("<link>").withHref("a&b"), img().withSrc("\"logo\"")).withId("x").render()));
+    }
+
+    @Test
+    public void indented_start_tags_are_completed_before_the_content() {
+        IndentedHtml<StringBuilder> html = IndentedHtml.inMemory(Config.defaults());
+        HtmlStream.into(html).div(d -> d.withClass("a").br().withClass("b")).finish();
+        assertThat(html.output().toString(), is(
+            "<div class=\"a\">\n" +
+            "    <br class=\"b\">\n" +
+            "</div>\n"
+        ));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void attributes_cannot_follow_content() {
+        HtmlStream.into(FlatHtml.inMemory()).div(d -> d.text("x").withId("late"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void attributes_cannot_follow_a_complete_element() {
+        HtmlStream.into(FlatHtml.inMemory()).p("text").withId("late");
+    }
+
+    @Test
+    public void finish_pushes_the_output_to_writers() {
+        StringWriter writer = new StringWriter();
+        CoalescingOutput out = CoalescingOutput.wrap(writer);
+        HtmlStream.into(FlatHtml.into(out)).p("text").img().withSrc("a.png").finish();
+        assertThat(writer.toString(), is("<p>text</p><img src=\"a.png\">"));
+    }
+}
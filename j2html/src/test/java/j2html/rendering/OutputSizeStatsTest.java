@@ -0,0 +1,138 @@
+package j2html.rendering;
+
+import j2html.tags.specialized.DivTag;
+import j2html.tags.specialized.HtmlTag;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.document;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.p;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class OutputSizeStatsTest {
+
+    @Test
+    public void buckets_hold_their_sizes_with_at_most_25_percent_headroom() {
+        for (int size = 16; size < 5_000_000; size = size * 9 / 8 + 1) {
+            int capacity = OutputSizeStats.capacityOf(OutputSizeStats.bucketOf(size));
+            assertThat(capacity, greaterThan(size));
+            assertThat((double) capacity, lessThanOrEqualTo(size * 1.25));
+        }
+        assertThat(OutputSizeStats.capacityOf(OutputSizeStats.bucketOf(3)), is(16));
+        assertThat(OutputSizeStats.capacityOf(OutputSizeStats.bucketOf(Integer.MAX_VALUE)), is(Integer.MAX_VALUE - 8));
+    }
+
+    @Test
+    public void suggests_a_capacity_which_fits_most_renders() {
+        OutputSizeStats.Histogram sizes = new OutputSizeStats(0.9, 64).forKey("page");
+        assertThat(sizes.capacity(100), is(100));
+        for (int i = 0; i < 100; i++) {
+            sizes.record(i % 10 == 0 ? 500_000 : 300_000 + i);
+        }
+        assertThat(sizes.capacity(100), greaterThanOrEqualTo(300_100));
+        assertThat((double) sizes.capacity(100), lessThanOrEqualTo(300_100 * 1.25));
+    }
+
+    @Test
+    public void old_sizes_decay() {
+        OutputSizeStats.Histogram sizes = new OutputSizeStats(0.95, 16).forKey("page");
+        for (int i = 0; i < 100; i++) {
+            sizes.record(300_000);
+        }
+        for (int i = 0; i < 100; i++) {
+            sizes.record(1_000);
+        }
+        assertThat(sizes.capacity(16), lessThanOrEqualTo(1_250));
+
+        OutputSizeStats.Snapshot snapshot = sizes.snapshot();
+        assertThat(snapshot.samples(), is(200L));
+        assertThat(snapshot.max(), is(300_000));
+        // smaller pages always fit into the capacity suggested before them
+        assertThat(snapshot.undersized(), is(0L));
+    }
+
+    @Test
+    public void counts_renders_which_outgrow_the_suggested_capacity() {
+        OutputSizeStats.Histogram sizes = new OutputSizeStats(0.9, 64).forKey("page");
+        sizes.record(1_000);
+        sizes.record(10_000);
+        sizes.record(10_000);
+        assertThat(sizes.snapshot().undersized(), is(1L));
+    }
+
+    @Test
+    public void sealed_roots_get_their_own_histogram() {
+        OutputSizeStats stats = new OutputSizeStats(0.95, 64);
+        DivTag sealed = div(p("Hello")).seal();
+        DivTag other = div(p("Hello")).seal();
+        DivTag mutable = div(p("Hello"));
+
+        assertThat(stats.forRendering(sealed), is(sameInstance(stats.forRoot(sealed))));
+        assertThat(stats.forRendering(sealed), is(not(sameInstance(stats.forRendering(other)))));
+        assertThat(stats.forRendering(mutable), is(sameInstance(stats.forClass(DivTag.class))));
+    }
+
+    @Test
+    public void documents_record_into_the_shared_stats() {
+        HtmlTag page = html(body(p("Hello"))).seal();
+        document(page);
+        document(page);
+
+        OutputSizeStats.Snapshot snapshot = OutputSizeStats.shared().forRoot(page).snapshot();
+        assertThat(snapshot.samples(), is(2L));
+        assertThat(snapshot.capacity(), greaterThan(document(page).length()));
+
+        Map<String, OutputSizeStats.Snapshot> all = OutputSizeStats.shared().snapshot();
+        assertThat(all, hasKey("root:" + HtmlTag.class.getName() + "@" + Integer.toHexString(System.identityHashCode(page))));
+    }
+
+    @Test
+    public void plain_renders_are_not_recorded() {
+        DivTag fragment = div(p("Hello")).seal();
+        fragment.render();
+        assertThat(OutputSizeStats.shared().forRoot(fragment).snapshot().samples(), is(0L));
+    }
+
+    @Test
+    public void concurrent_recording_does_not_block() throws Exception {
+        OutputSizeStats.Histogram sizes = new OutputSizeStats(0.95, 64).forKey("page");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        sizes.record(1000);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        OutputSizeStats.Snapshot snapshot = sizes.snapshot();
+        // samples arriving during another thread's update are dropped
+        assertThat(snapshot.samples(), is(both(greaterThan(0L)).and(lessThanOrEqualTo(40_000L))));
+        assertThat(snapshot.capacity(), is(OutputSizeStats.capacityOf(OutputSizeStats.bucketOf(1000))));
+    }
+}
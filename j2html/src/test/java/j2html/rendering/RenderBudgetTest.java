@@ -0,0 +1,146 @@
+package j2html.rendering;
+
+import j2html.Config;
+import j2html.tags.DomContent;
+import j2html.tags.specialized.DivTag;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static j2html.TagCreator.br;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.p;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+public class RenderBudgetTest {
+
+    private static DivTag rows(int count) {
+        return div(each(IntStream.range(0, count).mapToObj(i -> p("Row " + i))));
+    }
+
+    private static DivTag nested(int depth) {
+        DivTag root = div();
+        DivTag current = root;
+        for (int i = 1; i < depth; i++) {
+            DivTag child = div();
+            current.with(child);
+            current = child;
+        }
+        return root;
+    }
+
+    private static RenderAbortedException render(DomContent content, Config config, StringBuilder out) throws IOException {
+        try {
+            content.render(FlatHtml.into(out, config));
+        } catch (RenderAbortedException e) {
+            return e;
+        }
+        fail("The render was not aborted");
+        return null;
+    }
+
+    @Test
+    public void unlimited_renders_are_not_guarded() throws IOException {
+        StringBuilder out = new StringBuilder();
+        FlatHtml<StringBuilder> html = FlatHtml.into(out, Config.defaults());
+        assertThat(html.output(), is(sameInstance(out)));
+        rows(1000).render(html);
+        assertThat(out.toString(), is(rows(1000).render()));
+    }
+
+    @Test
+    public void limits_the_number_of_elements() throws IOException {
+        StringBuilder out = new StringBuilder();
+        RenderAbortedException e = render(rows(1000), Config.defaults().withRenderBudget(RenderBudget.UNLIMITED.withMaxNodes(10)), out);
+        assertThat(e.reason(), is(RenderAbortedException.Reason.MAX_NODES));
+        assertThat(e.nodes(), is(11L));
+        assertThat(e.chars(), is((long) out.length()));
+        assertThat(out.toString(), is("<div>" + "<p>Row 0</p><p>Row 1</p><p>Row 2</p><p>Row 3</p><p>Row 4</p><p>Row 5</p><p>Row 6</p><p>Row 7</p><p>Row 8</p>"));
+    }
+
+    @Test
+    public void limits_the_output() throws IOException {
+        StringBuilder out = new StringBuilder();
+        RenderAbortedException e = render(rows(1000), Config.defaults().withRenderBudget(RenderBudget.UNLIMITED.withMaxChars(100)), out);
+        assertThat(e.reason(), is(RenderAbortedException.Reason.MAX_CHARS));
+        assertThat(out.length(), lessThanOrEqualTo(100));
+    }
+
+    @Test
+    public void limits_the_depth() throws IOException {
+        RenderAbortedException e = render(nested(50), Config.defaults().withRenderBudget(RenderBudget.UNLIMITED.withMaxDepth(20)), new StringBuilder());
+        assertThat(e.reason(), is(RenderAbortedException.Reason.MAX_DEPTH));
+        assertThat(e.depth(), is(21));
+    }
+
+    @Test
+    public void limits_the_time() throws IOException {
+        DomContent slow = new DomContent() {
+            @Override
+            public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return builder.output();
+            }
+        };
+        DivTag page = div(each(IntStream.range(0, 1000).mapToObj(i -> p(slow))));
+        RenderAbortedException e = render(page, Config.defaults().withRenderBudget(RenderBudget.UNLIMITED.withMaxTime(20, TimeUnit.MILLISECONDS)), new StringBuilder());
+        assertThat(e.reason(), is(RenderAbortedException.Reason.MAX_TIME));
+        assertThat(e.nodes(), lessThanOrEqualTo(32L));
+    }
+
+    @Test
+    public void stops_at_the_next_element_once_cancelled() throws IOException {
+        CancellationToken token = new CancellationToken();
+        DomContent disconnect = new DomContent() {
+            @Override
+            public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) {
+                token.cancel();
+                return builder.output();
+            }
+        };
+        StringBuilder out = new StringBuilder();
+        RenderAbortedException e = render(div(p("before"), disconnect, p("after")), Config.defaults().withCancellationToken(token), out);
+        assertThat(e.reason(), is(RenderAbortedException.Reason.CANCELLED));
+        assertThat(out.toString(), is("<div><p>before</p>"));
+    }
+
+    @Test
+    public void applies_to_indented_html() throws IOException {
+        IndentedHtml<StringBuilder> html = IndentedHtml.into(new StringBuilder(), Config.defaults().withRenderBudget(RenderBudget.UNLIMITED.withMaxNodes(3)));
+        try {
+            div(br(), br(), br()).render(html);
+            fail("The render was not aborted");
+        } catch (RenderAbortedException e) {
+            assertThat(e.nodes(), is(4L));
+        }
+    }
+
+    @Test
+    public void the_budget_survives_changes_to_the_global_fields() {
+        Config original = Config.current();
+        RenderBudget budget = RenderBudget.UNLIMITED.withMaxNodes(1_000_000);
+        try {
+            Config.publish(original.withRenderBudget(budget));
+            Config.setCloseEmptyTags(!original.closeEmptyTags());
+            assertThat(Config.current().renderBudget(), is(sameInstance(budget)));
+        } finally {
+            Config.publish(original);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void limits_must_be_positive() {
+        RenderBudget.UNLIMITED.withMaxChars(0);
+    }
+}
@@ -0,0 +1,181 @@
+package j2html.rendering;
+
+import j2html.tags.specialized.DivTag;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.p;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class SpillingOutputStreamTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final DivTag PAGE = div(each(IntStream.range(0, 5000).mapToObj(i -> p("Größe " + i))));
+
+    private SpillingOutputStream.Content render(int memoryThreshold) throws IOException {
+        SpillingOutputStream spill = new SpillingOutputStream(memoryThreshold, folder.getRoot().toPath());
+        SpillingOutputStream.Content content = spill.content();
+        try (Utf8Output out = new Utf8Output(spill)) {
+            PAGE.render(FlatHtml.into(out));
+        }
+        return content;
+    }
+
+    private long spilledFiles() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.count();
+        }
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] expected() {
+        return PAGE.render().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void small_content_stays_in_memory() throws IOException {
+        SpillingOutputStream.Content spill = render(1024 * 1024);
+        assertThat(spill.isSpilled(), is(false));
+        assertThat(spill.spilledSize(), is(0L));
+        assertThat(spill.size(), is((long) expected().length));
+        assertThat(read(spill.openInputStream()), is(expected()));
+    }
+
+    @Test
+    public void large_content_is_spilled_to_a_file() throws IOException {
+        SpillingOutputStream.Content spill = render(10_000);
+        assertThat(spill.isSpilled(), is(true));
+        assertThat(spill.spilledSize(), is(expected().length - 10_000L));
+        assertThat(read(spill.openInputStream()), is(expected()));
+        // the content can be read more than once
+        assertThat(read(spill.openInputStream()), is(expected()));
+    }
+
+    @Test
+    public void content_can_be_transferred_and_read_as_a_channel() throws IOException {
+        SpillingOutputStream.Content spill = render(10_000);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        assertThat(spill.transferTo(target), is((long) expected().length));
+        assertThat(target.toByteArray(), is(expected()));
+
+        ByteArrayOutputStream viaChannel = new ByteArrayOutputStream();
+        ReadableByteChannel channel = spill.openChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            Channels.newChannel(viaChannel).write(buffer);
+            buffer.clear();
+        }
+        assertThat(viaChannel.toByteArray(), is(expected()));
+    }
+
+    @Test
+    public void everything_can_be_spilled() throws IOException {
+        SpillingOutputStream.Content spill = render(0);
+        assertThat(spill.spilledSize(), is((long) expected().length));
+        assertThat(read(spill.openInputStream()), is(expected()));
+    }
+
+    @Test
+    public void closing_the_stream_releases_the_file() throws IOException {
+        SpillingOutputStream closed;
+        try (SpillingOutputStream spill = new SpillingOutputStream(0, folder.getRoot().toPath())) {
+            spill.write(new byte[100]);
+            assertThat(spill.isSpilled(), is(true));
+            closed = spill;
+        }
+        // some platforms unlink the file as soon as it is opened, so also check that the content is gone
+        assertThat(spilledFiles(), is(0L));
+        try {
+            closed.content();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void taken_content_outlives_the_stream_until_it_is_closed() throws IOException {
+        // render() closes the stream, the content still owns the file
+        SpillingOutputStream.Content spill = render(10_000);
+        assertThat(read(spill.openInputStream()), is(expected()));
+        spill.close();
+        spill.close();
+        assertThat(spilledFiles(), is(0L));
+        try {
+            spill.openInputStream();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void non_blocking_channels_are_rejected() throws IOException {
+        SpillingOutputStream.Content spill = render(10_000);
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+            spill.transferTo(pipe.sink());
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+            spill.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closed_content_cannot_be_read() throws IOException {
+        SpillingOutputStream.Content spill = render(10_000);
+        spill.close();
+        spill.openInputStream();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void content_cannot_be_read_while_it_is_written() throws IOException {
+        SpillingOutputStream spill = new SpillingOutputStream(10);
+        spill.write(1);
+        spill.content().openInputStream();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void content_cannot_be_taken_after_closing() throws IOException {
+        SpillingOutputStream spill = new SpillingOutputStream(10);
+        spill.close();
+        spill.content();
+    }
+
+    @Test(expected = IOException.class)
+    public void closed_streams_cannot_be_written() throws IOException {
+        SpillingOutputStream spill = new SpillingOutputStream(10);
+        spill.close();
+        spill.write(1);
+    }
+}
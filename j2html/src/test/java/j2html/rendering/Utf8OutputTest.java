@@ -0,0 +1,105 @@
+package j2html.rendering;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.p;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class Utf8OutputTest {
+
+    private static final String MIXED = "<p>ascii, äöü, € and 😀</p>";
+
+    private static byte[] encode(int bufferSize, String... parts) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Utf8Output out = new Utf8Output(bytes, bufferSize)) {
+            for (String part : parts) {
+                out.append(part);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void encodes_like_string_get_bytes() throws Exception {
+        for (int bufferSize = 4; bufferSize < 40; bufferSize++) {
+            assertThat(encode(bufferSize, MIXED), is(MIXED.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    public void surrogate_pairs_can_be_split_across_appends() throws Exception {
+        String smiley = "😀";
+        assertThat(encode(4, "a\uD83D", "\uDE00b"), is(("a" + smiley + "b").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void unpaired_surrogates_are_replaced() throws Exception {
+        String broken = "a\uDE00b\uD83Dc\uD83D";
+        assertThat(encode(8, broken), is(broken.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void single_chars_and_ranges_are_encoded() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Utf8Output out = new Utf8Output(bytes, 4)) {
+            out.append('€').append(MIXED, 3, 11).append('x');
+        }
+        assertThat(new String(bytes.toByteArray(), StandardCharsets.UTF_8), is("€ascii, äx"));
+    }
+
+    @Test
+    public void size_counts_buffered_and_written_bytes() throws Exception {
+        Utf8Output out = new Utf8Output(new ByteArrayOutputStream(), 16);
+        out.append(MIXED);
+        assertThat(out.size(), is((long) MIXED.getBytes(StandardCharsets.UTF_8).length));
+    }
+
+    @Test
+    public void commit_is_called_once_and_knows_if_the_output_is_complete() throws Exception {
+        List<String> commits = new ArrayList<>();
+        class RecordingOutput extends Utf8Output {
+            RecordingOutput(int bufferSize) {
+                super(new ByteArrayOutputStream(), bufferSize);
+            }
+
+            @Override
+            protected void commit(int bufferedBytes, boolean complete) {
+                commits.add(bufferedBytes + (complete ? " complete" : " partial"));
+            }
+        }
+
+        try (Utf8Output small = new RecordingOutput(64)) {
+            small.append("<p>Hello</p>");
+        }
+        try (Utf8Output large = new RecordingOutput(8)) {
+            large.append("<p>Hello</p>");
+        }
+        assertThat(commits.toString(), is("[12 complete, 8 partial]"));
+    }
+
+    @Test
+    public void renders_html_into_the_stream() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Utf8Output out = new Utf8Output(bytes, 16)) {
+            div(each(Arrays.asList(0, 1, 2), i -> p("€" + i))).render(FlatHtml.into(out));
+        }
+        assertThat(new String(bytes.toByteArray(), StandardCharsets.UTF_8), is("<div><p>€0</p><p>€1</p><p>€2</p></div>"));
+    }
+
+    @Test(expected = IOException.class)
+    public void appending_after_close_fails() throws Exception {
+        Utf8Output out = new Utf8Output(new ByteArrayOutputStream());
+        out.close();
+        out.append("x");
+    }
+}
@@ -0,0 +1,184 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.model.DynamicHrefAttribute;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.IndentedHtml;
+import j2html.tags.specialized.DivTag;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.br;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.input;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.rawHtml;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.tag;
+import static j2html.TagCreator.text;
+import static j2html.TagCreator.ul;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+public class BinaryDomTest {
+
+    private static DivTag page() {
+        return div(
+            p(text("Grüße <World>"), br(), a("link").withHref("/a?b=1&c=2")),
+            ul(each(asList("one", "two", "one"), s -> li(s).withClass("item"))).withId("list"),
+            input().isRequired().attr("data-custom", "x"),
+            rawHtml("<!-- raw -->"),
+            tag("custom-element").with(span("custom")),
+            tag(null).with(span("unnamed"))
+        ).withClass("page");
+    }
+
+    @Test
+    public void trees_survive_a_round_trip() throws IOException {
+        DivTag page = page();
+        DomContent copy = BinaryDom.readFrom(ByteBuffer.wrap(BinaryDom.toBytes(page)));
+        assertThat(copy.render(), is(page.render()));
+        assertThat(copy.render(IndentedHtml.inMemory(Config.defaults())).toString(),
+            is(page.render(IndentedHtml.inMemory(Config.defaults())).toString()));
+    }
+
+    @Test
+    public void trees_render_directly_from_the_buffer() throws IOException {
+        DivTag page = page();
+        ByteBuffer buffer = ByteBuffer.wrap(BinaryDom.toBytes(page));
+        assertThat(BinaryDom.render(buffer, FlatHtml.inMemory()).toString(), is(page.render()));
+        assertThat(buffer.hasRemaining(), is(false));
+
+        DomContent view = BinaryDom.view((ByteBuffer) buffer.rewind());
+        assertThat(div(view, view).render(), is(div(page, page).render()));
+    }
+
+    @Test
+    public void mapped_files_can_be_rendered() throws IOException {
+        Path file = Files.createTempFile("tree", ".bin");
+        try {
+            Files.write(file, BinaryDom.toBytes(page()));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                assertThat(BinaryDom.render(mapped, FlatHtml.inMemory()).toString(), is(page().render()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void repeated_strings_and_model_names_are_compact() {
+        DomContent list = ul(each(asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), i -> li("same").withClass("item")));
+        assertThat(BinaryDom.toBytes(list).length, lessThan(list.render().length() / 2));
+    }
+
+    @Test
+    public void leaves_and_fragments_can_be_serialized() {
+        assertThat(BinaryDom.readFrom(ByteBuffer.wrap(BinaryDom.toBytes(text("a < b")))).render(), is("a &lt; b"));
+        Fragment fragment = new Fragment(span("a"), text("b"));
+        assertThat(BinaryDom.readFrom(ByteBuffer.wrap(BinaryDom.toBytes(fragment))).render(), is(fragment.render()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void other_data_is_rejected() {
+        BinaryDom.readFrom(ByteBuffer.wrap(new byte[]{'<', 'p', '>', 0}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncated_data_is_rejected() throws IOException {
+        byte[] bytes = BinaryDom.toBytes(page());
+        BinaryDom.render(ByteBuffer.wrap(bytes, 0, bytes.length - 3), FlatHtml.inMemory());
+    }
+
+    /**
+     * A valid header followed by the given varints, starting with the size of the string table
+     */
+    private static ByteBuffer corrupt(int... varints) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('J');
+        out.write('2');
+        out.write('H');
+        out.write('B');
+        varint(out, 2);
+        varint(out, HtmlNames.FINGERPRINT);
+        for (int value : varints) {
+            varint(out, value);
+        }
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private static void varint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void assertRejected(ByteBuffer buffer) throws IOException {
+        try {
+            BinaryDom.readFrom(buffer.duplicate());
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            BinaryDom.render(buffer.duplicate(), FlatHtml.inMemory());
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void corrupt_counts_and_lengths_are_rejected() throws IOException {
+        // a negative and a huge number of strings
+        assertRejected(corrupt(-1));
+        assertRejected(corrupt(Integer.MAX_VALUE));
+        // a string longer than the buffer
+        assertRejected(corrupt(1, 1000, 'a'));
+        // a tag with a huge number of attributes
+        assertRejected(corrupt(0, 4, 1, Integer.MAX_VALUE, 0));
+    }
+
+    @Test
+    public void corrupt_ids_are_rejected() throws IOException {
+        // text referring to a string which is not in the table
+        assertRejected(corrupt(1, 1, 'a', 1, 5));
+        // an element id beyond the names of the model
+        assertRejected(corrupt(0, 4, (HtmlNames.ELEMENTS.length << 1) | 1, 0, 0));
+        // an attribute value beyond the string table
+        assertRejected(corrupt(0, 4, 1, 1, 1, 7, 0));
+    }
+
+    @Test
+    public void attribute_subclasses_are_written_as_they_render() {
+        DomContent link = a("link").attr(new DynamicHrefAttribute()).withClass("nav");
+        assertThat(BinaryDom.readFrom(ByteBuffer.wrap(BinaryDom.toBytes(link))).render(), is("<a href=\"/\" class=\"nav\">link</a>"));
+    }
+
+    @Test
+    public void data_of_a_different_model_is_rejected() {
+        byte[] bytes = BinaryDom.toBytes(page());
+        // the fingerprint of the names follows the magic bytes and the version
+        bytes[5] ^= 0x02;
+        try {
+            BinaryDom.readFrom(ByteBuffer.wrap(bytes));
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertThat(expected.getMessage(), is("Tree was serialized with a different html.model"));
+        }
+    }
+}
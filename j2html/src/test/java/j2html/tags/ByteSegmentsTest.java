@@ -0,0 +1,223 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.attributes.Attribute;
+import j2html.rendering.ArenaAllocator;
+import j2html.rendering.CancellationToken;
+import j2html.rendering.HtmlBuilder;
+import j2html.tags.specialized.DivTag;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.footer;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.ul;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+public class ByteSegmentsTest {
+
+    /**
+     * A blocking channel which accepts at most a few bytes per write, like a congested socket
+     */
+    private static class SlowChannel implements GatheringByteChannel {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final int maxPerWrite;
+        int writes;
+
+        SlowChannel(int maxPerWrite) {
+            this.maxPerWrite = maxPerWrite;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            writes++;
+            int written = 0;
+            for (int i = offset; i < offset + length && written < maxPerWrite; i++) {
+                while (srcs[i].hasRemaining() && written < maxPerWrite) {
+                    bytes.write(srcs[i].get());
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            return (int) write(new ByteBuffer[]{src});
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static String toString(ByteSegments segments) throws IOException {
+        SlowChannel channel = new SlowChannel(Integer.MAX_VALUE);
+        segments.writeTo(channel);
+        return new String(channel.bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static DivTag navigation() {
+        return div(ul(each(IntStream.range(0, 3).mapToObj(i -> li(a("Größe " + i).withHref("/entry/" + i)))))).seal();
+    }
+
+    @Test
+    public void segments_contain_the_rendered_page() throws IOException {
+        DivTag navigation = navigation();
+        DomContent page = html(body(navigation, p("Hello <World> 😀"), navigation, footer("Footer").seal()));
+        try (ByteSegments segments = ByteSegments.render(page)) {
+            String expected = page.render();
+            assertThat(segments.length(), is((long) expected.getBytes(StandardCharsets.UTF_8).length));
+            assertThat(toString(segments), is(expected));
+            assertThat(segments.sharedSegments(), is(3));
+            assertThat(segments.buffers().length, is(6));
+            assertThat(segments.hasRemaining(), is(false));
+        }
+    }
+
+    @Test
+    public void static_subtrees_are_encoded_once_and_shared() throws IOException {
+        DivTag navigation = navigation();
+        DomContent page = body(navigation, p("Dynamic"));
+        ByteSegments first = ByteSegments.render(page);
+        ByteBuffer shared = first.buffers()[1];
+        ByteSegments.Frozen frozen = ((ContainerTag<?>) navigation).frozenBytes;
+        ByteSegments second = ByteSegments.render(page);
+
+        assertThat(shared.isReadOnly(), is(true));
+        assertThat(shared.isDirect(), is(true));
+        assertThat(((ContainerTag<?>) navigation).frozenBytes, sameInstance(frozen));
+        assertThat(second.buffers()[1].isReadOnly(), is(true));
+        assertThat(toString(first), is(toString(second)));
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void static_subtrees_are_encoded_per_config() throws IOException {
+        DivTag tag = div(p("<b>")).seal();
+        Config escapeNothing = Config.defaults().withTextEscaper(text -> text);
+        try (ByteSegments escaped = ByteSegments.render(tag, Config.defaults());
+             ByteSegments unescaped = ByteSegments.render(tag, escapeNothing)) {
+            assertThat(toString(escaped), is("<div><p>&lt;b&gt;</p></div>"));
+            assertThat(toString(unescaped), is("<div><p><b></p></div>"));
+        }
+    }
+
+    @Test
+    public void per_request_configs_share_the_encoded_subtrees() throws IOException {
+        DivTag navigation = navigation();
+        Config perRequest = Config.defaults().withCancellationToken(new CancellationToken());
+        try (ByteSegments first = ByteSegments.render(navigation, Config.defaults())) {
+            ByteSegments.Frozen frozen = ((ContainerTag<?>) navigation).frozenBytes;
+            try (ByteSegments second = ByteSegments.render(navigation, perRequest)) {
+                assertThat(((ContainerTag<?>) navigation).frozenBytes, sameInstance(frozen));
+                assertThat(toString(second), is(toString(first)));
+            }
+        }
+    }
+
+    @Test
+    public void sealed_tags_with_dynamic_content_are_rendered_every_time() throws IOException {
+        int[] renders = new int[1];
+        DomContent counter = new DomContent() {
+            @Override
+            public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+                builder.appendEscapedText("render " + (++renders[0]));
+                return builder.output();
+            }
+        };
+        DivTag withCounter = div(span(counter), navigation()).seal();
+        DivTag withDynamicAttribute = div("text").attr(new Attribute("data-x", "y") {
+        }).seal();
+
+        try (ByteSegments first = ByteSegments.render(body(withCounter, withDynamicAttribute));
+             ByteSegments second = ByteSegments.render(body(withCounter, withDynamicAttribute))) {
+            assertThat(toString(first).contains("render 1"), is(true));
+            assertThat(toString(second).contains("render 2"), is(true));
+            // the static navigation inside is shared nevertheless
+            assertThat(second.sharedSegments(), is(1));
+            assertThat(((ContainerTag<?>) withCounter).frozenBytes, sameInstance(ByteSegments.Frozen.DYNAMIC));
+            assertThat(((ContainerTag<?>) withDynamicAttribute).frozenBytes, sameInstance(ByteSegments.Frozen.DYNAMIC));
+        }
+    }
+
+    @Test
+    public void partial_writes_are_continued() throws IOException {
+        DivTag navigation = navigation();
+        DomContent page = body(each(IntStream.range(0, 100).mapToObj(i -> div(navigation, p("Paragraph " + i)))));
+        try (ByteSegments segments = ByteSegments.render(page)) {
+            SlowChannel channel = new SlowChannel(1000);
+            long written = segments.writeTo(channel);
+            assertThat(written, is(segments.length()));
+            assertThat(new String(channel.bytes.toByteArray(), StandardCharsets.UTF_8), is(page.render()));
+            assertThat(channel.writes, is((int) ((segments.length() + 999) / 1000)));
+        }
+    }
+
+    @Test
+    public void dynamic_parts_are_released_to_the_allocator() throws IOException {
+        ArenaAllocator allocator = new ArenaAllocator(true, ArenaAllocator.DEFAULT_SLAB_SIZE, ArenaAllocator.DEFAULT_MAX_MEMORY, true);
+        DivTag navigation = navigation();
+        DomContent page = body(each(IntStream.range(0, 100).mapToObj(i -> div(navigation, p("Paragraph " + i)))));
+        try (ByteSegments segments = ByteSegments.render(page, Config.defaults(), allocator)) {
+            assertThat(segments.buffers()[0].isDirect(), is(true));
+            long dynamicBytes = segments.length() - 100 * navigation.render().getBytes(StandardCharsets.UTF_8).length;
+            assertThat(allocator.outstanding(), is((dynamicBytes + ByteSegments.CHUNK_SIZE - 1) / ByteSegments.CHUNK_SIZE));
+            assertThat(toString(segments), is(page.render()));
+        }
+        assertThat(allocator.leaks().toString(), allocator.leaks().isEmpty(), is(true));
+        assertThat(allocator.outstanding(), is(0L));
+    }
+
+    @Test
+    public void buffers_are_released_when_rendering_fails() {
+        ArenaAllocator allocator = new ArenaAllocator(true, ArenaAllocator.DEFAULT_SLAB_SIZE, ArenaAllocator.DEFAULT_MAX_MEMORY, true);
+        DomContent failing = new DomContent() {
+            @Override
+            public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) {
+                throw new IllegalStateException("failed");
+            }
+        };
+        try {
+            ByteSegments.render(body(p(new String(new char[10_000]).replace('\0', 'x')), failing), Config.defaults(), allocator);
+            fail();
+        } catch (IllegalStateException expected) {
+            assertThat(expected.getMessage(), is("failed"));
+        }
+        assertThat(allocator.outstanding(), is(0L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closed_segments_cannot_be_written() {
+        ByteSegments segments = ByteSegments.render(p("text"));
+        segments.close();
+        segments.buffers();
+    }
+}
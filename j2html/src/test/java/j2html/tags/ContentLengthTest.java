@@ -0,0 +1,146 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.rendering.CancellationToken;
+import j2html.rendering.FlatHtml;
+import j2html.rendering.HtmlBuilder;
+import j2html.rendering.RenderBudget;
+import j2html.rendering.Utf8Length;
+import j2html.tags.specialized.DivTag;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.br;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.eachStreamed;
+import static j2html.TagCreator.footer;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.input;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.rawHtml;
+import static j2html.TagCreator.span;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+public class ContentLengthTest {
+
+    private static long utf8Length(DomContent content) {
+        return content.render().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Test
+    public void utf8_length_counts_like_string_get_bytes() {
+        String[] strings = {"", "ascii", "äöü", "€", "😀", "a\uD83D", "\uDE00b", "\uD83D😀", "<p>Größe: 5 € 😀</p>"};
+        for (String string : strings) {
+            assertThat(string, new Utf8Length().append(string).length(), is((long) string.getBytes(StandardCharsets.UTF_8).length));
+        }
+        Utf8Length split = new Utf8Length().append("a\uD83D").append('\uDE00').append("b", 0, 1);
+        assertThat(split.length(), is((long) "a😀b".getBytes(StandardCharsets.UTF_8).length));
+    }
+
+    @Test
+    public void measures_escaped_and_unicode_content_exactly() {
+        DivTag content = div(
+            p("Größe < 5 & \"quoted\" 😀").withClass("a'b"),
+            rawHtml("<b>€</b>"),
+            input().isRequired().withValue("ü"),
+            br(),
+            each(new Fragment(span("x"), span("y")))
+        );
+        assertThat(ContentLength.of(content), is(utf8Length(content)));
+        assertThat(ContentLength.of(content.seal()), is(utf8Length(content)));
+    }
+
+    @Test
+    public void depends_on_the_config() {
+        Config closed = Config.defaults().withEmptyTagsClosed(true);
+        DivTag content = div(br(), input()).seal();
+        assertThat(ContentLength.of(content, Config.defaults()), is((long) "<div><br><input></div>".length()));
+        assertThat(ContentLength.of(content, closed), is((long) "<div><br/><input/></div>".length()));
+        assertThat(ContentLength.of(content, Config.defaults()), is((long) "<div><br><input></div>".length()));
+    }
+
+    @Test
+    public void caches_the_length_of_sealed_static_subtrees() {
+        DivTag header = div(a("Home").withHref("/"), span("€")).seal();
+        DivTag page = div(header, p("dynamic"));
+        long length = ContentLength.of(page, Config.defaults());
+
+        ContentLength.Measured measured = ((ContainerTag<?>) header).measuredLength;
+        assertThat(measured, is(notNullValue()));
+        assertThat(((ContainerTag<?>) page).measuredLength, is(nullValue()));
+
+        assertThat(ContentLength.of(page, Config.defaults()), is(length));
+        assertThat(((ContainerTag<?>) header).measuredLength, is(sameInstance(measured)));
+        assertThat(length, is(utf8Length(page)));
+    }
+
+    @Test
+    public void per_request_configs_share_the_cached_length() {
+        DivTag header = div(a("Home").withHref("/")).seal();
+        long length = ContentLength.of(header, Config.defaults());
+        ContentLength.Measured measured = ((ContainerTag<?>) header).measuredLength;
+
+        Config perRequest = Config.defaults().withCancellationToken(new CancellationToken()).withRenderBudget(RenderBudget.UNLIMITED.withMaxNodes(100));
+        assertThat(ContentLength.of(header, perRequest), is(length));
+        assertThat(((ContainerTag<?>) header).measuredLength, is(sameInstance(measured)));
+    }
+
+    @Test
+    public void does_not_cache_sealed_subtrees_with_dynamic_content() throws IOException {
+        int[] renders = {0};
+        DomContent counter = new DomContent() {
+            @Override
+            public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+                builder.appendEscapedText(String.valueOf(++renders[0] * 100));
+                return builder.output();
+            }
+        };
+        DivTag sealed = div(footer(counter), p("static")).seal();
+
+        assertThat(ContentLength.of(sealed), is((long) "<div><footer>100</footer><p>static</p></div>".length()));
+        assertThat(ContentLength.of(sealed), is((long) "<div><footer>200</footer><p>static</p></div>".length()));
+        assertThat(((ContainerTag<?>) sealed).measuredLength, is(sameInstance(ContentLength.Measured.DYNAMIC)));
+        // the static sibling is still cached
+        assertThat(NodeRenderer.kindOf(((ContainerTag<?>) sealed).childAt(1)), is(NodeRenderer.CONTAINER_TAG));
+        assertThat(((ContainerTag<?>) ((ContainerTag<?>) sealed).childAt(1)).measuredLength, is(notNullValue()));
+    }
+
+    @Test
+    public void measures_like_a_flat_render_into_a_counter() throws IOException {
+        DivTag page = div(each(new Fragment(p("€"), p("😀"))));
+        Utf8Length counter = page.render(FlatHtml.into(new Utf8Length()));
+        assertThat(ContentLength.of(html(body(page))), is(counter.length() + "<html><body></body></html>".length()));
+    }
+
+    @Test
+    public void single_use_sources_are_rejected_before_they_are_consumed() {
+        DivTag page = div(eachStreamed(Stream.of(1, 2, 3), n -> span("" + n)));
+        assertThat(ContentLength.isMeasurable(page), is(false));
+        try {
+            ContentLength.of(page);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertThat(expected.getMessage().contains("can only be rendered once"), is(true));
+        }
+        assertThat(page.render(), is("<div><span>1</span><span>2</span><span>3</span></div>"));
+    }
+
+    @Test
+    public void reusable_sources_are_measured() {
+        DivTag page = div(eachStreamed(Arrays.asList(1, 2, 3), n -> span("" + n)));
+        assertThat(ContentLength.isMeasurable(page), is(true));
+        assertThat(ContentLength.of(page), is(utf8Length(page)));
+    }
+}
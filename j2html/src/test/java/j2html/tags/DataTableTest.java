@@ -0,0 +1,76 @@
+package j2html.tags;
+
+import j2html.attributes.Attribute;
+import j2html.comparison.j2html.MultiplicationDataTable;
+import j2html.comparison.j2html.MultiplicationTable;
+import j2html.comparison.model.Employee;
+import j2html.rendering.IndentedHtml;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static j2html.TagCreator.dataTable;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.table;
+import static j2html.TagCreator.tbody;
+import static j2html.TagCreator.td;
+import static j2html.TagCreator.tr;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class DataTableTest {
+
+    @Test
+    public void typed_columns_render_cells() {
+        List<Employee> employees = Arrays.asList(new Employee(1, "Jane <Doe>", "CEO"), new Employee(2, null, "CTO"));
+        String html = dataTable(employees)
+            .intColumn("Id", Employee::getId, new Attribute("class", "id"))
+            .column("Name", Employee::getName)
+            .longColumn("Id²", e -> (long) e.getId() * e.getId())
+            .doubleColumn("Half", e -> e.getId() / 2.0)
+            .contentColumn("Title", e -> span(e.getTitle()))
+            .attr("id", "employees")
+            .render();
+        assertThat(html, is("<table id=\"employees\">"
+            + "<thead><tr><th>Id</th><th>Name</th><th>Id²</th><th>Half</th><th>Title</th></tr></thead>"
+            + "<tbody>"
+            + "<tr><td class=\"id\">1</td><td>Jane &lt;Doe&gt;</td><td>1</td><td>0.5</td><td><span>CEO</span></td></tr>"
+            + "<tr><td class=\"id\">2</td><td></td><td>4</td><td>1.0</td><td><span>CTO</span></td></tr>"
+            + "</tbody></table>"));
+    }
+
+    @Test
+    public void tables_without_headers_match_tag_based_tables() {
+        assertThat(MultiplicationDataTable.tag.render(), is(MultiplicationTable.tag.render()));
+    }
+
+    @Test
+    public void streamed_rows_are_rendered_once() {
+        assertThat(dataTable(Arrays.asList(1, 2).stream()).intColumn(null, i -> i).render(),
+            is(table(tbody(each(Arrays.asList(1, 2), i -> tr(td("" + i))))).render()));
+    }
+
+    @Test
+    public void tables_can_be_rendered_formatted() throws Exception {
+        assertThat(dataTable(Arrays.asList(1)).intColumn("N", i -> i).render(IndentedHtml.inMemory()).toString(), is(
+            "<table>\n" +
+            "    <thead>\n" +
+            "        <tr>\n" +
+            "            <th>\n" +
+            "                N\n" +
+            "            </th>\n" +
+            "        </tr>\n" +
+            "    </thead>\n" +
+            "    <tbody>\n" +
+            "        <tr>\n" +
+            "            <td>\n" +
+            "                1\n" +
+            "            </td>\n" +
+            "        </tr>\n" +
+            "    </tbody>\n" +
+            "</table>\n"
+        ));
+    }
+}
@@ -0,0 +1,117 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.attributes.Attribute;
+import j2html.model.DynamicHrefAttribute;
+import j2html.rendering.IndentedHtml;
+import j2html.tags.specialized.DivTag;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.br;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.input;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.rawHtml;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.tag;
+import static j2html.TagCreator.text;
+import static j2html.TagCreator.ul;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class DomArenaTest {
+
+    private static DivTag page() {
+        return div(
+            p(text("Hello <World>"), br(), a("link").withHref("/a?b=1&c=2")),
+            ul(each(asList("one", "two", "one"), s -> li(s).withClass("item"))).withId("list"),
+            input().isRequired(),
+            rawHtml("<!-- raw -->"),
+            tag(null).with(span("unnamed"))
+        ).withClass("page");
+    }
+
+    @Test
+    public void rendering_matches_the_tree() throws IOException {
+        DivTag page = page();
+        DomArena arena = DomArena.of(page);
+        assertThat(arena.render(), is(page.render()));
+        assertThat(arena.render(IndentedHtml.inMemory(Config.defaults())).toString(),
+            is(page.render(IndentedHtml.inMemory(Config.defaults())).toString()));
+    }
+
+    @Test
+    public void strings_are_shared() {
+        DomArena arena = DomArena.of(ul(each(asList(1, 2, 3, 4), i -> li("same").withClass("item"))));
+        assertThat(arena.size(), is(9));
+        // ul, li, "same", class, item
+        assertThat(arena.stringCount(), is(5));
+    }
+
+    @Test
+    public void arenas_convert_back_to_tags() {
+        DivTag page = page();
+        assertThat(DomArena.of(page).toTag().render(), is(page.render()));
+    }
+
+    @Test
+    public void custom_content_is_snapshotted() {
+        DomContent custom = new DomContent() {
+            @Override
+            public <T extends Appendable> T render(j2html.rendering.HtmlBuilder<T> builder, Object model) throws IOException {
+                builder.appendUnescapedText("<b>custom</b>");
+                return builder.output();
+            }
+        };
+        assertThat(DomArena.of(div(custom)).render(), is("<div><b>custom</b></div>"));
+    }
+
+    @Test
+    public void attribute_subclasses_are_stored_as_they_render() {
+        DomArena arena = DomArena.of(div(a("link").attr(new DynamicHrefAttribute()).withClass("nav")));
+        assertThat(arena.render(), is("<div><a href=\"/\" class=\"nav\">link</a></div>"));
+        assertThat(arena.toTag().render(), is(arena.render()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void attribute_subclasses_which_render_markup_are_rejected() {
+        DomArena.of(div().attr(new Attribute("data-x") {
+            @Override
+            @Deprecated
+            public void renderModel(Appendable writer, Object model) throws IOException {
+                writer.append("><script>");
+            }
+        }));
+    }
+
+    @Test
+    public void columns_can_live_outside_the_heap() throws IOException {
+        DivTag page = page();
+        assertThat(DomArena.of(page, DomArena.Allocator.DIRECT).render(), is(page.render()));
+
+        Path file = Files.createTempFile("arena", ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertThat(DomArena.of(page, DomArena.Allocator.mapped(channel)).render(), is(page.render()));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void very_deep_trees_are_supported() {
+        DivTag root = IterativeRendererTest.nested(100_000);
+        DomArena arena = DomArena.of(root);
+        assertThat(arena.size(), is(100_002));
+        assertThat(arena.render(), is(IterativeRenderer.render(root)));
+    }
+}
@@ -0,0 +1,43 @@
+package j2html.tags;
+
+import j2html.tags.specialized.UlTag;
+import org.junit.Test;
+
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.iff;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.ul;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class FragmentTest {
+
+    @Test
+    public void each_creates_a_fragment() {
+        assertThat(each(p("a"), p("b")), is(instanceOf(Fragment.class)));
+        assertThat(each(asList(1, 2), i -> p("" + i)), is(instanceOf(Fragment.class)));
+    }
+
+    @Test
+    public void fragments_render_their_children_inline() {
+        assertThat(each(p("a"), iff(false, p("x")), p("b")).render(), is("<p>a</p><p>b</p>"));
+    }
+
+    @Test
+    public void fragments_are_spliced_into_their_parent() {
+        UlTag list = ul(li("first"), each(asList(1, 2, 3), i -> li("Number " + i)), li("last"));
+        assertThat(list.getNumChildren(), is(5));
+        assertThat(list.render(), is("<ul><li>first</li><li>Number 1</li><li>Number 2</li><li>Number 3</li><li>last</li></ul>"));
+    }
+
+    @Test
+    public void nested_fragments_are_flattened() {
+        Fragment fragment = (Fragment) each(asList(1, 2), i -> each(p("" + i), each(p("nested " + i))));
+        assertThat(fragment.getNumChildren(), is(4));
+        assertThat(div(fragment).render(), is("<div><p>1</p><p>nested 1</p><p>2</p><p>nested 2</p></div>"));
+    }
+}
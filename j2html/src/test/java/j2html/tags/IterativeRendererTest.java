@@ -0,0 +1,69 @@
+package j2html.tags;
+
+import j2html.Config;
+import j2html.rendering.IndentedHtml;
+import j2html.tags.specialized.DivTag;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static j2html.TagCreator.br;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.text;
+import static j2html.TagCreator.ul;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class IterativeRendererTest {
+
+    static DivTag nested(int depth) {
+        DivTag root = div();
+        DivTag current = root;
+        for (int i = 1; i < depth; i++) {
+            DivTag child = div();
+            current.with(child);
+            current = child;
+        }
+        current.with(p("Hello World!"));
+        return root;
+    }
+
+    @Test
+    public void output_matches_recursive_rendering() throws IOException {
+        DomContent tree = div(
+            p(text("a"), span("b"), br()),
+            ul(each(asList(1, 2), i -> li("" + i))).withClass("list"),
+            new Fragment(text("x"), new Fragment(span("y"))),
+            nested(5).seal()
+        ).withId("root");
+        assertThat(IterativeRenderer.render(tree), is(tree.render()));
+        assertThat(IterativeRenderer.render(tree, IndentedHtml.inMemory(Config.defaults())).toString(),
+            is(tree.render(IndentedHtml.inMemory(Config.defaults())).toString()));
+    }
+
+    @Test
+    public void overridden_render_methods_are_respected() {
+        DomContent custom = new ContainerTag<DivTag>("div") {
+            @Override
+            public <A extends Appendable> A render(j2html.rendering.HtmlBuilder<A> builder, Object model) throws IOException {
+                builder.appendUnescapedText("custom");
+                return builder.output();
+            }
+        };
+        assertThat(IterativeRenderer.render(div(custom)), is("<div>custom</div>"));
+    }
+
+    @Test
+    public void very_deep_trees_do_not_overflow_the_stack() {
+        int depth = 100_000;
+        String html = IterativeRenderer.render(nested(depth));
+        assertThat(html.length(), is(depth * "<div></div>".length() + "<p>Hello World!</p>".length()));
+        assertThat(html.startsWith("<div><div>"), is(true));
+        assertThat(html.contains("<div><p>Hello World!</p></div></div>"), is(true));
+    }
+}
@@ -0,0 +1,92 @@
+package j2html.tags;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.document;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.eachStreamed;
+import static j2html.TagCreator.footer;
+import static j2html.TagCreator.h1;
+import static j2html.TagCreator.head;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.main;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.text;
+import static j2html.TagCreator.title;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class LayoutTest {
+
+    private final AtomicInteger shellRenders = new AtomicInteger();
+
+    private Layout layout() {
+        return Layout.compile(html(
+            head(title(Layout.slot("title"))),
+            body(
+                h1(Layout.slot("title")),
+                main(Layout.slot("content")),
+                footer(eachStreamed(asList("static footer"), s -> {
+                    shellRenders.incrementAndGet();
+                    return text(s);
+                })),
+                Layout.slot("scripts", text("no scripts"))
+            )
+        ));
+    }
+
+    @Test
+    public void slots_are_filled_between_static_segments() {
+        Layout layout = layout();
+        assertThat(layout.slotNames(), is(asList("title", "content", "scripts")));
+        String page = layout.fill()
+            .slot("title", text("Hello & welcome"))
+            .slot("content", p("First"), p("Second"))
+            .render();
+        assertThat(page, is(document(html(
+            head(title("Hello & welcome")),
+            body(
+                h1("Hello & welcome"),
+                main(p("First"), p("Second")),
+                footer("static footer"),
+                text("no scripts")
+            )
+        ))));
+    }
+
+    @Test
+    public void the_shell_is_rendered_only_once() {
+        Layout layout = layout();
+        for (int i = 0; i < 3; i++) {
+            layout.fill().slot("title", text("" + i)).render();
+        }
+        assertThat(shellRenders.get(), is(1));
+    }
+
+    @Test
+    public void pages_can_be_written_as_utf8() throws IOException {
+        Layout layout = layout();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Layout.Fill fill = layout.fill().slot("title", text("Grüße")).slot("content", each(asList("a", "b"), s -> span(s)));
+        fill.writeTo(out);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(fill.render()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknown_slots_are_rejected() {
+        layout().fill().slot("missing", text("x"));
+    }
+
+    @Test
+    public void slots_outside_of_layouts_render_their_default() {
+        assertThat(p(Layout.slot("a"), Layout.slot("b", text("default"))).render(), is("<p>default</p>"));
+    }
+}
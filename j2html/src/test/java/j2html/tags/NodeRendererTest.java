@@ -0,0 +1,49 @@
+package j2html.tags;
+
+import j2html.rendering.HtmlBuilder;
+import j2html.tags.specialized.DivTag;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static j2html.TagCreator.br;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.rawHtml;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.text;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class NodeRendererTest {
+
+    @Test
+    public void built_in_types_are_classified() {
+        assertThat(NodeRenderer.kindOf(text("a")), is(NodeRenderer.TEXT));
+        assertThat(NodeRenderer.kindOf(rawHtml("a")), is(NodeRenderer.UNESCAPED_TEXT));
+        assertThat(NodeRenderer.kindOf(br()), is(NodeRenderer.EMPTY_TAG));
+        assertThat(NodeRenderer.kindOf(div()), is(NodeRenderer.CONTAINER_TAG));
+        assertThat(NodeRenderer.kindOf(new Fragment()), is(NodeRenderer.FRAGMENT));
+        assertThat(NodeRenderer.kindOf(new DivTag() {}), is(NodeRenderer.CONTAINER_TAG));
+    }
+
+    @Test
+    public void subclasses_overriding_render_fall_back_to_virtual_dispatch() {
+        Text shouting = new Text("quiet") {
+            @Override
+            public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+                builder.appendEscapedText("LOUD");
+                return builder.output();
+            }
+        };
+        assertThat(NodeRenderer.kindOf(shouting), is(NodeRenderer.OTHER));
+        assertThat(div(shouting, span("x")).render(), is("<div>LOUD<span>x</span></div>"));
+    }
+
+    @Test
+    public void switch_rendering_matches_tag_rendering() {
+        DomContent tree = div(text("<a>"), rawHtml("<b>"), br(), each(asList("1", "2"), s -> span(s)));
+        assertThat(tree.render(), is("<div>&lt;a&gt;<b><br><span>1</span><span>2</span></div>"));
+    }
+}
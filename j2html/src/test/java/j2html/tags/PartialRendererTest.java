@@ -0,0 +1,78 @@
+package j2html.tags;
+
+import j2html.tags.specialized.HtmlTag;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.each;
+import static j2html.TagCreator.eachStreamed;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.input;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.ul;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PartialRendererTest {
+
+    private final AtomicInteger evaluated = new AtomicInteger();
+
+    private HtmlTag page() {
+        return html(body(
+            ul(eachStreamed(asList(1, 2, 3), i -> {
+                evaluated.incrementAndGet();
+                return li("item " + i);
+            })).withId("list"),
+            div(
+                each(asList("a", "b"), s -> span(s)),
+                div(span("2 items")).withId("cart")
+            ),
+            input().withId("search"),
+            div("second").withId("cart")
+        ));
+    }
+
+    @Test
+    public void only_the_target_is_rendered() {
+        assertThat(PartialRenderer.renderFragment(page(), "cart"), is("<div id=\"cart\"><span>2 items</span></div>"));
+        assertThat(PartialRenderer.renderFragment(page(), "search"), is("<input id=\"search\">"));
+        assertThat(evaluated.get(), is(0));
+    }
+
+    @Test
+    public void lazy_content_inside_the_target_is_evaluated() {
+        assertThat(PartialRenderer.renderFragment(page(), "list"), is("<ul id=\"list\"><li>item 1</li><li>item 2</li><li>item 3</li></ul>"));
+        assertThat(evaluated.get(), is(3));
+    }
+
+    @Test
+    public void missing_ids_render_nothing() {
+        assertThat(PartialRenderer.renderFragment(page(), "missing"), is(nullValue()));
+    }
+
+    @Test
+    public void recorded_tags_are_used() {
+        HtmlTag page = page();
+        Map<String, Tag> rendered = new HashMap<>();
+        page.renderRecorded(rendered);
+        assertThat(rendered.get("cart"), is(notNullValue()));
+
+        // the recorded tag is rendered without searching the (empty) root
+        assertThat(PartialRenderer.renderFragment(html(), "search", rendered), is("<input id=\"search\">"));
+    }
+
+    @Test
+    public void persistent_trees_are_searched() {
+        PersistentTag page = PersistentTag.from(html(body(div(span("x")).withId("target"))));
+        assertThat(PartialRenderer.renderFragment(page, "target"), is("<div id=\"target\"><span>x</span></div>"));
+    }
+}
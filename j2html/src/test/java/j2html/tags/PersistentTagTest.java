@@ -0,0 +1,117 @@
+package j2html.tags;
+
+import j2html.model.DynamicHrefAttribute;
+import j2html.rendering.HtmlBuilder;
+import j2html.tags.specialized.DivTag;
+import j2html.tags.specialized.HtmlTag;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.br;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.head;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.input;
+import static j2html.TagCreator.nav;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.text;
+import static j2html.TagCreator.title;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class PersistentTagTest {
+
+    private static HtmlTag layout() {
+        return html(
+            head(title("Title")),
+            body(
+                nav(span("Menu")).withClass("nav"),
+                div().withId("user"),
+                div(text("Content"), br(), input().isRequired()).withId("content")
+            )
+        );
+    }
+
+    @Test
+    public void converted_trees_render_like_the_original() {
+        HtmlTag layout = layout();
+        assertThat(PersistentTag.from(layout).render(), is(layout.render()));
+    }
+
+    @Test
+    public void variants_share_unchanged_subtrees() {
+        PersistentTag base = PersistentTag.from(layout());
+        String before = base.render();
+
+        PersistentTag variant = base.updateById("user", user -> user.with(text("Jane")).withClass("logged-in"));
+
+        assertThat(base.render(), is(before));
+        assertThat(variant.render(), is(before.replace("<div id=\"user\"></div>", "<div id=\"user\" class=\"logged-in\">Jane</div>")));
+        // head and the unchanged children of body are shared
+        assertThat(variant.getChild(0), sameInstance(base.getChild(0)));
+        PersistentTag baseBody = (PersistentTag) base.getChild(1);
+        PersistentTag variantBody = (PersistentTag) variant.getChild(1);
+        assertThat(variantBody.getChild(0), sameInstance(baseBody.getChild(0)));
+        assertThat(variantBody.getChild(2), sameInstance(baseBody.getChild(2)));
+    }
+
+    @Test
+    public void attributes_can_be_replaced_and_removed() {
+        PersistentTag tag = PersistentTag.of("div").withId("a").withClass("b");
+        assertThat(tag.attr("id", "c").render(), is("<div id=\"c\" class=\"b\"></div>"));
+        assertThat(tag.removeAttr("id").render(), is("<div class=\"b\"></div>"));
+        assertThat(tag.attr("hidden", null).getAttr("class"), is("b"));
+        assertThat(tag.render(), is("<div id=\"a\" class=\"b\"></div>"));
+    }
+
+    @Test
+    public void children_can_be_replaced_and_removed() {
+        PersistentTag tag = PersistentTag.of("ul").with(span("a"), span("b"), span("c"));
+        assertThat(tag.withChild(1, text("x")).render(), is("<ul><span>a</span>x<span>c</span></ul>"));
+        assertThat(tag.removeChild(0).render(), is("<ul><span>b</span><span>c</span></ul>"));
+        assertThat(tag.update(new int[]{2}, c -> c.withClass("last")).render(), is("<ul><span>a</span><span>b</span><span class=\"last\">c</span></ul>"));
+    }
+
+    @Test
+    public void mutable_children_are_copied() {
+        ContainerTag<?> child = div("before");
+        PersistentTag tag = PersistentTag.of("section").with(child);
+        child.withText("after");
+        assertThat(tag.render(), is("<section><div>before</div></section>"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void empty_tags_have_no_children() {
+        PersistentTag.emptyTag("br").with(text("x"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknown_ids_are_rejected() {
+        PersistentTag.from(layout()).updateById("missing", t -> t);
+    }
+
+    @Test
+    public void attribute_subclasses_are_copied_as_they_render() {
+        PersistentTag tag = PersistentTag.from(a("link").attr(new DynamicHrefAttribute()));
+        assertThat(tag.getAttr("href"), is("/"));
+        assertThat(tag.render(), is("<a href=\"/\">link</a>"));
+    }
+
+    @Test
+    public void tags_which_render_themselves_are_shared() {
+        DivTag component = new DivTag() {
+            @Override
+            public <T extends Appendable> T render(HtmlBuilder<T> builder, Object model) throws IOException {
+                builder.appendEscapedText("custom");
+                return builder.output();
+            }
+        };
+        PersistentTag tag = PersistentTag.of("section").with(component);
+        assertThat(tag.getChild(0), sameInstance(component));
+        assertThat(tag.render(), is("<section>custom</section>"));
+    }
+}
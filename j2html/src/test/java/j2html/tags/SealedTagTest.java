@@ -0,0 +1,90 @@
+package j2html.tags;
+
+import j2html.attributes.Attribute;
+import j2html.tags.specialized.DivTag;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static j2html.TagCreator.attrs;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.img;
+import static j2html.TagCreator.p;
+import static j2html.TagCreator.span;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class SealedTagTest {
+
+    @Test
+    public void sealed_tags_render_like_unsealed_tags() {
+        DivTag div = div(attrs("#main.content"), p("Hello"), img().withSrc("/logo.png"), span("World"));
+        String expected = div.render();
+        assertThat(div.seal().render(), is(expected));
+        assertThat(div.renderFormatted(), is(div(attrs("#main.content"), p("Hello"), img().withSrc("/logo.png"), span("World")).renderFormatted()));
+    }
+
+    @Test
+    public void sealing_is_deep() {
+        ContainerTag<?> inner = span("inner");
+        EmptyTag<?> image = img();
+        div(p(inner), image).seal();
+        assertThat(inner.isSealed(), is(true));
+        assertThat(image.isSealed(), is(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sealed_tags_reject_children() {
+        div().seal().with(p());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sealed_tags_reject_attributes() {
+        div().seal().withClass("x");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sealed_tags_reject_attribute_value_changes() {
+        div().withClass("a").seal().appendClass("b");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sealed_children_are_unmodifiable() {
+        div(p()).seal().children.clear();
+    }
+
+    @Test
+    public void sealed_tags_are_detached_from_shared_attributes() {
+        Attribute attribute = new Attribute("title", "before");
+        DivTag div = div().attr(attribute).seal();
+        attribute.setValue("after");
+        assertThat(div.render(), is("<div title=\"before\"></div>"));
+    }
+
+    @Test
+    public void sealed_trees_can_be_rendered_concurrently() throws Exception {
+        DivTag page = div();
+        for (int i = 0; i < 100; i++) {
+            page.with(p(span("Row " + i)).withClass("row-" + i));
+        }
+        page.seal();
+        String expected = page.render();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> page.render()));
+            }
+            for (Future<String> result : results) {
+                assertThat(result.get(), is(expected));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package j2html.tags;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static j2html.TagCreator.eachStreamed;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.ul;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class StreamedContentTest {
+
+    @Test
+    public void elements_are_mapped_while_rendering() {
+        AtomicInteger mapped = new AtomicInteger();
+        DomContent list = ul(eachStreamed(asList(1, 2, 3), i -> {
+            mapped.incrementAndGet();
+            return li("Number " + i);
+        }));
+        assertThat(mapped.get(), is(0));
+        assertThat(list.render(), is("<ul><li>Number 1</li><li>Number 2</li><li>Number 3</li></ul>"));
+        assertThat(mapped.get(), is(3));
+    }
+
+    @Test
+    public void iterable_content_can_be_rendered_repeatedly() {
+        DomContent list = ul(eachStreamed(asList("a", "b"), s -> li(s)));
+        assertThat(list.render(), is(list.render()));
+    }
+
+    @Test
+    public void streams_are_closed_after_rendering() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<String> stream = Stream.of("a", "b").onClose(() -> closed.set(true));
+        assertThat(ul(eachStreamed(stream, s -> li(s))).render(), is("<ul><li>a</li><li>b</li></ul>"));
+        assertThat(closed.get(), is(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void stream_content_can_only_be_rendered_once() {
+        DomContent list = ul(eachStreamed(Stream.of("a"), s -> li(s)));
+        list.render();
+        list.render();
+    }
+
+    @Test
+    public void spliterators_and_iterators_are_supported() {
+        assertThat(eachStreamed(IntStream.range(0, 3).boxed().spliterator(), i -> li("" + i)).render(), is("<li>0</li><li>1</li><li>2</li>"));
+        assertThat(eachStreamed(asList(1, 2).iterator(), i -> li("" + i)).render(), is("<li>1</li><li>2</li>"));
+    }
+}
@@ -0,0 +1,106 @@
+package j2html.tags;
+
+import j2html.model.DynamicHrefAttribute;
+import j2html.tags.specialized.DivTag;
+import j2html.tags.specialized.LiTag;
+import j2html.tags.specialized.UlTag;
+import org.junit.Test;
+
+import static j2html.TagCreator.a;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.i;
+import static j2html.TagCreator.li;
+import static j2html.TagCreator.rawHtml;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.text;
+import static j2html.TagCreator.ul;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class SubtreeInternerTest {
+
+    private static LiTag menuItem() {
+        return li(a(i().withClass("icon-home"), text(" Home")).withHref("/")).withClass("menu").seal();
+    }
+
+    @Test
+    public void equal_sealed_subtrees_are_interned() {
+        SubtreeInterner interner = new SubtreeInterner();
+        LiTag first = interner.intern(menuItem());
+        assertThat(interner.intern(menuItem()), sameInstance(first));
+        assertThat(interner.intern(li("other").seal()), not(sameInstance(first)));
+        // li, a, i and " Home", then li and "other"
+        assertThat(interner.size(), is(6));
+    }
+
+    @Test
+    public void descendants_are_interned_with_their_subtree() {
+        SubtreeInterner interner = new SubtreeInterner();
+        DivTag box = interner.intern(div(span("x"), span("y")).seal());
+        ContainerTag<?> container = box;
+        assertThat(interner.intern(span("y").seal()), sameInstance((DomContent) container.childAt(1)));
+        assertThat(interner.intern(div(span("y"), span("x")).seal()), not(sameInstance(box)));
+        assertThat(interner.intern(div(span("x"), span("y")).withClass("box").seal()), not(sameInstance(box)));
+    }
+
+    @Test
+    public void deep_subtrees_are_interned_without_recursion() {
+        SubtreeInterner interner = new SubtreeInterner();
+        DomContent first = text("leaf");
+        DomContent second = text("leaf");
+        for (int depth = 0; depth < 100_000; depth++) {
+            first = div(first).seal();
+            second = div(second).seal();
+        }
+        assertThat(interner.intern(second), sameInstance(interner.intern(first)));
+    }
+
+    @Test
+    public void unsealed_and_dynamic_subtrees_are_not_interned() {
+        SubtreeInterner interner = new SubtreeInterner();
+        DivTag unsealed = div(span("x"));
+        assertThat(interner.intern(unsealed), sameInstance(unsealed));
+        DivTag dynamic = div().attr(new DynamicHrefAttribute()).seal();
+        assertThat(interner.intern(dynamic), sameInstance(dynamic));
+        assertThat(interner.size(), is(0));
+    }
+
+    @Test
+    public void text_and_raw_html_are_distinguished() {
+        SubtreeInterner interner = new SubtreeInterner();
+        assertThat(interner.intern(text("<b>")), not(sameInstance((DomContent) interner.intern(rawHtml("<b>")))));
+    }
+
+    @Test
+    public void dedupe_replaces_repeated_subtrees() {
+        SubtreeInterner interner = new SubtreeInterner();
+        UlTag menu = ul();
+        for (int n = 0; n < 100; n++) {
+            menu.with(menuItem());
+        }
+        DivTag page = div(menu, div(menuItem()));
+        String before = page.render();
+
+        SubtreeInterner.Stats stats = interner.dedupe(page);
+        assertThat(stats.replacedSubtrees(), is(100));
+        assertThat(stats.bytesSaved(), greaterThan(100 * 100L));
+        assertThat(page.render(), is(before));
+        ContainerTag<?> list = menu;
+        assertThat(list.childAt(99), sameInstance(list.childAt(0)));
+        assertThat(interner.dedupe(page).replacedSubtrees(), is(0));
+    }
+
+    @Test
+    public void unused_canonical_instances_are_collected() throws InterruptedException {
+        SubtreeInterner interner = new SubtreeInterner();
+        interner.intern(menuItem());
+        for (int attempt = 0; attempt < 50 && interner.size() > 0; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(interner.size(), is(0));
+    }
+}
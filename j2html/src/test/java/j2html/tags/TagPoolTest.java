@@ -0,0 +1,109 @@
+package j2html.tags;
+
+import j2html.tags.specialized.DivTag;
+import j2html.tags.specialized.HeaderTag;
+import j2html.tags.specialized.TdTag;
+import j2html.tags.specialized.TrTag;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.h1;
+import static j2html.TagCreator.header;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.td;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TagPoolTest {
+
+    @Test
+    public void reset_clears_attributes_and_children() {
+        TdTag cell = td(span("x")).withClass("a").withId("b");
+        assertThat(cell.reset().render(), is("<td></td>"));
+        assertThat(cell.withText("y").render(), is("<td>y</td>"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sealed_tags_cannot_be_reset() {
+        td("x").seal().reset();
+    }
+
+    @Test
+    public void released_tags_are_reused() {
+        try (TagPool pool = new TagPool()) {
+            StringBuilder html = new StringBuilder();
+            TrTag firstRow = null;
+            for (int i = 0; i < 3; i++) {
+                TrTag row = pool.acquire(TrTag.class, TrTag::new);
+                row.with(pool.acquire(TdTag.class, TdTag::new).withText("" + i), pool.acquire(TdTag.class, TdTag::new).withText("" + i * i));
+                html.append(row.render());
+                if (firstRow == null) {
+                    firstRow = row;
+                } else {
+                    assertThat(row, sameInstance(firstRow));
+                }
+                pool.releaseAll();
+            }
+            assertThat(html.toString(), is("<tr><td>0</td><td>0</td></tr><tr><td>1</td><td>1</td></tr><tr><td>2</td><td>4</td></tr>"));
+            assertThat(pool.size(), is(3));
+        }
+    }
+
+    @Test
+    public void sealed_shared_tags_are_not_reset() {
+        HeaderTag sharedHeader = header(h1("Site")).withClass("top").seal();
+        try (TagPool pool = new TagPool()) {
+            for (int i = 0; i < 3; i++) {
+                DivTag page = pool.acquire(DivTag.class, DivTag::new)
+                    .with(pool.acquire(HeaderTag.class, () -> sharedHeader), pool.acquire(TdTag.class, TdTag::new).withText("" + i));
+                assertThat(page.render(), is("<div><header class=\"top\"><h1>Site</h1></header><td>" + i + "</td></div>"));
+                pool.releaseAll();
+            }
+            // the header is dropped on release, the div and the td are reused
+            assertThat(pool.size(), is(2));
+        }
+        assertThat(sharedHeader.render(), is("<header class=\"top\"><h1>Site</h1></header>"));
+    }
+
+    @Test
+    public void sealed_children_are_dropped_but_not_reset() {
+        DivTag sharedFooter = div("Footer").seal();
+        try (TagPool pool = new TagPool()) {
+            pool.acquire(DivTag.class, DivTag::new).with(sharedFooter);
+            pool.releaseAll();
+            assertThat(pool.acquire(DivTag.class, DivTag::new).render(), is("<div></div>"));
+        }
+        assertThat(sharedFooter.render(), is("<div>Footer</div>"));
+    }
+
+    @Test
+    public void acquired_tags_are_distinct_until_released() {
+        TagPool pool = new TagPool();
+        TdTag first = pool.acquire(TdTag.class, TdTag::new);
+        TdTag second = pool.acquire(TdTag.class, TdTag::new);
+        assertThat(first, not(sameInstance(second)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void factory_must_create_the_requested_type() {
+        new TagPool().acquire(TdTag.class, () -> new TdTag() {});
+    }
+
+    @Test
+    public void pools_are_confined_to_their_thread() throws InterruptedException {
+        TagPool pool = new TagPool();
+        try {
+            CompletableFuture.runAsync(() -> pool.acquire(TdTag.class, TdTag::new)).get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+            return;
+        }
+        throw new AssertionError("expected IllegalStateException");
+    }
+}